@@ -0,0 +1,698 @@
+package com.github.tranforcpp;
+
+import com.github.tranforcpp.pipeline.BackpressureController;
+import com.github.tranforcpp.pipeline.BackpressurePolicy;
+import com.github.tranforcpp.pipeline.CoalescingBuffer;
+import com.github.tranforcpp.pipeline.EventFilter;
+import com.github.tranforcpp.pipeline.EventFilters;
+import com.github.tranforcpp.pipeline.EventJournal;
+import com.github.tranforcpp.pipeline.EventRing;
+import com.github.tranforcpp.pipeline.EventSubscriptions;
+import com.github.tranforcpp.pipeline.EventWriter;
+import com.github.tranforcpp.pipeline.FlushScheduler;
+import com.github.tranforcpp.pipeline.SessionHandles;
+import com.github.tranforcpp.protocol.ActionReader;
+import com.github.tranforcpp.protocol.EventEncoder;
+import com.github.tranforcpp.protocol.FrameDecoder;
+import com.github.tranforcpp.protocol.WireFormat;
+import com.github.tranforcpp.transport.CppTransport;
+import com.github.tranforcpp.transport.PipeTransport;
+import com.github.tranforcpp.transport.SharedMemoryTransport;
+import com.github.tranforcpp.transport.SocketTransport;
+import com.github.tranforcpp.transport.TransportMode;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.EntityType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 一个C++插件进程
+ * <p>
+ * 持有进程自己的传输层、事件环、背压策略、写线程、订阅、过滤条件与拦截集合，
+ * 与其他进程共用 {@link ProcessManager} 中的动作执行器、指令队列、查询服务、句柄表与同步裁决通道。
+ * 单进程模式下只有一个未命名的实例；per-plugin 模式下每个C++插件一个实例，
+ * 事件只发给订阅了它的进程，各进程的写线程并行写出，一个进程积压不会拖慢其他进程。
+ * <p>
+ * 配置了分片时同一个可执行文件启动多个实例，每个实例只接收分区键（见 {@link #ownsPartition(int)}）
+ * 落在自己分片上的事件，同一玩家的事件总是由同一个分片按顺序处理。
+ * <p>
+ * 进程意外退出时（见 {@link ProcessSupervisor}）事件环、合并缓冲、订阅、过滤条件、玩家序号与句柄表接入都保留，
+ * 事件照常入队；{@link #restart(long)} 用同一个可执行文件启动新进程，把积压的事件按原顺序重放给它。
+ * <p>
+ * 热重载时新版本的实例与旧实例同时运行，两者的传输文件按槽（见构造函数的 slot）区分；
+ * 新实例发送 ready 后才接收事件，旧实例 {@link #drain(long)} 写完积压后停止。
+ * <p>
+ * 主要功能：
+ * - 启动进程并接入传输层、句柄表与订阅表
+ * - 按本进程的订阅与过滤条件判断是否接收事件
+ * - 事件按本进程的玩家序号入队，同步裁决请求直接写入事件环
+ * - 进程退出时通知守护，重启后重发句柄定义并重放积压；写线程写出失败时结束子进程，同样交给守护重启
+ * - 停止时发送关闭消息并等待进程退出
+ */
+public final class CppProcess {
+
+    /**
+     * 告知C++进程自己插件名的环境变量，单进程模式下不设置
+     */
+    public static final String ENV_NAME = "TRANFORCPP_PLUGIN_NAME";
+
+    /**
+     * 告知C++进程自己的分片序号与分片总数的环境变量
+     */
+    public static final String ENV_SHARD = "TRANFORCPP_SHARD";
+    public static final String ENV_SHARD_COUNT = "TRANFORCPP_SHARD_COUNT";
+
+    private static final int MAX_QUEUE_SIZE = 2000;
+    private static final int DEFAULT_BATCH_SIZE = 30;
+    private static final long DEFAULT_FLUSH_DELAY_MS = 50;
+    private static final int DEFAULT_HIGH_WATER_PERCENT = 80;
+    private static final long DEFAULT_BLOCK_TIMEOUT_MS = 5;
+    private static final int DEFAULT_SHM_CAPACITY_KB = 4096;
+    private static final int PROCESS_TERMINATION_TIMEOUT = 3;
+    private static final int FORCE_TERMINATION_TIMEOUT = 1;
+    private static final long READY_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    /**
+     * 进程状态
+     */
+    public enum State {
+        /** 尚未启动 */
+        NEW,
+        /** 正在运行 */
+        RUNNING,
+        /** 意外退出，等待守护重启，事件照常缓冲 */
+        RESTARTING,
+        /** 短时间内崩溃次数过多，不再重启 */
+        FAILED,
+        /** 已停止 */
+        STOPPED
+    }
+
+    private final TranforCPlusPlus plugin;
+    private final String name;
+    private final String instanceName;
+    private final String transportInstance;
+    private final int shard;
+    private final int shardCount;
+    private final File executable;
+    private final File cppDir;
+    private final WireFormat format;
+    private final Set<String> boundEvents;
+    private final EventRing eventRing = new EventRing(MAX_QUEUE_SIZE, DEFAULT_BATCH_SIZE);
+    private final EventFilters eventFilters = new EventFilters();
+    private final Map<UUID, AtomicInteger> playerSequences = new ConcurrentHashMap<>();
+    private final AtomicLong messageCounter = new AtomicLong(0);
+    private volatile Set<String> intercepted = Collections.emptySet();
+    private final AtomicInteger restartCount = new AtomicInteger();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong expiredCount = new AtomicLong();
+    private volatile State state = State.NEW;
+    private volatile boolean ready;
+    private volatile int lastExitCode;
+
+    // start() 时保存，重启时沿用
+    private TransportMode transportMode;
+    private SessionHandles handles;
+    private EventSubscriptions subscriptions;
+    private Consumer<ActionReader> actions;
+    private Consumer<CppProcess> exitHandler;
+    private EventJournal.Source journal;
+
+    private volatile Process process;
+    private volatile CppTransport transport;
+    private volatile BackpressureController backpressure;
+    private volatile FlushScheduler flushScheduler;
+    private volatile EventWriter eventWriter;
+    private volatile SessionHandles.Attachment attachment;
+    private volatile EventSubscriptions.Subscriber subscriber;
+    private volatile ActionReader actionReader;
+
+    /**
+     * @param name        插件名，单进程模式下为null
+     * @param shard       分片序号，从0开始
+     * @param shardCount  该插件的分片总数，不分片时为1
+     * @param boundEvents 可订阅的内置事件，不在其中的自定义事件发给所有进程
+     * @param slot        输出槽后缀，首次启动为空字符串；热重载的新实例使用另一个槽，
+     *                    共享内存与套接字文件名带上这个后缀，不会与仍在运行的旧实例冲突
+     */
+    CppProcess(TranforCPlusPlus plugin, String name, int shard, int shardCount, File executable, File cppDir,
+               WireFormat format, Set<String> boundEvents, String slot) {
+        this.plugin = plugin;
+        this.name = name;
+        this.shard = shard;
+        this.shardCount = Math.max(1, shardCount);
+        // 插件名只含字母、数字、点、下划线和连字符，加上 # 后不会与其他插件重名
+        this.instanceName = this.shardCount > 1 ? (name != null ? name : "shard") + "#" + shard : name;
+        this.transportInstance = slot.isEmpty() ? instanceName
+                : (instanceName != null ? instanceName : "plugin") + slot;
+        this.executable = executable;
+        this.cppDir = cppDir;
+        this.format = format;
+        this.boundEvents = boundEvents;
+    }
+
+    /**
+     * 启动进程，C++进程发来的每条动作交给 actions 处理
+     *
+     * @param exitHandler 进程意外退出（不是由 {@link #stop()} 停止）时在进程回收线程上调用
+     * @param journal     事件日志，未启用时为null；本进程发出与收到的每一帧都记录在其中
+     */
+    synchronized void start(TransportMode transportMode, SessionHandles handles, EventSubscriptions subscriptions,
+                            Consumer<ActionReader> actions, Consumer<CppProcess> exitHandler,
+                            EventJournal journal) throws IOException {
+        this.transportMode = transportMode;
+        this.handles = handles;
+        this.subscriptions = subscriptions;
+        this.actions = actions;
+        this.exitHandler = exitHandler;
+        this.journal = journal != null ? journal.source(getDisplayName()) : null;
+        playerSequences.clear();
+        launch();
+    }
+
+    /**
+     * 进程意外退出后用同一个可执行文件重新启动
+     * <p>
+     * 先丢弃入队早于 replayWindowNanos 的积压，再把句柄定义重新排队，新的写线程启动后按原顺序重放其余事件。
+     * 玩家序号接着退出前的序号继续分配。已被停止的进程不会重启。
+     *
+     * @return 是否启动了新进程
+     */
+    synchronized boolean restart(long replayWindowNanos) throws IOException {
+        if (state != State.RESTARTING) {
+            return false;
+        }
+        releaseSession();
+        CoalescingBuffer coalescer = backpressure != null ? backpressure.getCoalescingBuffer() : null;
+        int expired = eventRing.discardOlderThan(System.nanoTime() - replayWindowNanos, marker -> {
+            if (coalescer != null) {
+                coalescer.requeue(marker);
+            }
+        });
+        expiredCount.addAndGet(expired);
+        int backlog = eventRing.size();
+        if (attachment != null) {
+            attachment.resend();
+        }
+        launch();
+        restartCount.incrementAndGet();
+        replayedCount.addAndGet(backlog);
+        return true;
+    }
+
+    private void launch() throws IOException {
+        CppTransport newTransport = createTransport(transportMode);
+
+        ProcessBuilder pb = new ProcessBuilder(executable.getAbsolutePath());
+        pb.environment().put(WireFormat.ENV_NAME, format.getConfigName());
+        if (name != null) {
+            pb.environment().put(ENV_NAME, name);
+        }
+        pb.environment().put(ENV_SHARD, Integer.toString(shard));
+        pb.environment().put(ENV_SHARD_COUNT, Integer.toString(shardCount));
+        newTransport.prepare(pb);
+        Process started;
+        try {
+            started = pb.start();
+        } catch (IOException e) {
+            newTransport.close();
+            throw e;
+        }
+        process = started;
+        if (journal != null) {
+            journal.mark("start pid " + started.pid() + " " + executable.getName());
+        }
+
+        // 重启时沿用原来的背压统计、合并缓冲与句柄表接入，其中缓冲的事件要重放给新进程
+        if (backpressure == null) {
+            backpressure = createBackpressure();
+        }
+        backpressure.setPaused(false);
+        if (attachment == null && handles != null) {
+            attachment = handles.attach(eventRing);
+        }
+        eventFilters.clear();
+        intercepted = Collections.emptySet();
+        ready = false;
+        transport = newTransport;
+        // 在读取线程开始处理动作之前订阅全部事件，C++进程随后发送的 subscribe 会把它缩小到实际处理的事件；
+        // 重启时旧的订阅一直保留到这里，进程停止期间的事件照常缓冲
+        EventSubscriptions.Subscriber previous = subscriber;
+        subscriber = subscriptions.subscribeAll();
+        if (previous != null) {
+            previous.close();
+        }
+        state = State.RUNNING;
+        started.onExit().thenRun(() -> exited(started));
+        ActionReader reader = new ActionReader(format, instanceName);
+        actionReader = reader;
+        newTransport.open(process, new FrameDecoder(format, payload -> handleFrame(reader, payload, actions)));
+
+        flushScheduler = new FlushScheduler(eventRing, backpressure.getCoalescingBuffer(),
+                plugin.getConfig().getLong("pipeline.flush.max-delay-ms", DEFAULT_FLUSH_DELAY_MS),
+                plugin.getConfig().getInt("pipeline.flush.batch-size", DEFAULT_BATCH_SIZE),
+                plugin.getConfig().getBoolean("pipeline.flush.tick-aligned", true));
+        flushScheduler.start(plugin);
+
+        eventWriter = new EventWriter(eventRing, backpressure.getCoalescingBuffer(), flushScheduler, newTransport,
+                format, attachment, process, messageCounter, journal, () -> writerFailed(started), plugin.getLogger());
+        eventWriter.start();
+    }
+
+    private void exited(Process exited) {
+        synchronized (this) {
+            if (process != exited || state != State.RUNNING) {
+                return;
+            }
+            lastExitCode = exited.exitValue();
+            state = State.RESTARTING;
+            if (journal != null) {
+                journal.mark("exit " + lastExitCode);
+            }
+            // 没有进程给出裁决，事件不再等待；新进程启动后会重新声明
+            intercepted = Collections.emptySet();
+            if (backpressure != null) {
+                backpressure.setPaused(true);
+            }
+        }
+        Consumer<CppProcess> handler = exitHandler;
+        if (handler != null) {
+            handler.accept(this);
+        }
+    }
+
+    /**
+     * 写线程写出失败：没有线程再消费事件环，暂停背压并强制结束子进程，
+     * 随后的退出与意外退出一样由守护按退避重启，未写出的事件留在事件环中重放
+     */
+    private void writerFailed(Process failed) {
+        synchronized (this) {
+            if (process != failed || state != State.RUNNING) {
+                return;
+            }
+            if (backpressure != null) {
+                backpressure.setPaused(true);
+            }
+        }
+        plugin.getLogger().warning("Event writer of " + getDisplayName() + " failed, terminating the process for restart");
+        failed.destroyForcibly();
+    }
+
+    /**
+     * C++进程发送 ready 动作时调用：初始化（订阅、过滤条件、拦截声明）已完成
+     */
+    void markReady() {
+        ready = true;
+    }
+
+    /**
+     * 等待C++进程报告就绪，进程退出或超时返回false
+     */
+    boolean awaitReady(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (!ready) {
+            if (!isAlive() || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(READY_POLL_NANOS);
+            if (Thread.interrupted()) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 等待事件环与合并缓冲中的事件全部写出，最多等待 timeoutNanos，返回是否写完；用于热重载时让旧实例处理完切换前的事件
+     */
+    boolean drain(long timeoutNanos) {
+        long deadline = System.nanoTime() + timeoutNanos;
+        BackpressureController controller = backpressure;
+        while (eventRing.size() > 0 || (controller != null && controller.getCoalescingBuffer().size() > 0)) {
+            if (!isAlive() || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            eventRing.wakeConsumer();
+            LockSupport.parkNanos(READY_POLL_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * 守护放弃重启：停止进程并丢弃缓冲的事件，状态变为 {@link State#FAILED}
+     */
+    synchronized void fail() {
+        if (state != State.RESTARTING) {
+            return;
+        }
+        stop();
+        state = State.FAILED;
+    }
+
+    /**
+     * 停止写线程与传输层，保留事件环中尚未写出的事件
+     */
+    private void releaseSession() {
+        if (flushScheduler != null) {
+            flushScheduler.stop();
+        }
+        if (eventWriter != null) {
+            eventWriter.stop();
+        }
+        if (transport != null) {
+            transport.close();
+        }
+        flushScheduler = null;
+        eventWriter = null;
+        transport = null;
+    }
+
+    private void handleFrame(ActionReader actionReader, ByteBuffer payload, Consumer<ActionReader> actions) {
+        EventJournal.Source journalSource = journal;
+        if (journalSource != null) {
+            journalSource.in(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        }
+        try {
+            actionReader.reset(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining());
+        } catch (IllegalArgumentException e) {
+            if (actionReader.getFormat() == WireFormat.BINARY) {
+                plugin.getLogger().warning("Failed to decode C++ frame from " + getDisplayName() + ": " + e.getMessage());
+            } else {
+                plugin.getLogger().warning("Failed to parse C++ message from " + getDisplayName() + ": "
+                        + StandardCharsets.UTF_8.decode(payload));
+            }
+            // 继续处理后续消息
+            return;
+        }
+        actions.accept(actionReader);
+        messageCounter.incrementAndGet();
+    }
+
+    /**
+     * 动作是否由本进程当前的实例发出；热重载期间新旧实例的实例名相同，按读取器区分
+     */
+    boolean isSourceOf(ActionReader action) {
+        return action == actionReader;
+    }
+
+    /**
+     * 本进程是否接收该事件：分区键落在本分片上、订阅了该事件（未绑定的自定义事件视为订阅）且通过本进程下发的过滤条件
+     */
+    boolean accepts(String eventName, int partition, CommandSender subject, World world, Material material,
+                    EntityType entityType) {
+        EventSubscriptions.Subscriber current = subscriber;
+        if (current == null || !ownsPartition(partition)
+                || (!current.isSubscribed(eventName) && boundEvents.contains(eventName))) {
+            return false;
+        }
+        EventFilter filter = eventFilters.get(eventName);
+        return filter == null || filter.test(subject, world, material, entityType);
+    }
+
+    /**
+     * 分区键是否落在本分片上：不分片时总是成立，没有分区键（为0）的事件交给0号分片
+     */
+    boolean ownsPartition(int partition) {
+        return shardCount == 1 || Math.floorMod(partition, shardCount) == shard;
+    }
+
+    boolean isIntercepted(String eventName) {
+        return intercepted.contains(eventName);
+    }
+
+    /**
+     * 替换需要同步裁决的事件集合，空集合表示全部恢复为异步发送
+     */
+    void setIntercepted(Set<String> eventNames) {
+        intercepted = Set.copyOf(eventNames);
+    }
+
+    /**
+     * 按背压策略入队一个事件，入队失败也占用序号，C++端据此发现丢失的事件；合并的事件不编号
+     */
+    void enqueueEvent(String eventName, EventEncoder encoder, UUID sequenceKey) {
+        BackpressureController controller = backpressure;
+        if (controller == null) {
+            return;
+        }
+        BackpressureController.Channel channel = controller.channel(eventName);
+        int sequence = sequenceKey != null && channel.getPolicy() != BackpressurePolicy.COALESCE
+                ? playerSequences.computeIfAbsent(sequenceKey, key -> new AtomicInteger()).incrementAndGet()
+                : 0;
+        controller.submit(channel, sequenceKey, encoder.array(), encoder.length(), sequence);
+    }
+
+    /**
+     * 直接写入事件环，不经过背压策略也不编号，用于C++进程正在等待的请求与响应
+     */
+    boolean offerRequest(EventEncoder encoder) {
+        if (!eventRing.offer(encoder.array(), 0, encoder.length())) {
+            return false;
+        }
+        eventRing.wakeConsumer();
+        return true;
+    }
+
+    /**
+     * 玩家退出时清理该玩家的序号与尚未写出的合并事件
+     */
+    void forget(UUID playerId) {
+        // 重新加入后序号从1开始，尚未写出的合并事件不再有意义
+        playerSequences.remove(playerId);
+        BackpressureController controller = backpressure;
+        if (controller != null) {
+            controller.forget(playerId);
+        }
+    }
+
+    synchronized void stop() {
+        if (journal != null && state != State.STOPPED) {
+            journal.mark("stop");
+        }
+        state = State.STOPPED;
+        EventSubscriptions.Subscriber current = subscriber;
+        subscriber = null;
+        if (current != null) {
+            current.close();
+        }
+        intercepted = Collections.emptySet();
+        eventFilters.clear();
+        if (flushScheduler != null) {
+            flushScheduler.stop();
+        }
+        // 先停止写线程，关闭消息一定是最后写出的帧
+        if (eventWriter != null) {
+            eventWriter.stop();
+        }
+
+        if (transport != null && isAlive()) {
+            try {
+                EventEncoder encoder = new EventEncoder().begin(format, "shutdown").end();
+                transport.write(encoder.array(), 0, encoder.length());
+                transport.flush();
+            } catch (IOException e) {
+                plugin.getLogger().warning("Error sending shutdown message to " + getDisplayName() + ": " + e.getMessage());
+            }
+        }
+
+        if (process != null) {
+            gracefullyTerminateProcess();
+        }
+
+        if (transport != null) {
+            transport.close();
+        }
+        if (backpressure != null) {
+            backpressure.clear();
+        }
+        if (attachment != null) {
+            attachment.detach();
+        }
+
+        // 清理资源引用
+        flushScheduler = null;
+        eventWriter = null;
+        transport = null;
+        attachment = null;
+        process = null;
+    }
+
+    private BackpressureController createBackpressure() {
+        BackpressurePolicy defaultPolicy = BackpressurePolicy.fromConfig(
+                plugin.getConfig().getString("pipeline.backpressure.default", "drop-newest"), BackpressurePolicy.DROP_NEWEST);
+        Map<String, BackpressurePolicy> policies = new HashMap<>();
+        ConfigurationSection events = plugin.getConfig().getConfigurationSection("pipeline.backpressure.events");
+        if (events != null) {
+            for (String eventName : events.getKeys(false)) {
+                String value = events.getString(eventName);
+                BackpressurePolicy policy = BackpressurePolicy.fromConfig(value, null);
+                if (policy == null) {
+                    plugin.getLogger().warning("Unknown backpressure policy for " + eventName + ": " + value);
+                    continue;
+                }
+                policies.put(eventName, policy);
+            }
+        }
+        return new BackpressureController(eventRing, policies, defaultPolicy,
+                plugin.getConfig().getInt("pipeline.backpressure.high-water-percent", DEFAULT_HIGH_WATER_PERCENT),
+                plugin.getConfig().getLong("pipeline.backpressure.block-timeout-ms", DEFAULT_BLOCK_TIMEOUT_MS),
+                plugin.getLogger());
+    }
+
+    private CppTransport createTransport(TransportMode mode) {
+        if (mode == TransportMode.SHARED_MEMORY) {
+            int capacity = plugin.getConfig().getInt("transport.shm.capacity-kb", DEFAULT_SHM_CAPACITY_KB) * 1024;
+            return new SharedMemoryTransport(cppDir, transportInstance, capacity, plugin.getLogger());
+        }
+        if (mode == TransportMode.SOCKET) {
+            return new SocketTransport(plugin.getDataFolder(), transportInstance, plugin.getLogger());
+        }
+        return new PipeTransport(plugin.getLogger());
+    }
+
+    /**
+     * 优雅地终止C++进程
+     */
+    private void gracefullyTerminateProcess() {
+        try {
+            process.destroy();
+            if (!process.waitFor(PROCESS_TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                process.waitFor(FORCE_TERMINATION_TIMEOUT, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            plugin.getLogger().warning("Interrupted while waiting for process to terminate: " + e.getMessage());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 插件名，单进程模式下为null
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 实例名，分片时为 插件名#分片序号（单进程模式下为 shard#分片序号），不分片时与插件名相同；
+     * 即该进程发出的动作的 {@link ActionReader#getSource()}
+     */
+    public String getInstanceName() {
+        return instanceName;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * 用于日志与统计的名称，单进程模式下为 "C++ plugin"
+     */
+    public String getDisplayName() {
+        return instanceName != null ? instanceName : "C++ plugin";
+    }
+
+    public boolean isAlive() {
+        Process current = process;
+        return current != null && current.isAlive();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * C++进程是否已发送 ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 被守护自动重启的次数
+     */
+    public int getRestartCount() {
+        return restartCount.get();
+    }
+
+    /**
+     * 最近一次意外退出的退出码
+     */
+    public int getLastExitCode() {
+        return lastExitCode;
+    }
+
+    /**
+     * 重启时重放给新进程的事件数（不含合并缓冲中的事件）
+     */
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    /**
+     * 重启时因超出重放窗口而丢弃的事件数
+     */
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    /**
+     * 发送给该进程的事件环，可用于查看积压、丢弃与竞争统计
+     */
+    public EventRing getEventRing() {
+        return eventRing;
+    }
+
+    /**
+     * 按事件类型的背压统计，进程尚未启动时为null
+     */
+    public BackpressureController getBackpressure() {
+        return backpressure;
+    }
+
+    public EventFilters getEventFilters() {
+        return eventFilters;
+    }
+
+    public Set<String> getIntercepted() {
+        return intercepted;
+    }
+
+    /**
+     * 该进程当前订阅的事件，进程已停止时为空
+     */
+    public Set<String> getSubscribedEvents() {
+        EventSubscriptions.Subscriber current = subscriber;
+        return current != null ? current.getSubscribedEvents() : Collections.emptySet();
+    }
+
+    EventSubscriptions.Subscriber getSubscriber() {
+        return subscriber;
+    }
+
+    public long getMessageCount() {
+        return messageCounter.get();
+    }
+}
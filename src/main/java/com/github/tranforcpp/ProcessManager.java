@@ -1,14 +1,43 @@
 package com.github.tranforcpp;
 
 import com.github.tranforcpp.compiler.CppCompiler;
-import com.github.tranforcpp.optimizer.SmartThreadOptimizer;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.github.tranforcpp.pipeline.ActionExecutor;
+import com.github.tranforcpp.pipeline.BroadcastMerger;
+import com.github.tranforcpp.pipeline.CommandPipeline;
+import com.github.tranforcpp.pipeline.EventFilter;
+import com.github.tranforcpp.pipeline.EventJournal;
+import com.github.tranforcpp.pipeline.EventSubscriptions;
+import com.github.tranforcpp.pipeline.PlayerMoveFilter;
+import com.github.tranforcpp.pipeline.PlayerSelector;
+import com.github.tranforcpp.pipeline.SessionHandles;
+import com.github.tranforcpp.pipeline.SyncEventGate;
+import com.github.tranforcpp.protocol.ActionDispatcher;
+import com.github.tranforcpp.protocol.ActionHandler;
+import com.github.tranforcpp.protocol.ActionReader;
+import com.github.tranforcpp.protocol.BinaryFrameCodec;
+import com.github.tranforcpp.protocol.EventEncoder;
+import com.github.tranforcpp.protocol.FrameTooLargeException;
+import com.github.tranforcpp.protocol.WireFormat;
+import com.github.tranforcpp.query.QueryService;
+import com.github.tranforcpp.transport.TransportMode;
+import com.github.tranforcpp.utils.ComponentCache;
+import com.github.tranforcpp.utils.RateLimitedLogger;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Cancellable;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.BlockBreakEvent;
 import org.bukkit.event.block.BlockIgniteEvent;
@@ -25,12 +54,13 @@ import org.bukkit.event.player.*;
 import org.bukkit.event.server.ServerCommandEvent;
 import org.bukkit.event.weather.WeatherChangeEvent;
 import org.bukkit.event.world.WorldLoadEvent;
+import org.bukkit.inventory.ItemStack;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 进程管理器
@@ -38,6 +68,16 @@ import java.util.concurrent.atomic.AtomicLong;
  * 负责管理C++插件进程的生命周期，包括启动、停止、消息传递等功能。
  * 实现了Bukkit事件监听器，用于捕获游戏事件并转发给C++插件。
  * <p>
+ * processes.mode 为 single 时所有 .cpp 文件编译为一个进程；为 per-plugin 时每个插件编译为独立的进程
+ * （见 {@link CppProcess}），事件只编码一次，再分发给订阅并通过过滤条件的进程。
+ * processes.shards 大于1时同一个可执行文件启动多个分片，事件按分区键（实体UUID，没有实体时为世界UID）
+ * 只发给其中一个分片，多个分片发出的相同广播被合并为一条。
+ * <p>
+ * 进程意外退出时由 {@link ProcessSupervisor} 按退避重启，停止期间的事件缓冲在该进程的事件环中并在重启后重放。
+ * <p>
+ * processes.reload 为 blue-green 时 {@link #reload()} 在后台编译并启动新版本，新进程就绪后一次性替换事件路由表，
+ * 旧进程写完切换前入队的事件后停止，重载期间事件不中断。
+ * <p>
  * 主要功能：
  * - 启动和管理C++进程
  * - 处理进程间通信
@@ -47,316 +87,1028 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ProcessManager implements Listener {
 
     private final TranforCPlusPlus plugin;
-    private Process process;
-    private BufferedReader inputReader;
-    private BufferedWriter outputWriter;
-    private final Gson gson = new Gson();
-    private final BlockingQueue<JsonObject> messageQueue = new ArrayBlockingQueue<>(MAX_QUEUE_SIZE);
+    private volatile CppProcess[] processes = new CppProcess[0];
+    // 热重载期间不在路由表中、但仍可能发来动作的进程：等待就绪的新进程与正在排空的旧进程
+    private volatile CppProcess[] transitional = new CppProcess[0];
+    private final Object switchLock = new Object();
+    private final AtomicBoolean reloading = new AtomicBoolean(false);
+    private volatile int generation;
+    // 路由表每次切换都换一个新的纪元，旧纪元的计数归零说明切换前选好目标的事件都已入队
+    private volatile RouteEpoch routeEpoch = new RouteEpoch();
+    private volatile WireFormat wireFormat = WireFormat.JSON;
+    private final ActionDispatcher actionDispatcher = new ActionDispatcher();
+    private volatile PlayerMoveFilter moveFilter;
+    private final EventSubscriptions subscriptions;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private final AtomicLong messageCounter = new AtomicLong(0);
-    private volatile Thread readerThread;
-    private volatile ExecutorService senderExecutor;
-    private final AtomicInteger activeSenders = new AtomicInteger(0);
+    private volatile SessionHandles handles;
+    private volatile SyncEventGate syncGate;
+    private volatile QueryService queryService;
+    private volatile ActionExecutor actionExecutor;
+    private volatile ComponentCache componentCache;
+    private volatile CommandPipeline commandPipeline;
+    private volatile BroadcastMerger broadcastMerger;
+    private volatile ProcessSupervisor supervisor;
+    private volatile EventJournal journal;
     private final MiniMessage miniMessageInstance;
+    private final RateLimitedLogger oversizeLogger;
 
-    private static final int MAX_QUEUE_SIZE = 2000;
-    private static final int CORE_SENDER_THREADS = 2;
-    private static final int FLUSH_THRESHOLD = 20;
-    private static final int PROCESS_TERMINATION_TIMEOUT = 3;
-    private static final int FORCE_TERMINATION_TIMEOUT = 1;
+    private static final double DEFAULT_MOVE_MIN_DISTANCE = 0.5;
+    private static final double DEFAULT_MOVE_MIN_ROTATION = 15.0;
     private static final long RESTART_DELAY_MS = 100;
+    private static final long EPOCH_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long OVERSIZE_LOG_INTERVAL_SECONDS = 5;
+    private static final long DEFAULT_BROADCAST_MERGE_MS = 1000;
+    private static final long DEFAULT_INITIAL_BACKOFF_MS = 1000;
+    private static final long DEFAULT_MAX_BACKOFF_MS = 30000;
+    private static final int DEFAULT_MAX_RESTARTS = 5;
+    private static final long DEFAULT_CRASH_WINDOW_SECONDS = 300;
+    private static final long DEFAULT_REPLAY_WINDOW_MS = 30000;
+    private static final long DEFAULT_READY_TIMEOUT_MS = 10000;
+    private static final long DEFAULT_DRAIN_TIMEOUT_MS = 5000;
+    private static final long DEFAULT_JOURNAL_SEGMENT_MB = 64;
+    private static final long DEFAULT_JOURNAL_ROTATE_MINUTES = 60;
+    private static final int DEFAULT_JOURNAL_MAX_SEGMENTS = 24;
+    private static final int DEFAULT_JOURNAL_QUEUE_SIZE = 8192;
+    private static final long DEFAULT_SYNC_BUDGET_US = 500;
+    private static final double DEFAULT_ACTION_BUDGET_MS = 5.0;
+    private static final int DEFAULT_MAX_QUEUED_ACTIONS = 10000;
+    private static final int DEFAULT_COMPONENT_CACHE_SIZE = 512;
+    private static final int DEFAULT_COMMANDS_PER_TICK = 20;
+    private static final int DEFAULT_MAX_QUEUED_COMMANDS = 1000;
 
+    // 构造函数只保存事件处理函数的引用，事件在 start() 之后才会被分发
+    @SuppressWarnings("this-escape")
     public ProcessManager(TranforCPlusPlus plugin) {
         this.plugin = plugin;
         this.miniMessageInstance = MiniMessage.miniMessage();
+        this.oversizeLogger = new RateLimitedLogger(plugin.getLogger(), OVERSIZE_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
 
-    }
+        actionDispatcher.register("broadcast", this::handleBroadcast);
+        actionDispatcher.register("sendMessage", this::handlePrivateMessage);
+        actionDispatcher.register("multicast", this::handleMulticast);
+        actionDispatcher.register("console", action -> plugin.getLogger().info(action.requireString("message")));
+        actionDispatcher.register("executeCommand", this::handleExecuteCommand);
+        actionDispatcher.register("dispatchCommand", this::handleExecuteCommand);
+        actionDispatcher.register("subscribe", this::handleSubscribe);
+        actionDispatcher.register("unsubscribe", this::handleUnsubscribe);
+        actionDispatcher.register("filter", this::handleFilter);
+        actionDispatcher.register("intercept", this::handleIntercept);
+        actionDispatcher.register("verdict", this::handleVerdict);
+        actionDispatcher.register("query", this::handleQuery);
+        actionDispatcher.register("ready", this::handleReady);
 
-    public void start() {
-        try {
+        subscriptions = new EventSubscriptions(plugin);
+        subscriptions.bind("PlayerJoin", PlayerJoinEvent.class, this::onPlayerJoin);
+        subscriptions.bind("PlayerQuit", PlayerQuitEvent.class, this::onPlayerQuit);
+        subscriptions.bind("BlockBreak", BlockBreakEvent.class, this::onBlockBreak);
+        subscriptions.bind("BlockPlace", BlockPlaceEvent.class, this::onBlockPlace);
+        subscriptions.bind("EntityDamage", EntityDamageEvent.class, this::onEntityDamage);
+        subscriptions.bind("EntityDeath", EntityDeathEvent.class, this::onEntityDeath);
+        subscriptions.bind("PlayerDeath", org.bukkit.event.entity.PlayerDeathEvent.class, this::onPlayerDeath);
+        subscriptions.bind("InventoryClick", InventoryClickEvent.class, this::onInventoryClick);
+        subscriptions.bind("InventoryOpen", InventoryOpenEvent.class, this::onInventoryOpen);
+        subscriptions.bind("InventoryClose", InventoryCloseEvent.class, this::onInventoryClose);
+        subscriptions.bind("PlayerMove", PlayerMoveEvent.class, this::onPlayerMove);
+        subscriptions.bind("PlayerRespawn", PlayerRespawnEvent.class, this::onPlayerRespawn);
+        subscriptions.bind("BlockIgnite", BlockIgniteEvent.class, this::onBlockIgnite);
+        subscriptions.bind("EntitySpawn", EntitySpawnEvent.class, this::onEntitySpawn);
+        subscriptions.bind("PlayerInteract", PlayerInteractEvent.class, this::onPlayerInteract);
+        subscriptions.bind("PlayerDropItem", PlayerDropItemEvent.class, this::onPlayerDropItem);
+        subscriptions.bind("PlayerPickupItem", EntityPickupItemEvent.class, this::onEntityPickupItem);
+        subscriptions.bind("ServerCommand", ServerCommandEvent.class, this::onServerCommand);
+        subscriptions.bind("WorldLoad", WorldLoadEvent.class, this::onWorldLoad);
+        subscriptions.bind("WeatherChange", WeatherChangeEvent.class, this::onWeatherChange);
+        subscriptions.bind("HangingBreak", HangingBreakEvent.class, this::onHangingBreak);
+    }
 
-            Bukkit.getPluginManager().registerEvents(this, plugin);
-            
-            File cppDir = new File(plugin.getDataFolder().getParentFile(), "C++ Plugins");
-            if (!cppDir.exists()) {
-                if (!cppDir.mkdirs()) {
-                    plugin.getLogger().severe("Failed to create C++ Plugins directory: " + cppDir.getAbsolutePath());
-                }
-            }
+    /**
+     * 注册C++动作处理器
+     * <p>
+     * C++进程发送该动作时，处理器会在读取线程上被调用。注册同名动作会替换原有处理器（包括内置动作）。
+     *
+     * @return 被替换的旧处理器，没有则为null
+     */
+    public ActionHandler registerActionHandler(String action, ActionHandler handler) {
+        return actionDispatcher.register(action, handler);
+    }
 
-            CppCompiler compiler = new CppCompiler();
-            File executable = compiler.compile(cppDir);
+    public boolean unregisterActionHandler(String action) {
+        return actionDispatcher.unregister(action);
+    }
 
-            if (executable == null) {
-                return;
+    public void start() {
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        
+        File cppDir = new File(plugin.getDataFolder().getParentFile(), "C++ Plugins");
+        if (!cppDir.exists()) {
+            if (!cppDir.mkdirs()) {
+                plugin.getLogger().severe("Failed to create C++ Plugins directory: " + cppDir.getAbsolutePath());
             }
+        }
 
-            ProcessBuilder pb = new ProcessBuilder(executable.getAbsolutePath());
-            pb.redirectErrorStream(true);
-            process = pb.start();
+        generation = 0;
+        Map<String, File> executables = compile(cppDir, generation);
+        if (executables.isEmpty()) {
+            return;
+        }
 
-            inputReader = new BufferedReader(new InputStreamReader(process.getInputStream()));
-            outputWriter = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+        wireFormat = WireFormat.fromConfig(plugin.getConfig().getString("transport.format", "json"));
 
-            readerThread = new Thread(this::readMessages, "TranforC++-Reader");
-            readerThread.setDaemon(true);
-            readerThread.setPriority(Thread.NORM_PRIORITY);
-            readerThread.start();
+        TransportMode transportMode = TransportMode.fromConfig(plugin.getConfig().getString("transport.mode", "pipe"));
 
-            initializeSenderExecutor();
+        handles = wireFormat == WireFormat.BINARY ? new SessionHandles() : null;
+        queryService = new QueryService(plugin, wireFormat, handles, plugin.getLogger());
+        actionExecutor = new ActionExecutor(plugin,
+                (long) (plugin.getConfig().getDouble("actions.tick-budget-ms", DEFAULT_ACTION_BUDGET_MS) * 1_000_000L),
+                plugin.getConfig().getInt("actions.max-queued", DEFAULT_MAX_QUEUED_ACTIONS),
+                plugin.getLogger());
+        actionExecutor.start();
+        commandPipeline = new CommandPipeline(plugin,
+                plugin.getConfig().getInt("actions.commands.max-per-tick", DEFAULT_COMMANDS_PER_TICK),
+                plugin.getConfig().getInt("actions.commands.max-queued", DEFAULT_MAX_QUEUED_COMMANDS),
+                wireFormat, plugin.getLogger());
+        commandPipeline.start();
+        componentCache = new ComponentCache(miniMessageInstance,
+                plugin.getConfig().getInt("actions.component-cache-size", DEFAULT_COMPONENT_CACHE_SIZE));
+        moveFilter = new PlayerMoveFilter(
+                PlayerMoveFilter.Mode.fromConfig(plugin.getConfig().getString("events.player-move.filter", "threshold")),
+                plugin.getConfig().getDouble("events.player-move.min-distance", DEFAULT_MOVE_MIN_DISTANCE),
+                (float) plugin.getConfig().getDouble("events.player-move.min-rotation", DEFAULT_MOVE_MIN_ROTATION));
+        syncGate = new SyncEventGate(
+                TimeUnit.MICROSECONDS.toNanos(plugin.getConfig().getLong("events.sync.budget-us", DEFAULT_SYNC_BUDGET_US)),
+                "cancel".equalsIgnoreCase(plugin.getConfig().getString("events.sync.default-verdict", "allow")));
+        broadcastMerger = new BroadcastMerger(TimeUnit.MILLISECONDS.toNanos(
+                plugin.getConfig().getLong("processes.broadcast-merge-ms", DEFAULT_BROADCAST_MERGE_MS)));
+        supervisor = new ProcessSupervisor(
+                plugin.getConfig().getBoolean("processes.supervisor.enabled", true),
+                plugin.getConfig().getLong("processes.supervisor.initial-backoff-ms", DEFAULT_INITIAL_BACKOFF_MS),
+                plugin.getConfig().getLong("processes.supervisor.max-backoff-ms", DEFAULT_MAX_BACKOFF_MS),
+                plugin.getConfig().getInt("processes.supervisor.max-restarts", DEFAULT_MAX_RESTARTS),
+                plugin.getConfig().getLong("processes.supervisor.crash-window-seconds", DEFAULT_CRASH_WINDOW_SECONDS),
+                plugin.getConfig().getLong("processes.supervisor.replay-window-ms", DEFAULT_REPLAY_WINDOW_MS),
+                plugin.getLogger());
+        journal = createJournal();
+        running.set(true);
 
-            running.set(true);
-            plugin.getLogger().info("C++ plugin process started with performance optimizations");
+        List<CppProcess> created = createProcesses(executables, cppDir, generation);
+        // 先发布全部进程再逐个启动：读取线程处理动作时要能找到发送方
+        processes = created.toArray(new CppProcess[0]);
+        List<CppProcess> started = startAll(created, transportMode);
+        processes = started.toArray(new CppProcess[0]);
+        logStarted(created, started, transportMode, false);
+    }
 
+    /**
+     * journal.enabled 为true时创建并启动事件日志，目录无法创建时只记录警告，插件照常运行
+     */
+    private EventJournal createJournal() {
+        if (!plugin.getConfig().getBoolean("journal.enabled", false)) {
+            return null;
+        }
+        EventJournal created = new EventJournal(new File(plugin.getDataFolder(), "journal"), wireFormat,
+                plugin.getConfig().getLong("journal.segment-size-mb", DEFAULT_JOURNAL_SEGMENT_MB) * 1024 * 1024,
+                TimeUnit.MINUTES.toNanos(
+                        plugin.getConfig().getLong("journal.rotate-minutes", DEFAULT_JOURNAL_ROTATE_MINUTES)),
+                plugin.getConfig().getInt("journal.max-segments", DEFAULT_JOURNAL_MAX_SEGMENTS),
+                plugin.getConfig().getInt("journal.queue-size", DEFAULT_JOURNAL_QUEUE_SIZE),
+                plugin.getLogger());
+        try {
+            created.start();
         } catch (IOException e) {
-            plugin.getLogger().severe("Failed to start C++ process: " + e.getMessage());
-            plugin.getLogger().severe("Exception: " + e);
+            plugin.getLogger().warning("Event journal disabled: " + e.getMessage());
+            return null;
         }
+        plugin.getLogger().info("Event journal enabled: " + created.getCurrentFile());
+        return created;
     }
 
-    private void readMessages() {
-        try {
-            String line;
-            while (running.get() && (line = inputReader.readLine()) != null) {
-                try {
-                    JsonObject json = gson.fromJson(line, JsonObject.class);
-                    if (json != null) {
-                        handleCppMessage(json);
-                        messageCounter.incrementAndGet();
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().warning("Failed to parse C++ message: " + line);
-                    // 继续处理后续消息
-                }
+    /**
+     * 按 processes.mode 编译C++插件，返回插件名（单进程模式下为null）到可执行文件的映射
+     *
+     * @param generation 第几次热重载，奇偶两代编译到不同的文件
+     */
+    private Map<String, File> compile(File cppDir, int generation) {
+        CppCompiler compiler = new CppCompiler(slot(generation));
+        Map<String, File> executables = new LinkedHashMap<>();
+        if ("per-plugin".equalsIgnoreCase(plugin.getConfig().getString("processes.mode", "single"))) {
+            executables.putAll(compiler.compileEach(cppDir));
+        } else {
+            File executable = compiler.compile(cppDir);
+            if (executable != null) {
+                executables.put(null, executable);
             }
-        } catch (IOException e) {
-            if (running.get() && process != null && process.isAlive()) {
-                plugin.getLogger().severe("Error reading from C++ process: " + e.getMessage());
+        }
+        return executables;
+    }
+
+    /**
+     * 输出槽后缀：热重载时新旧两代交替使用，新版本的可执行文件与传输文件不会覆盖仍在运行的旧版本
+     */
+    private static String slot(int generation) {
+        return generation % 2 == 0 ? "" : "-green";
+    }
+
+    private List<CppProcess> createProcesses(Map<String, File> executables, File cppDir, int generation) {
+        Set<String> boundEvents = subscriptions.getAvailableEvents();
+        List<CppProcess> created = new ArrayList<>();
+        for (Map.Entry<String, File> entry : executables.entrySet()) {
+            int shardCount = shardCount(entry.getKey());
+            for (int shard = 0; shard < shardCount; shard++) {
+                created.add(new CppProcess(plugin, entry.getKey(), shard, shardCount, entry.getValue(), cppDir,
+                        wireFormat, boundEvents, slot(generation)));
             }
-            // 正常的连接断开不需要记录错误
         }
+        return created;
     }
-    
-    private void handleExecuteCommand(JsonObject json) {
-        try {
-            String command = json.get("command").getAsString();
-            if (command != null && !command.trim().isEmpty()) {
-                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
+
+    /**
+     * 逐个启动进程，返回启动成功的进程，启动失败的进程已被停止
+     */
+    private List<CppProcess> startAll(List<CppProcess> created, TransportMode transportMode) {
+        List<CppProcess> started = new ArrayList<>();
+        for (CppProcess cppProcess : created) {
+            try {
+                cppProcess.start(transportMode, handles, subscriptions, this::handleCppMessage, supervisor::crashed,
+                        journal);
+                started.add(cppProcess);
+            } catch (IOException e) {
+                plugin.getLogger().severe("Failed to start " + cppProcess.getDisplayName() + " process: " + e.getMessage());
+                plugin.getLogger().severe("Exception: " + e);
+                cppProcess.stop();
             }
-        } catch (Exception e) {
-            plugin.getLogger().warning("执行命令失败: " + e.getMessage());
         }
+        return started;
     }
 
-    private ExecutorService createSmartThreadPoolAdapter() {
-        return new AbstractExecutorService() {
-            private final ExecutorService delegate = Executors.newFixedThreadPool(
-                CORE_SENDER_THREADS,
-                r -> {
-                    Thread t = new Thread(r, "TranforC++-SmartSender-" + activeSenders.incrementAndGet());
-                    t.setDaemon(true);
-                    t.setPriority(Thread.NORM_PRIORITY - 1);
-                    return t;
-                }
-            );
-            
-            @Override
-            public void execute(Runnable command) {
-                SmartThreadOptimizer optimizer = plugin.getThreadOptimizer();
-                if (optimizer != null) {
-                    optimizer.submitTask(command);
-                } else {
-                    delegate.execute(command);
-                }
+    private void logStarted(List<CppProcess> created, List<CppProcess> started, TransportMode transportMode,
+                            boolean reloaded) {
+        String verb = reloaded ? "Reloaded" : "Started";
+        if (created.size() == 1) {
+            if (!started.isEmpty()) {
+                plugin.getLogger().info("C++ plugin process " + verb.toLowerCase(Locale.ROOT)
+                        + " with performance optimizations (wire format: "
+                        + wireFormat.getConfigName() + ", transport: " + transportMode.getConfigName() + ")");
             }
-            
-            // 委托所有ExecutorService方法到实际的线程池
-            @Override public void shutdown() { delegate.shutdown(); }
-            @Override public List<Runnable> shutdownNow() { return delegate.shutdownNow(); }
-            @Override public boolean isShutdown() { return delegate.isShutdown(); }
-            @Override public boolean isTerminated() { return delegate.isTerminated(); }
-            @Override public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException { 
-                return delegate.awaitTermination(timeout, unit); 
+        } else {
+            List<String> names = new ArrayList<>();
+            for (CppProcess cppProcess : started) {
+                names.add(cppProcess.getDisplayName());
             }
-            @Override public <T> Future<T> submit(Callable<T> task) { return delegate.submit(task); }
-            @Override public <T> Future<T> submit(Runnable task, T result) { return delegate.submit(task, result); }
-            @Override public Future<?> submit(Runnable task) { return delegate.submit(task); }
-            @Override public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks) throws InterruptedException { 
-                return delegate.invokeAll(tasks); 
+            plugin.getLogger().info(verb + " " + started.size() + "/" + created.size() + " C++ plugin processes "
+                    + names + " (wire format: " + wireFormat.getConfigName()
+                    + ", transport: " + transportMode.getConfigName() + ")");
+        }
+    }
+
+    /**
+     * 插件的分片数：processes.plugin-shards 中按插件名单独指定，否则为 processes.shards
+     */
+    private int shardCount(String pluginName) {
+        int shards = plugin.getConfig().getInt("processes.shards", 1);
+        if (pluginName != null) {
+            shards = plugin.getConfig().getInt("processes.plugin-shards." + pluginName, shards);
+        }
+        return Math.max(1, shards);
+    }
+
+    /**
+     * 按动作的来源找到发送它的进程，进程已停止时为null；热重载期间新旧进程的实例名相同，按读取器区分
+     */
+    private CppProcess sourceOf(ActionReader action) {
+        for (CppProcess cppProcess : processes) {
+            if (cppProcess.isSourceOf(action)) {
+                return cppProcess;
+            }
+        }
+        for (CppProcess cppProcess : transitional) {
+            if (cppProcess.isSourceOf(action)) {
+                return cppProcess;
+            }
+        }
+        return null;
+    }
+
+    private void handleReady(ActionReader action) {
+        CppProcess source = sourceOf(action);
+        if (source != null) {
+            source.markReady();
+        }
+    }
+
+    /**
+     * 重新加载C++插件
+     * <p>
+     * processes.reload 为 blue-green、进程正在运行且 transport.format 未改变时，在后台线程上热重载（见类说明），
+     * 立即返回true；否则停止后重新启动（{@link #restart()}），返回false。
+     * 热重载只替换C++进程，动作队列、指令队列、同步裁决等共用设施的配置在完整重启后才生效。
+     */
+    public boolean reload() {
+        boolean blueGreen = "blue-green".equalsIgnoreCase(plugin.getConfig().getString("processes.reload", "blue-green"));
+        WireFormat configuredFormat = WireFormat.fromConfig(plugin.getConfig().getString("transport.format", "json"));
+        if (!blueGreen || !running.get() || configuredFormat != wireFormat) {
+            restart();
+            return false;
+        }
+        if (!reloading.compareAndSet(false, true)) {
+            plugin.getLogger().warning("A hot reload is already in progress");
+            return true;
+        }
+        Thread reloadThread = new Thread(() -> {
+            try {
+                hotReload();
+            } catch (Exception e) {
+                plugin.getLogger().severe("Hot reload failed: " + e);
+            } finally {
+                reloading.set(false);
+            }
+        }, "TranforC++-Reload");
+        reloadThread.setDaemon(true);
+        reloadThread.start();
+        return true;
+    }
+
+    /**
+     * 热重载：编译到另一个槽，新进程与旧进程并行启动并等待 ready，
+     * 然后一次性替换路由表，旧进程排空积压后停止。任何一步失败时旧进程继续运行
+     */
+    private void hotReload() {
+        int next = generation + 1;
+        File cppDir = new File(plugin.getDataFolder().getParentFile(), "C++ Plugins");
+        Map<String, File> executables = compile(cppDir, next);
+        if (executables.isEmpty()) {
+            plugin.getLogger().warning("Hot reload aborted: no C++ plugin was compiled, keeping the running processes");
+            return;
+        }
+
+        TransportMode transportMode = TransportMode.fromConfig(plugin.getConfig().getString("transport.mode", "pipe"));
+        List<CppProcess> created = createProcesses(executables, cppDir, next);
+        synchronized (switchLock) {
+            if (!running.get()) {
+                return;
             }
-            @Override public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException { 
-                return delegate.invokeAll(tasks, timeout, unit); 
+            transitional = created.toArray(new CppProcess[0]);
+        }
+        List<CppProcess> started = startAll(created, transportMode);
+
+        long readyTimeout = TimeUnit.MILLISECONDS.toNanos(
+                plugin.getConfig().getLong("processes.reload-ready-timeout-ms", DEFAULT_READY_TIMEOUT_MS));
+        long deadline = System.nanoTime() + readyTimeout;
+        List<CppProcess> ready = new ArrayList<>();
+        for (CppProcess cppProcess : started) {
+            if (cppProcess.awaitReady(Math.max(0, deadline - System.nanoTime()))) {
+                ready.add(cppProcess);
+            } else if (cppProcess.isAlive()) {
+                // 没有调用 tranforcpp::ready() 的旧版C++插件：进程仍在运行就视为就绪
+                plugin.getLogger().warning(cppProcess.getDisplayName() + " did not report ready within "
+                        + TimeUnit.NANOSECONDS.toMillis(readyTimeout) + "ms, switching to it anyway");
+                ready.add(cppProcess);
+            } else {
+                plugin.getLogger().severe(cppProcess.getDisplayName() + " exited before it was ready");
+                cppProcess.stop();
+            }
+        }
+
+        CppProcess[] retiring;
+        RouteEpoch previousEpoch;
+        synchronized (switchLock) {
+            if (!running.get() || ready.isEmpty()) {
+                transitional = new CppProcess[0];
+                for (CppProcess cppProcess : created) {
+                    cppProcess.stop();
+                }
+                if (running.get()) {
+                    plugin.getLogger().severe("Hot reload failed: no new C++ process is ready, keeping the running processes");
+                }
+                return;
             }
-            @Override public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException { 
-                return delegate.invokeAny(tasks); 
+            retiring = processes;
+            previousEpoch = routeEpoch;
+            // 切换点：此后构建的事件只发给新进程
+            processes = ready.toArray(new CppProcess[0]);
+            routeEpoch = new RouteEpoch();
+            transitional = retiring;
+            generation = next;
+        }
+        logStarted(created, ready, transportMode, true);
+
+        // 先等切换前已选好目标、正在编码的事件全部入队，再等旧进程写完积压
+        long drainTimeout = TimeUnit.MILLISECONDS.toNanos(
+                plugin.getConfig().getLong("processes.reload-drain-timeout-ms", DEFAULT_DRAIN_TIMEOUT_MS));
+        int unfinished = previousEpoch.awaitQuiescent(drainTimeout);
+        if (unfinished > 0) {
+            plugin.getLogger().warning(unfinished + " events routed to the previous version were still being built after "
+                    + TimeUnit.NANOSECONDS.toMillis(drainTimeout) + "ms");
+        }
+        for (CppProcess cppProcess : retiring) {
+            if (!cppProcess.drain(drainTimeout)) {
+                plugin.getLogger().warning(cppProcess.getDisplayName() + " (previous version) stopped with "
+                        + cppProcess.getEventRing().size() + " events not yet written");
             }
-            @Override public <T> T invokeAny(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException { 
-                return delegate.invokeAny(tasks, timeout, unit); 
+            cppProcess.stop();
+        }
+        synchronized (switchLock) {
+            if (transitional == retiring) {
+                transitional = new CppProcess[0];
             }
-        };
+        }
     }
 
-    private void initializeSenderExecutor() {
+    private void handleSubscribe(ActionReader action) {
+        CppProcess source = sourceOf(action);
+        EventSubscriptions.Subscriber subscriber = source != null ? source.getSubscriber() : null;
+        if (subscriber == null) {
+            return;
+        }
+        List<String> unknown = subscriber.subscribe(parseEventList(action.requireString("events")));
+        if (!unknown.isEmpty()) {
+            plugin.getLogger().warning(source.getDisplayName() + " subscribed to unknown events: " + unknown);
+        }
+        plugin.getLogger().info(source.getDisplayName() + " subscribed events: " + subscriber.getSubscribedEvents());
+    }
 
-        senderExecutor = createSmartThreadPoolAdapter();
-        
-        // 初始化消息发送工作者线程
-        for (int i = 0; i < CORE_SENDER_THREADS; i++) {
-            senderExecutor.submit(this::sendMessagesWorker);
+    private void handleUnsubscribe(ActionReader action) {
+        CppProcess source = sourceOf(action);
+        EventSubscriptions.Subscriber subscriber = source != null ? source.getSubscriber() : null;
+        if (subscriber == null) {
+            return;
+        }
+        List<String> unknown = subscriber.unsubscribe(parseEventList(action.requireString("events")));
+        if (!unknown.isEmpty()) {
+            plugin.getLogger().warning(source.getDisplayName() + " unsubscribed unknown events: " + unknown);
         }
     }
-    
-    private void sendMessagesWorker() {
+
+    private void handleFilter(ActionReader action) {
+        CppProcess source = sourceOf(action);
+        if (source == null) {
+            return;
+        }
+        String eventName = action.requireString("event");
+        if (!subscriptions.getAvailableEvents().contains(eventName)) {
+            plugin.getLogger().warning(source.getDisplayName() + " set a filter for unknown event: " + eventName);
+            return;
+        }
+        String expression = action.getString("expression");
         try {
-            while (running.get() && process != null && process.isAlive()) {
-                JsonObject msg = messageQueue.poll(50, TimeUnit.MILLISECONDS);
-                if (msg != null) {
-                    outputWriter.write(gson.toJson(msg));
-                    outputWriter.newLine();
-                    // 当队列较小时立即刷新以减少延迟
-                    if (messageQueue.size() < FLUSH_THRESHOLD) {
-                        outputWriter.flush();
-                    }
-                    messageCounter.incrementAndGet();
-                }
+            EventFilter filter = source.getEventFilters().set(eventName, expression);
+            plugin.getLogger().info(filter != null
+                    ? source.getDisplayName() + " filter for " + eventName + ": " + filter.getExpression()
+                    : source.getDisplayName() + " cleared filter for " + eventName);
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Invalid filter for " + eventName + ": " + e.getMessage());
+        }
+    }
+
+    private void handleIntercept(ActionReader action) {
+        CppProcess source = sourceOf(action);
+        if (source == null || syncGate == null) {
+            return;
+        }
+        String events = action.getString("events");
+        Set<String> intercepted = new LinkedHashSet<>();
+        List<String> rejected = new ArrayList<>();
+        for (String eventName : parseEventList(events != null ? events : "")) {
+            if (subscriptions.isCancellable(eventName)) {
+                intercepted.add(eventName);
+            } else {
+                rejected.add(eventName);
             }
-        } catch (InterruptedException e) {
-            // 线程被中断是正常的关闭过程
-            Thread.currentThread().interrupt();
-        } catch (IOException e) {
-            if (running.get()) {
-                plugin.getLogger().warning("Error in message sender worker: " + e.getMessage());
+        }
+        if (!rejected.isEmpty()) {
+            plugin.getLogger().warning(source.getDisplayName() + " intercepted unknown or non-cancellable events: " + rejected);
+        }
+        source.setIntercepted(intercepted);
+        plugin.getLogger().info(source.getDisplayName() + " intercepted events: " + intercepted);
+    }
+
+    private void handleVerdict(ActionReader action) {
+        SyncEventGate gate = syncGate;
+        if (gate != null) {
+            // 请求ID在线路上是无符号32位整数
+            gate.complete((int) action.getLong("id", 0), action.getBoolean("cancel", false));
+        }
+    }
+
+    private void handleQuery(ActionReader action) {
+        QueryService service = queryService;
+        CppProcess source = sourceOf(action);
+        if (service != null && source != null) {
+            // 查询ID由C++进程分配，在线路上是无符号32位整数
+            service.submit(source.getEventRing(), (int) action.getLong("id", 0), action.requireString("queries"));
+        }
+    }
+
+    private static List<String> parseEventList(String events) {
+        List<String> names = new ArrayList<>();
+        for (String name : events.split(",")) {
+            String trimmed = name.trim();
+            if (!trimmed.isEmpty()) {
+                names.add(trimmed);
             }
         }
+        return names;
     }
 
-    private void handleCppMessage(JsonObject json) {
+    /**
+     * 把需要访问服务器状态的动作交给服务器线程执行；动作参数必须在提交前从读取器中取出，读取器会被下一条消息复用
+     */
+    private void submitAction(String actionName, Runnable task) {
+        ActionExecutor executor = actionExecutor;
+        if (executor != null) {
+            executor.submit(actionName, task);
+        }
+    }
+
+    // executeCommand 与 dispatchCommand 共用一个处理器，sync 为 true 时C++进程等待执行结果
+    private void handleExecuteCommand(ActionReader action) {
+        CommandPipeline pipeline = commandPipeline;
+        CppProcess source = sourceOf(action);
+        if (pipeline == null || source == null) {
+            return;
+        }
+        String command = action.requireString("command");
+        // 请求ID由C++进程分配，在线路上是无符号32位整数
+        int requestId = action.getBoolean("sync", false) ? (int) action.getLong("id", 0) : 0;
+        if (command.trim().isEmpty() && requestId == 0) {
+            return;
+        }
+        pipeline.submit(command, requestId, source.getEventRing());
+    }
+
+    private void handleCppMessage(ActionReader action) {
+        ActionHandler handler = actionDispatcher.lookup(action);
+        if (handler == null) {
+            plugin.getLogger().warning("Unknown action: " + action.actionName());
+            return;
+        }
         try {
-            String action = json.get("action").getAsString();
-            
-            switch (action) {
-                case "broadcast":
-                    handleBroadcast(json);
-                    break;
-                case "sendMessage":
-                    handlePrivateMessage(json);
-                    break;
-                case "console":
-                    plugin.getLogger().info(json.get("message").getAsString());
-                    break;
-                case "executeCommand":
-                    handleExecuteCommand(json);
-                    break;
-                default:
-                    plugin.getLogger().warning("Unknown action: " + action);
-                    break;
-            }
+            handler.handle(action);
         } catch (Exception e) {
             plugin.getLogger().warning("Error handling C++ message: " + e.getMessage());
         }
     }
     
-    private void handleBroadcast(JsonObject json) {
-        try {
-            Component broadcastMessage = miniMessageInstance.deserialize(json.get("message").getAsString());
-            Player[] players = Bukkit.getOnlinePlayers().toArray(new Player[0]);
-            for (Player player : players) {
-                player.sendMessage(broadcastMessage);
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error broadcasting message: " + e.getMessage());
+    // MiniMessage 解析在读取线程上完成（相同模板只解析一次），服务器线程只负责发送
+    private void handleBroadcast(ActionReader action) {
+        if (!firstOfShards(action, "broadcast", action.getString("message"), action.getString("args"))) {
+            return;
         }
+        Component broadcastMessage = renderMessage(action);
+        submitAction("broadcast", () -> {
+            try {
+                Player[] players = Bukkit.getOnlinePlayers().toArray(new Player[0]);
+                for (Player player : players) {
+                    player.sendMessage(broadcastMessage);
+                }
+            } catch (Exception e) {
+                plugin.getLogger().warning("Error broadcasting message: " + e.getMessage());
+            }
+        });
     }
     
-    private void handlePrivateMessage(JsonObject json) {
-        try {
-            String playerName = json.get("player").getAsString();
+    private void handlePrivateMessage(ActionReader action) {
+        ActionExecutor executor = actionExecutor;
+        if (executor == null) {
+            return;
+        }
+        String playerName = action.requireString("player");
+        Component privateMessage = renderMessage(action);
+        executor.submit("sendMessage", () -> {
             Player player = Bukkit.getPlayerExact(playerName);
             if (player != null && player.isOnline()) {
-                Component privateMessage = miniMessageInstance.deserialize(json.get("message").getAsString());
-                player.sendMessage(privateMessage);
+                executor.runFor(player, () -> player.sendMessage(privateMessage));
             }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error sending private message: " + e.getMessage());
+        });
+    }
+
+    // 一条消息发给多个玩家：模板只解析一次，目标在同一个服务器线程任务中逐个发送
+    private void handleMulticast(ActionReader action) {
+        String targets = action.requireString("targets");
+        if (!firstOfShards(action, "multicast", targets, action.getString("message"), action.getString("args"))) {
+            return;
+        }
+        PlayerSelector selector = PlayerSelector.parse(targets, handles);
+        Component message = renderMessage(action);
+        submitAction("multicast", () -> {
+            for (Player player : selector.resolve()) {
+                try {
+                    player.sendMessage(message);
+                } catch (Exception e) {
+                    plugin.getLogger().warning("Error sending multicast message to " + player.getName() + ": " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /**
+     * 分片的插件发出广播类动作时，只执行第一个分片发出的那一条，窗口内其他分片的相同动作被丢弃
+     */
+    private boolean firstOfShards(ActionReader action, String... content) {
+        CppProcess source = sourceOf(action);
+        BroadcastMerger merger = broadcastMerger;
+        if (source == null || merger == null || source.getShardCount() == 1) {
+            return true;
+        }
+        return merger.accept(source.getName(), source.getShard(), String.join("\u0000", content));
+    }
+
+    private Component renderMessage(ActionReader action) {
+        String template = action.requireString("message");
+        ComponentCache cache = componentCache;
+        if (cache == null) {
+            return miniMessageInstance.deserialize(template);
         }
+        return cache.render(template, ComponentCache.splitArgs(action.getString("args")));
     }
 
-    private final Queue<JsonObject> batchBuffer = new LinkedList<>();
-    private static final int BATCH_SIZE = 30;
-    private static final long BATCH_TIMEOUT_MS = 50;
-    private static final int MAX_BATCH_PROCESSING_TIME = 5;
-    private static final double QUEUE_SPACE_THRESHOLD = 0.8;
-    private volatile long lastBatchTime = System.currentTimeMillis();
+    private final ThreadLocal<EventBuilder> eventBuilders = ThreadLocal.withInitial(() -> new EventBuilder(this));
     
     public void sendEvent(String eventName, Object... args) {
+        EventBuilder builder = event(eventName);
+        for (Object arg : args) {
+            builder.arg(arg);
+        }
+        builder.send();
+    }
+
+    /**
+     * 开始构建一个发送给C++进程的事件
+     * <p>
+     * 事件发给订阅了它的进程，分片的插件只有0号分片收到。
+     * <p>
+     * 返回当前线程复用的构建器，参数直接编码进线程本地缓冲区，基本类型不会装箱。
+     * 构建器必须在同一线程上以 {@link EventBuilder#send()} 结束，且不能跨事件保存。
+     */
+    public EventBuilder event(String eventName) {
+        EventBuilder builder = eventBuilders.get().clearTargets();
+        builder.enterEpoch();
+        for (CppProcess cppProcess : processes) {
+            if (cppProcess.accepts(eventName, 0, null, null, null, null)) {
+                builder.addTarget(cppProcess);
+            }
+        }
+        return builder.begin(eventName);
+    }
+
+    /**
+     * 选出订阅了该事件并通过各自过滤条件的进程，在编码之前调用；没有这样的进程时返回null，事件不必编码
+     */
+    private EventBuilder route(String eventName, CommandSender subject, World world, Material material, EntityType entityType) {
         if (!running.get()) {
-            return;
+            return null;
         }
+        EventBuilder builder = eventBuilders.get().clearTargets();
+        builder.enterEpoch();
+        int partition = partitionOf(subject, world);
+        for (CppProcess cppProcess : processes) {
+            if (cppProcess.accepts(eventName, partition, subject, world, material, entityType)) {
+                builder.addTarget(cppProcess);
+            }
+        }
+        if (!builder.hasTargets()) {
+            builder.exitEpoch();
+            return null;
+        }
+        return builder.begin(eventName);
+    }
 
-        if (messageQueue.size() > MAX_QUEUE_SIZE) {
-            plugin.getLogger().warning("消息队列已满，丢弃事件: " + eventName);
-            return;
+    /**
+     * 一张路由表的使用期
+     * <p>
+     * 构建器在读取路由表之前进入当前纪元，事件入队（或确定不发送）后退出；
+     * 热重载切换路由表后等待旧纪元的计数归零，此后不会再有事件进入旧进程的事件环。
+     */
+    private static final class RouteEpoch {
+        private final AtomicInteger active = new AtomicInteger();
+
+        /**
+         * 等待所有进入本纪元的构建器退出，返回超时时仍未退出的数量
+         */
+        int awaitQuiescent(long timeoutNanos) {
+            long deadline = System.nanoTime() + timeoutNanos;
+            int remaining;
+            while ((remaining = active.get()) > 0 && System.nanoTime() - deadline < 0) {
+                LockSupport.parkNanos(EPOCH_POLL_NANOS);
+            }
+            return Math.max(0, remaining);
         }
-        
-        try {
-            JsonObject json = new JsonObject();
-            json.addProperty("event", eventName);
-            
-            com.google.gson.JsonArray argsArray = new com.google.gson.JsonArray();
-            for (Object arg : args) {
-                argsArray.add(arg != null ? arg.toString() : "null");
-            }
-            json.add("args", argsArray);
-            
-            synchronized (batchBuffer) {
-                batchBuffer.offer(json);
-                // 批处理触发条件：达到批次大小或超时
-                if (batchBuffer.size() >= BATCH_SIZE || 
-                    System.currentTimeMillis() - lastBatchTime > BATCH_TIMEOUT_MS) {
-                    flushBatch();
+    }
+
+    /**
+     * 分片的分区键：实体（通常是玩家）的UUID，没有实体时为世界UID，两者都没有时为0。
+     * UUID 的 hashCode 由规范确定，同一玩家在重启前后总是落在同一个分片上
+     */
+    private static int partitionOf(CommandSender subject, World world) {
+        if (subject instanceof Entity entity) {
+            return entity.getUniqueId().hashCode();
+        }
+        return world != null ? world.getUID().hashCode() : 0;
+    }
+
+    /**
+     * 线程本地的事件构建器
+     * <p>
+     * 只有在有其他插件监听 {@link GenericTranforCEvent} 时才保留参数对象，
+     * 否则整个构建过程不产生装箱对象和中间字符串。
+     */
+    public static final class EventBuilder {
+        private final ProcessManager manager;
+        private final EventEncoder encoder = new EventEncoder();
+        private CppProcess[] targets = new CppProcess[4];
+        private boolean[] intercepts = new boolean[4];
+        private int targetCount;
+        private Object[] localArgs = new Object[8];
+        private int localArgCount;
+        private String eventName;
+        private SessionHandles handles;
+        private Cancellable cancellable;
+        private UUID sequenceKey;
+        private boolean active;
+        private boolean captureLocal;
+        private RouteEpoch epoch;
+
+        private EventBuilder(ProcessManager manager) {
+            this.manager = manager;
+        }
+
+        private EventBuilder clearTargets() {
+            Arrays.fill(targets, 0, targetCount, null);
+            targetCount = 0;
+            return this;
+        }
+
+        /**
+         * 进入当前路由表的纪元，必须在读取路由表之前调用：先计数再确认纪元未变，
+         * 热重载要么等到本次退出，要么本次读到的已是新路由表
+         */
+        private void enterEpoch() {
+            // 上一个事件没有以 send() 结束（如监听器在构建途中抛出异常）
+            exitEpoch();
+            RouteEpoch current;
+            while (true) {
+                current = manager.routeEpoch;
+                current.active.incrementAndGet();
+                if (manager.routeEpoch == current) {
+                    break;
                 }
+                current.active.decrementAndGet();
             }
+            epoch = current;
+        }
 
-            dispatchToOtherPluginsSync(eventName, args);
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error sending event " + eventName + ": " + e.getMessage());
+        private void exitEpoch() {
+            RouteEpoch current = epoch;
+            if (current != null) {
+                epoch = null;
+                current.active.decrementAndGet();
+            }
         }
-    }
-    
-    private void flushBatch() {
-        if (batchBuffer.isEmpty()) return;
-        
-        long startTime = System.nanoTime();
-        List<JsonObject> batch = new ArrayList<>(Math.min(batchBuffer.size(), BATCH_SIZE));
-        JsonObject msg;
-        int processed = 0;
-        
-        // 构建批处理消息
-        while (processed < BATCH_SIZE && (msg = batchBuffer.poll()) != null) {
-            batch.add(msg);
-            processed++;
-            
-            // 防止批处理时间过长影响性能
-            if ((System.nanoTime() - startTime) / 1_000_000 > MAX_BATCH_PROCESSING_TIME) {
-                break;
+
+        private void addTarget(CppProcess target) {
+            if (targetCount == targets.length) {
+                targets = Arrays.copyOf(targets, targetCount * 2);
+                intercepts = new boolean[targets.length];
             }
+            targets[targetCount++] = target;
         }
-        
-        if (!batch.isEmpty()) {
-            // 检查队列空间，避免阻塞
-            boolean queueHasSpace = messageQueue.size() < (MAX_QUEUE_SIZE * QUEUE_SPACE_THRESHOLD);
-            if (queueHasSpace) {
-                messageQueue.addAll(batch);
-                synchronized (messageQueue) {
-                    messageQueue.notify();
+
+        private boolean hasTargets() {
+            return targetCount > 0;
+        }
+
+        private EventBuilder begin(String eventName) {
+            this.eventName = eventName;
+            this.active = manager.running.get() && targetCount > 0;
+            this.captureLocal = active && GenericTranforCEvent.hasListeners();
+            this.localArgCount = 0;
+            this.sequenceKey = null;
+            this.cancellable = null;
+            this.handles = manager.handles;
+            if (active) {
+                encoder.begin(manager.wireFormat, eventName);
+            }
+            return this;
+        }
+
+        /**
+         * 按玩家编号：同一个键（通常是玩家UUID）的事件会带上递增序号，C++端可以据此发现丢失的事件。
+         * 同一玩家的事件应在同一线程上产生，否则线路上的顺序不保证与序号一致
+         */
+        public EventBuilder sequence(UUID key) {
+            this.sequenceKey = key;
+            return this;
+        }
+
+        /**
+         * 标记事件可由C++进程同步取消：有C++进程通过 intercept 声明了该事件时，{@link #send()}
+         * 会等待裁决（不超过 events.sync.budget-us）并据此取消事件；已被其他插件取消的事件不再请求裁决
+         */
+        public EventBuilder cancellable(Cancellable event) {
+            this.cancellable = event;
+            return this;
+        }
+
+        public EventBuilder arg(String value) {
+            if (active) {
+                encoder.string(value);
+                capture(value);
+            }
+            return this;
+        }
+
+        public EventBuilder arg(int value) {
+            if (active) {
+                encoder.int32(value);
+                if (captureLocal) {
+                    capture(value);
                 }
-            } else {
-                plugin.getLogger().warning("消息队列接近容量上限，跳过本次批处理");
             }
+            return this;
+        }
+
+        public EventBuilder arg(long value) {
+            if (active) {
+                encoder.int64(value);
+                if (captureLocal) {
+                    capture(value);
+                }
+            }
+            return this;
+        }
+
+        public EventBuilder arg(double value) {
+            if (active) {
+                encoder.float64(value);
+                if (captureLocal) {
+                    capture(value);
+                }
+            }
+            return this;
+        }
+
+        public EventBuilder arg(boolean value) {
+            if (active) {
+                encoder.bool(value);
+                if (captureLocal) {
+                    capture(value);
+                }
+            }
+            return this;
+        }
+
+        public EventBuilder arg(UUID value) {
+            if (active) {
+                encoder.uuid(value);
+                capture(value);
+            }
+            return this;
+        }
+
+        /**
+         * 玩家参数：二进制格式下发送会话句柄，JSON格式下发送玩家名
+         */
+        public EventBuilder player(HumanEntity player) {
+            if (active && player != null && handles != null) {
+                encoder.handle(BinaryFrameCodec.TAG_PLAYER, handles.player(player.getUniqueId(), player.getName()));
+                capture(player.getName());
+                return this;
+            }
+            return nameArg(player != null ? player.getName() : null);
+        }
+
+        /**
+         * 世界参数：二进制格式下发送会话句柄，JSON格式下发送世界名
+         */
+        public EventBuilder world(World world) {
+            if (active && world != null && handles != null) {
+                encoder.handle(BinaryFrameCodec.TAG_WORLD, handles.world(world.getUID(), world.getName()));
+                capture(world.getName());
+                return this;
+            }
+            return nameArg(world != null ? world.getName() : null);
+        }
+
+        /**
+         * 材料参数：二进制格式下发送枚举序号，名称表在会话开始时已发送；JSON格式下发送材料名
+         */
+        public EventBuilder material(Material material) {
+            if (active && material != null && handles != null) {
+                encoder.handle(BinaryFrameCodec.TAG_MATERIAL, material.ordinal());
+                capture(material.name());
+                return this;
+            }
+            return nameArg(material != null ? material.name() : null);
+        }
+
+        /**
+         * 追加方块所在的世界与方块坐标，对应字段表中的 world, x, y, z
+         */
+        public EventBuilder block(Block block) {
+            if (active) {
+                world(block.getWorld()).arg(block.getX()).arg(block.getY()).arg(block.getZ());
+            }
+            return this;
+        }
+
+        private EventBuilder nameArg(String name) {
+            if (!active) {
+                return this;
+            }
+            if (name == null) {
+                // 与旧版一致，JSON中缺失的名称以 "null" 发送；二进制格式发送null参数
+                if (handles != null) {
+                    encoder.nullValue();
+                    capture("null");
+                    return this;
+                }
+                return arg("null");
+            }
+            return arg(name);
+        }
+
+        public EventBuilder arg(Object value) {
+            if (active) {
+                encoder.object(value);
+                capture(value);
+            }
+            return this;
+        }
+
+        private void capture(Object value) {
+            if (!captureLocal) {
+                return;
+            }
+            if (localArgCount == localArgs.length) {
+                localArgs = Arrays.copyOf(localArgs, localArgCount * 2);
+            }
+            localArgs[localArgCount++] = value;
+        }
+
+        public void send() {
+            if (!active) {
+                exitEpoch();
+                return;
+            }
+            active = false;
+            try {
+                encoder.end();
+                SyncEventGate gate = manager.syncGate;
+                int intercepting = 0;
+                if (cancellable != null && gate != null && !cancellable.isCancelled()) {
+                    for (int i = 0; i < targetCount; i++) {
+                        intercepts[i] = targets[i].isIntercepted(eventName);
+                        if (intercepts[i]) {
+                            intercepting++;
+                        }
+                    }
+                }
+                if (intercepting == 0) {
+                    for (int i = 0; i < targetCount; i++) {
+                        targets[i].enqueueEvent(eventName, encoder, sequenceKey);
+                    }
+                } else if (requestVerdict(gate, intercepting)) {
+                    // 裁决只会取消事件，不会撤销其他插件的取消
+                    cancellable.setCancelled(true);
+                }
+            } catch (FrameTooLargeException e) {
+                // C++端不读取超长的帧，整个事件不发送
+                manager.oversizeLogger.warning("事件超过帧大小上限，已丢弃: ", eventName);
+            } catch (Exception e) {
+                manager.plugin.getLogger().warning("Error sending event " + eventName + ": " + e.getMessage());
+            }
+            clearTargets();
+            exitEpoch();
+
+            if (captureLocal) {
+                // 事件对象可能被监听器持有，参数数组必须是独立的副本
+                Object[] args = Arrays.copyOf(localArgs, localArgCount);
+                Arrays.fill(localArgs, 0, localArgCount, null);
+                localArgCount = 0;
+                manager.dispatchToOtherPluginsSync(eventName, args);
+            }
+        }
+
+        /**
+         * 把事件作为同步裁决请求发给拦截它的进程并在当前线程等待裁决，返回 true 表示应取消事件
+         * <p>
+         * 不拦截的进程先按普通事件收到同一份编码，随后编码在原地改写为请求。
+         * 请求不经过背压策略也不编号：它必须尽快写出，且同一线程在得到裁决之前不会产生下一个请求。
+         */
+        private boolean requestVerdict(SyncEventGate gate, int intercepting) {
+            for (int i = 0; i < targetCount; i++) {
+                if (!intercepts[i]) {
+                    targets[i].enqueueEvent(eventName, encoder, sequenceKey);
+                }
+            }
+            int requestId = gate.open(intercepting);
+            encoder.toRequest(requestId);
+            for (int i = 0; i < targetCount; i++) {
+                if (intercepts[i] && !targets[i].offerRequest(encoder)) {
+                    gate.abandon(requestId);
+                }
+            }
+            return gate.await(requestId);
         }
-        
-        lastBatchTime = System.currentTimeMillis();
     }
     
     private void dispatchToOtherPluginsSync(String eventName, Object... args) {
@@ -384,6 +1136,10 @@ public class ProcessManager implements Listener {
         
         public String getEventName() { return eventName; }
 
+        public static org.bukkit.event.HandlerList getHandlerList() { return handlers; }
+
+        static boolean hasListeners() { return handlers.getRegisteredListeners().length > 0; }
+
         public Object getArg(int index) {
             return index >= 0 && index < args.length ? args[index] : null;
         }
@@ -398,42 +1154,115 @@ public class ProcessManager implements Listener {
     
     public void stop() {
         running.set(false);
-
-        messageQueue.clear();
-        
-        if (outputWriter != null) {
-            try {
-                outputWriter.write("{\"event\":\"shutdown\"}\n");
-                outputWriter.flush();
-            } catch (IOException e) {
-                plugin.getLogger().warning("Error sending shutdown message: " + e.getMessage());
-            } finally {
-                try {
-                    outputWriter.close();
-                } catch (IOException ignored) {}
+        // 先停止守护，之后的进程退出不再触发重启
+        if (supervisor != null) {
+            supervisor.stop();
+        }
+        subscriptions.unregisterAll();
+        if (syncGate != null) {
+            syncGate.clear();
+        }
+        if (actionExecutor != null) {
+            int dropped = actionExecutor.stop();
+            if (dropped > 0) {
+                plugin.getLogger().warning("Dropped " + dropped + " pending C++ actions on stop");
             }
         }
-
-        if (process != null) {
-            gracefullyTerminateProcess();
+        if (commandPipeline != null) {
+            int dropped = commandPipeline.stop();
+            if (dropped > 0) {
+                plugin.getLogger().warning("Dropped " + dropped + " pending C++ commands on stop");
+            }
         }
+        HandlerList.unregisterAll(this);
 
-        if (readerThread != null && readerThread.isAlive()) {
-            readerThread.interrupt();
+        long messages = 0;
+        CppProcess[] stopping;
+        CppProcess[] pending;
+        synchronized (switchLock) {
+            stopping = processes;
+            pending = transitional;
+            processes = new CppProcess[0];
+            transitional = new CppProcess[0];
+        }
+        for (CppProcess cppProcess : stopping) {
+            cppProcess.stop();
+            messages += cppProcess.getMessageCount();
         }
-        if (senderExecutor != null && !senderExecutor.isShutdown()) {
-            shutdownExecutorService(senderExecutor);
+        for (CppProcess cppProcess : pending) {
+            cppProcess.stop();
+        }
+        // 进程全部停止后再关闭事件日志，停止标记与最后的帧都能写入
+        EventJournal stoppingJournal = journal;
+        journal = null;
+        if (stoppingJournal != null) {
+            stoppingJournal.stop();
         }
 
-        // 清理资源引用
-        readerThread = null;
-        senderExecutor = null;
-        inputReader = null;
-        outputWriter = null;
-        process = null;
-        
-        plugin.getLogger().info("ProcessManager stopped. Messages processed: " + messageCounter.get());
-        messageCounter.set(0);
+        plugin.getLogger().info("ProcessManager stopped. Messages processed: " + messages);
+    }
+
+    /**
+     * 正在运行的C++进程，单进程模式下至多一个；每个进程有自己的事件环、背压统计与订阅
+     */
+    public List<CppProcess> getProcesses() {
+        return List.of(processes);
+    }
+
+    /**
+     * 事件日志，未启用（journal.enabled）或进程尚未启动时为null
+     */
+    public EventJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * 同步裁决的延迟统计，进程尚未启动时为null
+     */
+    public SyncEventGate getSyncGate() {
+        return syncGate;
+    }
+
+    /**
+     * 在服务器线程上执行C++动作的队列与预算统计，进程尚未启动时为null
+     */
+    public ActionExecutor getActionExecutor() {
+        return actionExecutor;
+    }
+
+    /**
+     * C++进程发送的指令队列统计，进程尚未启动时为null
+     */
+    public CommandPipeline getCommandPipeline() {
+        return commandPipeline;
+    }
+
+    /**
+     * 分片广播的合并统计，进程尚未启动时为null
+     */
+    public BroadcastMerger getBroadcastMerger() {
+        return broadcastMerger;
+    }
+
+    /**
+     * 消息模板缓存的命中统计，进程尚未启动时为null
+     */
+    public ComponentCache getComponentCache() {
+        return componentCache;
+    }
+
+    /**
+     * 批量查询统计，进程尚未启动时为null
+     */
+    public QueryService getQueryService() {
+        return queryService;
+    }
+
+    /**
+     * 可转发给C++进程的事件及当前的订阅情况
+     */
+    public EventSubscriptions getSubscriptions() {
+        return subscriptions;
     }
 
     public void restart() {
@@ -447,153 +1276,308 @@ public class ProcessManager implements Listener {
         start();
     }
 
-    @EventHandler
-    public void onPlayerJoin(PlayerJoinEvent event) {
-        sendEvent("PlayerJoin", event.getPlayer().getName());
+    private void onPlayerJoin(PlayerJoinEvent event) {
+        EventBuilder builder = route("PlayerJoin", event.getPlayer(), event.getPlayer().getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.sequence(event.getPlayer().getUniqueId()).player(event.getPlayer()).send();
     }
 
-    @EventHandler
-    public void onPlayerQuit(PlayerQuitEvent event) {
-        sendEvent("PlayerQuit", event.getPlayer().getName());
+    private void onPlayerQuit(PlayerQuitEvent event) {
+        EventBuilder builder = route("PlayerQuit", event.getPlayer(), event.getPlayer().getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.sequence(event.getPlayer().getUniqueId()).player(event.getPlayer()).send();
     }
 
-    @EventHandler
-    public void onBlockBreak(BlockBreakEvent event) {
-        sendEvent("BlockBreak", event.getPlayer().getName(), event.getBlock().getType().name());
+    /**
+     * 无论C++进程是否订阅 PlayerQuit，都需要清理该玩家的状态
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuitCleanup(PlayerQuitEvent event) {
+        for (CppProcess cppProcess : processes) {
+            cppProcess.forget(event.getPlayer().getUniqueId());
+        }
+        for (CppProcess cppProcess : transitional) {
+            cppProcess.forget(event.getPlayer().getUniqueId());
+        }
+        PlayerMoveFilter filter = moveFilter;
+        if (filter != null) {
+            filter.forget(event.getPlayer().getUniqueId());
+        }
+        // 放在最后：合并缓冲区中该玩家的事件已丢弃，之后句柄只会被事件环中更早的事件引用
+        SessionHandles sessionHandles = handles;
+        if (sessionHandles != null) {
+            sessionHandles.releasePlayer(event.getPlayer().getUniqueId());
+        }
     }
 
-    @EventHandler
-    public void onBlockPlace(BlockPlaceEvent event) {
-        sendEvent("BlockPlace", event.getPlayer().getName(), event.getBlock().getType().name());
+    private void onBlockBreak(BlockBreakEvent event) {
+        Block block = event.getBlock();
+        EventBuilder builder = route("BlockBreak", event.getPlayer(), block.getWorld(), block.getType(), null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(event.getPlayer().getUniqueId())
+                .player(event.getPlayer())
+                .material(block.getType())
+                .block(block)
+                .send();
     }
 
-    @EventHandler
-    public void onEntityDamage(EntityDamageEvent event) {
-        sendEvent("EntityDamage", event.getEntity().getName(), String.valueOf(event.getDamage()));
+    private void onBlockPlace(BlockPlaceEvent event) {
+        Block block = event.getBlock();
+        EventBuilder builder = route("BlockPlace", event.getPlayer(), block.getWorld(), block.getType(), null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(event.getPlayer().getUniqueId())
+                .player(event.getPlayer())
+                .material(block.getType())
+                .block(block)
+                .send();
     }
 
-    @EventHandler
-    public void onEntityDeath(EntityDeathEvent event) {
-        sendEvent("EntityDeath", event.getEntity().getName());
+    private void onEntityDamage(EntityDamageEvent event) {
+        Entity entity = event.getEntity();
+        EventBuilder builder = route("EntityDamage", entity, entity.getWorld(), null, entity.getType());
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .arg(entity.getName())
+                .arg(event.getDamage())
+                .arg(entity.getEntityId())
+                .arg(entity.getUniqueId())
+                .arg(entity.getType().name())
+                .arg(event.getCause().name())
+                .world(entity.getWorld())
+                .send();
     }
 
-    @EventHandler
-    public void onPlayerDeath(org.bukkit.event.entity.PlayerDeathEvent event) {
+    private void onEntityDeath(EntityDeathEvent event) {
+        Entity entity = event.getEntity();
+        EventBuilder builder = route("EntityDeath", entity, entity.getWorld(), null, entity.getType());
+        if (builder == null) {
+            return;
+        }
+        builder
+                .arg(entity.getName())
+                .arg(entity.getEntityId())
+                .arg(entity.getUniqueId())
+                .arg(entity.getType().name())
+                .world(entity.getWorld())
+                .send();
+    }
+
+    private void onPlayerDeath(org.bukkit.event.entity.PlayerDeathEvent event) {
+        EventBuilder builder = route("PlayerDeath", event.getEntity(), event.getEntity().getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
         String deathMsg = "Player died";
         if (event.deathMessage() != null) {
             deathMsg = String.valueOf(event.deathMessage());
         }
-        sendEvent("PlayerDeath", event.getEntity().getName(), deathMsg);
+        builder.sequence(event.getEntity().getUniqueId()).player(event.getEntity()).arg(deathMsg).send();
     }
 
-    @EventHandler
-    public void onInventoryClick(InventoryClickEvent event) {
-        sendEvent("InventoryClick", event.getWhoClicked().getName(), String.valueOf(event.getSlot()), event.getCurrentItem() != null ? event.getCurrentItem().getType().name() : "AIR");
+    private void onInventoryClick(InventoryClickEvent event) {
+        HumanEntity clicker = event.getWhoClicked();
+        ItemStack item = event.getCurrentItem();
+        EventBuilder builder = route("InventoryClick", clicker, clicker.getWorld(), item != null ? item.getType() : null, null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(clicker.getUniqueId())
+                .player(clicker)
+                .arg(event.getSlot())
+                .material(item != null ? item.getType() : Material.AIR)
+                .send();
     }
 
-    @EventHandler
-    public void onInventoryOpen(InventoryOpenEvent event) {
-        sendEvent("InventoryOpen", event.getPlayer().getName());
+    private void onInventoryOpen(InventoryOpenEvent event) {
+        EventBuilder builder = route("InventoryOpen", event.getPlayer(), event.getPlayer().getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.cancellable(event).sequence(event.getPlayer().getUniqueId()).player(event.getPlayer()).send();
     }
 
-    @EventHandler
-    public void onInventoryClose(InventoryCloseEvent event) {
-        sendEvent("InventoryClose", event.getPlayer().getName());
+    private void onInventoryClose(InventoryCloseEvent event) {
+        EventBuilder builder = route("InventoryClose", event.getPlayer(), event.getPlayer().getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.sequence(event.getPlayer().getUniqueId()).player(event.getPlayer()).send();
     }
 
-    @EventHandler
-    public void onPlayerMove(PlayerMoveEvent event) {
-        sendEvent("PlayerMove", event.getPlayer().getName());
+    private void onPlayerMove(PlayerMoveEvent event) {
+        Player player = event.getPlayer();
+        Location to = event.getTo();
+        PlayerMoveFilter filter = moveFilter;
+        if (filter == null) {
+            return;
+        }
+        // 先过滤再路由：被过滤掉的移动不做路由与分片选择，也不进入路由纪元
+        if (!filter.accept(player.getUniqueId(), to)) {
+            return;
+        }
+        EventBuilder builder = route("PlayerMove", player, to.getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(player.getUniqueId())
+                .player(player)
+                .world(to.getWorld())
+                .arg(to.getX())
+                .arg(to.getY())
+                .arg(to.getZ())
+                .arg(to.getYaw())
+                .arg(to.getPitch())
+                .send();
     }
 
-    @EventHandler
-    public void onPlayerRespawn(PlayerRespawnEvent event) {
-        sendEvent("PlayerRespawn", event.getPlayer().getName());
+    private void onPlayerRespawn(PlayerRespawnEvent event) {
+        EventBuilder builder = route("PlayerRespawn", event.getPlayer(), event.getPlayer().getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.sequence(event.getPlayer().getUniqueId()).player(event.getPlayer()).send();
     }
 
-    @EventHandler
-    public void onBlockIgnite(BlockIgniteEvent event) {
-        String playerName = event.getPlayer() != null ? event.getPlayer().getName() : "null";
-        sendEvent("BlockIgnite", playerName, event.getBlock().getType().name());
+    private void onBlockIgnite(BlockIgniteEvent event) {
+        Player player = event.getPlayer();
+        Block block = event.getBlock();
+        EventBuilder builder = route("BlockIgnite", player, block.getWorld(), block.getType(), null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(player != null ? player.getUniqueId() : null)
+                .player(player)
+                .material(block.getType())
+                .block(block)
+                .send();
     }
 
-    @EventHandler
-    public void onEntitySpawn(EntitySpawnEvent event) {
-        sendEvent("EntitySpawn", event.getEntityType().name());
+    private void onEntitySpawn(EntitySpawnEvent event) {
+        Entity entity = event.getEntity();
+        EventBuilder builder = route("EntitySpawn", null, entity.getWorld(), null, event.getEntityType());
+        if (builder == null) {
+            return;
+        }
+        Location location = event.getLocation();
+        builder
+                .cancellable(event)
+                .arg(event.getEntityType().name())
+                .arg(entity.getEntityId())
+                .arg(entity.getUniqueId())
+                .world(entity.getWorld())
+                .arg(location.getX())
+                .arg(location.getY())
+                .arg(location.getZ())
+                .send();
     }
 
-    @EventHandler
-    public void onPlayerInteract(PlayerInteractEvent event) {
-        String itemName = event.getItem() != null ? event.getItem().getType().name() : "null";
-        sendEvent("PlayerInteract", event.getPlayer().getName(), event.getAction().name(), itemName);
+    private void onPlayerInteract(PlayerInteractEvent event) {
+        ItemStack item = event.getItem();
+        EventBuilder builder = route("PlayerInteract", event.getPlayer(), event.getPlayer().getWorld(), item != null ? item.getType() : null, null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(event.getPlayer().getUniqueId())
+                .player(event.getPlayer())
+                .arg(event.getAction().name())
+                .material(item != null ? item.getType() : null)
+                .send();
     }
 
-    @EventHandler
-    public void onPlayerDropItem(PlayerDropItemEvent event) {
-        sendEvent("PlayerDropItem", event.getPlayer().getName(), event.getItemDrop().getItemStack().getType().name());
+    private void onPlayerDropItem(PlayerDropItemEvent event) {
+        ItemStack stack = event.getItemDrop().getItemStack();
+        Material material = stack.getType();
+        EventBuilder builder = route("PlayerDropItem", event.getPlayer(), event.getPlayer().getWorld(), material, null);
+        if (builder == null) {
+            return;
+        }
+        builder
+                .cancellable(event)
+                .sequence(event.getPlayer().getUniqueId())
+                .player(event.getPlayer())
+                .material(material)
+                .arg(stack.getAmount())
+                .send();
     }
 
-    @EventHandler
-    public void onEntityPickupItem(EntityPickupItemEvent event) {
+    private void onEntityPickupItem(EntityPickupItemEvent event) {
         if (event.getEntity() instanceof Player player) {
-            sendEvent("PlayerPickupItem", player.getName(), event.getItem().getItemStack().getType().name());
+            ItemStack stack = event.getItem().getItemStack();
+            Material material = stack.getType();
+            EventBuilder builder = route("PlayerPickupItem", player, player.getWorld(), material, null);
+            if (builder == null) {
+                return;
+            }
+            builder
+                    .cancellable(event)
+                    .sequence(player.getUniqueId())
+                    .player(player)
+                    .material(material)
+                    .arg(stack.getAmount())
+                    .send();
         }
     }
 
-    @EventHandler
-    public void onServerCommand(ServerCommandEvent event) {
-        sendEvent("ServerCommand", event.getSender().getName(), event.getCommand());
-    }
-
-    @EventHandler
-    public void onWorldLoad(WorldLoadEvent event) {
-        sendEvent("WorldLoad", event.getWorld().getName());
+    private void onServerCommand(ServerCommandEvent event) {
+        EventBuilder builder = route("ServerCommand", event.getSender(), null, null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.cancellable(event).arg(event.getSender().getName()).arg(event.getCommand()).send();
     }
 
-    @EventHandler
-    public void onWeatherChange(WeatherChangeEvent event) {
-        sendEvent("WeatherChange", event.getWorld().getName(), String.valueOf(event.toWeatherState()));
+    private void onWorldLoad(WorldLoadEvent event) {
+        EventBuilder builder = route("WorldLoad", null, event.getWorld(), null, null);
+        if (builder == null) {
+            return;
+        }
+        builder.world(event.getWorld()).send();
     }
 
-    @EventHandler
-    public void onHangingBreak(HangingBreakEvent event) {
-        sendEvent("HangingBreak", event.getEntity().getType().name(), event.getCause().name());
-    }
-    
-    /**
-     * 优雅地终止C++进程
-     */
-    private void gracefullyTerminateProcess() {
-        try {
-            process.destroy();
-            if (!process.waitFor(PROCESS_TERMINATION_TIMEOUT, TimeUnit.SECONDS)) {
-                process.destroyForcibly();
-                process.waitFor(FORCE_TERMINATION_TIMEOUT, TimeUnit.SECONDS);
-            }
-        } catch (InterruptedException e) {
-            plugin.getLogger().warning("Interrupted while waiting for process to terminate: " + e.getMessage());
-            Thread.currentThread().interrupt();
+    private void onWeatherChange(WeatherChangeEvent event) {
+        EventBuilder builder = route("WeatherChange", null, event.getWorld(), null, null);
+        if (builder == null) {
+            return;
         }
+        builder.cancellable(event).world(event.getWorld()).arg(event.toWeatherState()).send();
     }
-    
-    /**
-     * 安全关闭ExecutorService
-     */
-    private void shutdownExecutorService(ExecutorService executor) {
-        if (executor != null && !executor.isShutdown()) {
-            executor.shutdown();
-            try {
-                if (!executor.awaitTermination(3, TimeUnit.SECONDS)) {
-                    executor.shutdownNow();
-                    if (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
-                        plugin.getLogger().warning("senderExecutor" + " failed to terminate properly");
-                    }
-                }
-            } catch (InterruptedException e) {
-                executor.shutdownNow();
-                Thread.currentThread().interrupt();
-                plugin.getLogger().warning("senderExecutor" + " shutdown interrupted: " + e.getMessage());
-            }
+
+    private void onHangingBreak(HangingBreakEvent event) {
+        Entity entity = event.getEntity();
+        EventBuilder builder = route("HangingBreak", null, entity.getWorld(), null, entity.getType());
+        if (builder == null) {
+            return;
         }
+        builder
+                .cancellable(event)
+                .arg(entity.getType().name())
+                .arg(event.getCause().name())
+                .arg(entity.getEntityId())
+                .arg(entity.getUniqueId())
+                .world(entity.getWorld())
+                .send();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,145 @@
+package com.github.tranforcpp;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * C++进程守护
+ * <p>
+ * 监视每个 {@link CppProcess} 的退出：不是由停止引起的退出视为崩溃，按指数退避用同一个可执行文件重启。
+ * 进程停止期间事件照常进入它的事件环（受容量与背压策略限制），重启后只重放最近
+ * processes.supervisor.replay-window-ms 内入队的事件，更早的事件被丢弃。
+ * <p>
+ * 主要功能：
+ * - 退避：窗口内第n次崩溃后等待 initial-backoff-ms × 2^(n-1)，不超过 max-backoff-ms
+ * - 熔断：crash-window-seconds 内崩溃超过 max-restarts 次时不再重启，进程保持停止直到 /tranforcpp reload
+ * - 重启失败（如可执行文件被删除）同样计为一次崩溃
+ */
+final class ProcessSupervisor {
+
+    private static final int MAX_BACKOFF_SHIFT = 20;
+
+    private final Logger logger;
+    private final boolean enabled;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final int maxRestarts;
+    private final long crashWindowNanos;
+    private final long replayWindowNanos;
+    private final Map<CppProcess, Deque<Long>> crashes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean running = true;
+
+    /**
+     * @param enabled 为false时进程退出后不重启，只记录日志
+     */
+    ProcessSupervisor(boolean enabled, long initialBackoffMs, long maxBackoffMs, int maxRestarts,
+                      long crashWindowSeconds, long replayWindowMs, Logger logger) {
+        this.logger = logger;
+        this.enabled = enabled;
+        this.initialBackoffMs = Math.max(0, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+        this.maxRestarts = Math.max(0, maxRestarts);
+        this.crashWindowNanos = TimeUnit.SECONDS.toNanos(Math.max(1, crashWindowSeconds));
+        this.replayWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, replayWindowMs));
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "TranforC++-Supervisor");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 进程意外退出时调用，可在任意线程上调用；停止或重启都在守护线程上进行
+     */
+    void crashed(CppProcess cppProcess) {
+        if (!running) {
+            return;
+        }
+        logger.warning(cppProcess.getDisplayName() + " exited unexpectedly (exit code "
+                + cppProcess.getLastExitCode() + ")");
+        try {
+            scheduler.execute(() -> scheduleRestart(cppProcess));
+        } catch (RejectedExecutionException ignored) {
+            // 守护已停止
+        }
+    }
+
+    private void scheduleRestart(CppProcess cppProcess) {
+        if (!enabled) {
+            cppProcess.fail();
+            logger.warning(cppProcess.getDisplayName() + " will not be restarted (processes.supervisor.enabled: false)");
+            return;
+        }
+        int recent = recordCrash(cppProcess);
+        if (recent > maxRestarts) {
+            cppProcess.fail();
+            logger.severe(cppProcess.getDisplayName() + " crashed " + recent + " times within "
+                    + TimeUnit.NANOSECONDS.toSeconds(crashWindowNanos) + "s, giving up until /tranforcpp reload");
+            return;
+        }
+        long delay = Math.min(maxBackoffMs, initialBackoffMs << Math.min(recent - 1, MAX_BACKOFF_SHIFT));
+        logger.info("Restarting " + cppProcess.getDisplayName() + " in " + delay + "ms (attempt " + recent
+                + "/" + maxRestarts + ", " + cppProcess.getEventRing().size() + " events buffered)");
+        try {
+            scheduler.schedule(() -> restart(cppProcess), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+            // 守护已停止
+        }
+    }
+
+    private void restart(CppProcess cppProcess) {
+        if (!running) {
+            return;
+        }
+        long replayedBefore = cppProcess.getReplayedCount();
+        long expiredBefore = cppProcess.getExpiredCount();
+        try {
+            if (cppProcess.restart(replayWindowNanos)) {
+                logger.info("Restarted " + cppProcess.getDisplayName() + ", replaying "
+                        + (cppProcess.getReplayedCount() - replayedBefore) + " buffered events ("
+                        + (cppProcess.getExpiredCount() - expiredBefore) + " older than the replay window dropped)");
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to restart " + cppProcess.getDisplayName() + ": " + e.getMessage());
+            scheduleRestart(cppProcess);
+        }
+    }
+
+    /**
+     * 记录一次崩溃，返回窗口内的崩溃次数（含本次）
+     */
+    private int recordCrash(CppProcess cppProcess) {
+        Deque<Long> history = crashes.computeIfAbsent(cppProcess, key -> new ArrayDeque<>());
+        synchronized (history) {
+            long now = System.nanoTime();
+            while (!history.isEmpty() && now - history.peekFirst() > crashWindowNanos) {
+                history.pollFirst();
+            }
+            history.addLast(now);
+            return history.size();
+        }
+    }
+
+    /**
+     * 停止守护，尚未执行的重启被取消；在停止各个进程之前调用
+     */
+    void stop() {
+        running = false;
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        crashes.clear();
+    }
+}
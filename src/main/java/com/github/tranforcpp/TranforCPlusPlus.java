@@ -42,6 +42,7 @@ public class TranforCPlusPlus extends JavaPlugin {
     @Override
     public void onEnable() {
         instance = this;
+        saveDefaultConfig();
                 getLogger().info(AnsiColorUtils.colorize("正在初始化TranforC++模块...", AnsiColorUtils.COLOR_51));
         // 注册主命令
         registerTranforCommand();
@@ -99,7 +100,7 @@ public class TranforCPlusPlus extends JavaPlugin {
         };
         
         tranforCommand.setDescription("Manage TranforC++ plugin");
-        tranforCommand.setUsage("/<command> [reload|version]");
+        tranforCommand.setUsage("/<command> [reload|version|stats]");
         tranforCommand.setPermission("tranforcpp.use");
         tranforCommand.setAliases(java.util.Collections.singletonList("cpp"));
         
@@ -139,10 +140,12 @@ public class TranforCPlusPlus extends JavaPlugin {
         this.processManager = processManager;
     }
 
-    public void reload() {
-        if (processManager != null) {
-            processManager.restart();
-        }
+    /**
+     * 重新加载配置与C++插件，返回true表示C++插件正在后台热重载（见 {@link ProcessManager#reload()}）
+     */
+    public boolean reload() {
+        reloadConfig();
+        return processManager != null && processManager.reload();
     }
     public SmartThreadOptimizer getThreadOptimizer() {
         return threadOptimizer;
@@ -1,11 +1,28 @@
 package com.github.tranforcpp.command;
 
+import com.github.tranforcpp.CppProcess;
+import com.github.tranforcpp.ProcessManager;
 import com.github.tranforcpp.TranforCPlusPlus;
+import com.github.tranforcpp.pipeline.ActionExecutor;
+import com.github.tranforcpp.pipeline.BackpressureController;
+import com.github.tranforcpp.pipeline.BroadcastMerger;
+import com.github.tranforcpp.pipeline.CommandPipeline;
+import com.github.tranforcpp.pipeline.EventJournal;
+import com.github.tranforcpp.pipeline.EventRing;
+import com.github.tranforcpp.pipeline.EventSubscriptions;
+import com.github.tranforcpp.pipeline.SyncEventGate;
+import com.github.tranforcpp.protocol.EventEncoder;
+import com.github.tranforcpp.protocol.FrameDecoder;
+import com.github.tranforcpp.query.QueryService;
+import com.github.tranforcpp.utils.ComponentCache;
+import com.github.tranforcpp.utils.LatencyHistogram;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 
+import java.util.Comparator;
+
 /**
  * TranforC++主命令处理器
  * <p> 
@@ -15,16 +32,21 @@ import net.kyori.adventure.text.minimessage.MiniMessage;
  * 支持的子命令：
  * - reload: 重新加载C++插件
  * - version/ver: 显示插件版本信息
+ * - stats: 显示事件管道统计信息
  */
 public class TranforCommand implements CommandExecutor {
     
     private static final MiniMessage MM = MiniMessage.miniMessage();
-    private static final String USAGE_MESSAGE = "<red>用法: /tranforcpp <reload|version|ver>";
+    private static final String USAGE_MESSAGE = "<red>用法: /tranforcpp <reload|version|ver|stats>";
     private static final String PERMISSION_DENIED = "<red>权限不足";
     private static final String RELOAD_START = "<yellow>正在重载...";
     private static final String RELOAD_COMPLETE = "<green>重载完成!";
+    private static final String RELOAD_IN_BACKGROUND = "<green>配置已重载，C++插件正在后台编译，新版本就绪后自动切换，结果见控制台";
     private static final String VERSION_PREFIX = "<white>[<aqua>TranforC++<white>] <green>您当前服务器的模块版本为: <green>";
-    private static final String UNKNOWN_COMMAND = "<red>未知指令! 用法: /tranforcpp <reload|version|ver>";
+    private static final String STATS_HEADER = "<white>[<aqua>TranforC++<white>] <green>事件管道统计:";
+    private static final String PROCESS_NOT_RUNNING = "<red>C++进程尚未启动";
+    private static final int MAX_STATS_CHANNELS = 10;
+    private static final String UNKNOWN_COMMAND = "<red>未知指令! 用法: /tranforcpp <reload|version|ver|stats>";
 
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
@@ -38,6 +60,7 @@ public class TranforCommand implements CommandExecutor {
         return switch (subCommand) {
             case "reload" -> handleReload(sender);
             case "version", "ver" -> handleVersion(sender);
+            case "stats" -> handleStats(sender);
             default -> {
                 sender.sendMessage(MM.deserialize(UNKNOWN_COMMAND));
                 yield true;
@@ -51,8 +74,8 @@ public class TranforCommand implements CommandExecutor {
             return true;
         }
         sender.sendMessage(MM.deserialize(RELOAD_START));
-        TranforCPlusPlus.getInstance().reload();
-        sender.sendMessage(MM.deserialize(RELOAD_COMPLETE));
+        boolean inBackground = TranforCPlusPlus.getInstance().reload();
+        sender.sendMessage(MM.deserialize(inBackground ? RELOAD_IN_BACKGROUND : RELOAD_COMPLETE));
         return true;
     }
     
@@ -65,4 +88,149 @@ public class TranforCommand implements CommandExecutor {
         sender.sendMessage(MM.deserialize(VERSION_PREFIX + version));
         return true;
     }
-}
\ No newline at end of file
+
+    private boolean handleStats(CommandSender sender) {
+        if (!sender.hasPermission("tranforcpp.stats")) {
+            sender.sendMessage(MM.deserialize(PERMISSION_DENIED));
+            return true;
+        }
+        ProcessManager processManager = TranforCPlusPlus.getInstance().getProcessManager();
+        if (processManager == null) {
+            sender.sendMessage(MM.deserialize(PROCESS_NOT_RUNNING));
+            return true;
+        }
+        sender.sendMessage(MM.deserialize(STATS_HEADER));
+
+        EventSubscriptions subscriptions = processManager.getSubscriptions();
+        sender.sendMessage(MM.deserialize("<gray>已订阅事件: <white>" + subscriptions.getSubscribedEvents().size()
+                + "/" + subscriptions.getAvailableEvents().size()));
+
+        ActionExecutor actionExecutor = processManager.getActionExecutor();
+        if (actionExecutor != null) {
+            sender.sendMessage(MM.deserialize("<gray>动作队列: <white>" + actionExecutor.getQueueDepth()
+                    + " <gray>峰值: <white>" + actionExecutor.getPeakQueueDepth()
+                    + " <gray>已执行: <white>" + actionExecutor.getExecutedCount()
+                    + " <gray>顺延tick: <white>" + actionExecutor.getCarryOverTicks()
+                    + " <gray>拒绝: <white>" + actionExecutor.getRejectedCount()
+                    + " <gray>单tick最长: <white>" + String.format("%.2f", actionExecutor.getMaxTickNanos() / 1_000_000.0) + "ms"));
+        }
+
+        CommandPipeline commandPipeline = processManager.getCommandPipeline();
+        if (commandPipeline != null && commandPipeline.getPeakQueueDepth() > 0) {
+            sender.sendMessage(MM.deserialize("<gray>指令队列: <white>" + commandPipeline.getQueueDepth()
+                    + " <gray>峰值: <white>" + commandPipeline.getPeakQueueDepth()
+                    + " <gray>每tick上限: <white>" + commandPipeline.getMaxPerTick()
+                    + " <gray>成功: <white>" + commandPipeline.getExecutedCount()
+                    + " <gray>失败: <white>" + commandPipeline.getFailedCount()
+                    + " <gray>拒绝: <white>" + commandPipeline.getRejectedCount()));
+        }
+
+        ComponentCache componentCache = processManager.getComponentCache();
+        if (componentCache != null && componentCache.getHits() + componentCache.getMisses() > 0) {
+            long lookups = componentCache.getHits() + componentCache.getMisses();
+            sender.sendMessage(MM.deserialize("<gray>消息模板缓存: <white>" + componentCache.size() + "/" + componentCache.getCapacity()
+                    + " <gray>命中: <white>" + componentCache.getHits()
+                    + " <gray>未命中: <white>" + componentCache.getMisses()
+                    + " <gray>命中率: <white>" + String.format("%.1f", componentCache.getHits() * 100.0 / lookups) + "%"
+                    + " <gray>淘汰: <white>" + componentCache.getEvictions()));
+        }
+
+        QueryService queryService = processManager.getQueryService();
+        if (queryService != null && queryService.getBatchCount() > 0) {
+            sender.sendMessage(MM.deserialize("<gray>查询批次: <white>" + queryService.getBatchCount()
+                    + " <gray>查询: <white>" + queryService.getQueryCount()
+                    + " <gray>未发送: <white>" + queryService.getUnsentCount()));
+        }
+
+        SyncEventGate syncGate = processManager.getSyncGate();
+        if (syncGate != null && syncGate.getRequests() > 0) {
+            LatencyHistogram latency = syncGate.getLatency();
+            sender.sendMessage(MM.deserialize("<gray>同步裁决: <white>" + syncGate.getRequests()
+                    + " <gray>取消: <white>" + syncGate.getCancelled()
+                    + " <gray>超时: <white>" + syncGate.getTimeouts()
+                    + " <gray>迟到: <white>" + syncGate.getLateVerdicts()
+                    + " <gray>未发送: <white>" + syncGate.getUnsent()));
+            sender.sendMessage(MM.deserialize("<gray>裁决等待: <white>p50 ≤" + latency.percentileMicros(50)
+                    + "µs <gray>p99 <white>≤" + latency.percentileMicros(99)
+                    + "µs <gray>最大 <white>" + latency.getMaxNanos() / 1000
+                    + "µs <gray>每tick <white>" + String.format("%.1f", syncGate.getWaitMicrosPerTick()) + "µs"));
+        }
+
+        BroadcastMerger broadcastMerger = processManager.getBroadcastMerger();
+        if (broadcastMerger != null && broadcastMerger.getMergedCount() > 0) {
+            sender.sendMessage(MM.deserialize("<gray>分片广播合并: <white>" + broadcastMerger.getMergedCount()));
+        }
+
+        if (EventEncoder.getOversizedCount() > 0 || FrameDecoder.getSkippedCount() > 0) {
+            sender.sendMessage(MM.deserialize("<gray>超长帧丢弃: <white>" + EventEncoder.getOversizedCount()
+                    + " <gray>接收跳过: <white>" + FrameDecoder.getSkippedCount()));
+        }
+
+        EventJournal journal = processManager.getJournal();
+        if (journal != null) {
+            sender.sendMessage(MM.deserialize("<gray>事件日志: <white>" + journal.getRecordedCount()
+                    + " <gray>丢弃: <white>" + journal.getDroppedCount()
+                    + " <gray>已写入: <white>" + journal.getWrittenBytes() / 1024 + "KB"
+                    + " <gray>当前文件: <white>" + journal.getCurrentFile()));
+        }
+
+        for (CppProcess cppProcess : processManager.getProcesses()) {
+            if (cppProcess.getInstanceName() != null) {
+                sender.sendMessage(MM.deserialize("<aqua>" + cppProcess.getInstanceName()
+                        + " <gray>订阅: <white>" + cppProcess.getSubscribedEvents().size()
+                        + " <gray>拦截: <white>" + cppProcess.getIntercepted().size()
+                        + " <gray>消息: <white>" + cppProcess.getMessageCount()));
+            }
+            sendProcessStats(sender, cppProcess);
+        }
+        return true;
+    }
+
+    private void sendProcessStats(CommandSender sender, CppProcess cppProcess) {
+        CppProcess.State state = cppProcess.getState();
+        if (state != CppProcess.State.RUNNING || cppProcess.getRestartCount() > 0) {
+            sender.sendMessage(MM.deserialize("<gray>进程状态: " + stateLabel(state)
+                    + " <gray>自动重启: <white>" + cppProcess.getRestartCount()
+                    + " <gray>重放: <white>" + cppProcess.getReplayedCount()
+                    + " <gray>超出重放窗口: <white>" + cppProcess.getExpiredCount()
+                    + " <gray>最近退出码: <white>" + cppProcess.getLastExitCode()));
+        }
+
+        EventRing ring = cppProcess.getEventRing();
+        sender.sendMessage(MM.deserialize("<gray>事件环占用: <white>" + ring.size() + "/" + ring.getCapacity()
+                + " <gray>峰值: <white>" + ring.getPeakSize()));
+        sender.sendMessage(MM.deserialize("<gray>已入队: <white>" + ring.getOfferedCount()
+                + " <gray>入队失败: <white>" + ring.getRejectedCount()
+                + " <gray>腾出位置: <white>" + ring.getEvictedCount()
+                + " <gray>入队竞争: <white>" + ring.getContendedCount()));
+        LatencyHistogram queueDelay = ring.getQueueDelay();
+        if (queueDelay.getCount() > 0) {
+            sender.sendMessage(MM.deserialize("<gray>排队延迟: <white>p50 ≤" + queueDelay.percentileMicros(50)
+                    + "µs <gray>p99 <white>≤" + queueDelay.percentileMicros(99)
+                    + "µs <gray>最大 <white>" + queueDelay.getMaxNanos() / 1000 + "µs"));
+        }
+
+        BackpressureController backpressure = cppProcess.getBackpressure();
+        if (backpressure != null) {
+            backpressure.getChannels().stream()
+                    .filter(channel -> channel.getDroppedCount() + channel.getCoalescedCount() + channel.getBlockedCount() > 0)
+                    .sorted(Comparator.comparingLong(BackpressureController.Channel::getDroppedCount).reversed())
+                    .limit(MAX_STATS_CHANNELS)
+                    .forEach(channel -> sender.sendMessage(MM.deserialize("<gray>" + channel.getEventName()
+                            + " (" + channel.getPolicy().getConfigName() + "): <white>接收 " + channel.getAcceptedCount()
+                            + " <gray>丢弃 <white>" + channel.getDroppedCount()
+                            + " <gray>合并 <white>" + channel.getCoalescedCount()
+                            + " <gray>等待 <white>" + channel.getBlockedCount())));
+        }
+    }
+
+    private static String stateLabel(CppProcess.State state) {
+        return switch (state) {
+            case NEW -> "<yellow>未启动";
+            case RUNNING -> "<green>运行中";
+            case RESTARTING -> "<yellow>等待重启";
+            case FAILED -> "<red>崩溃过多，已停止";
+            case STOPPED -> "<red>已停止";
+        };
+    }
+}
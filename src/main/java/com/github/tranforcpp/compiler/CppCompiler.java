@@ -28,6 +28,20 @@ public class CppCompiler {
     private static volatile boolean errorAlreadyShown = false;
     private static final long CACHE_EXPIRY_TIME = 300000L;
     private static final long COMPILER_CHECK_TIMEOUT = 5;
+    private static final String BUILD_DIR_NAME = ".tranforcpp-build";
+
+    private final String outputSuffix;
+
+    public CppCompiler() {
+        this("");
+    }
+
+    /**
+     * @param outputSuffix 追加在可执行文件名后的后缀；热重载时新版本编译到另一个文件，正在运行的旧版本不受影响
+     */
+    public CppCompiler(String outputSuffix) {
+        this.outputSuffix = outputSuffix;
+    }
     
     private static class CachedCompileResult {
         final File executable;
@@ -75,12 +89,96 @@ public class CppCompiler {
         }
         
         if (isWindows) {
-            outputFile = new File(cppDir, "tranforcpp_plugin.exe");
+            outputFile = new File(cppDir, "tranforcpp_plugin" + outputSuffix + ".exe");
         } else {
-            outputFile = new File(cppDir, "tranforcpp_plugin");
+            outputFile = new File(cppDir, "tranforcpp_plugin" + outputSuffix);
+        }
+
+        return runCompiler(compiler, outputFile, cppFiles, null, isWindows);
+    }
+
+    /**
+     * 按插件分别编译，每个插件得到独立的可执行文件
+     * <p>
+     * C++ Plugins 目录下的每个 .cpp 文件是一个插件，每个包含 .cpp 文件的子目录（以 . 开头的除外）
+     * 也是一个插件，目录中的全部 .cpp 文件一起编译。可执行文件输出到 {@value #BUILD_DIR_NAME} 目录，
+     * 编译时把 C++ Plugins 目录加入头文件搜索路径，子目录中的插件同样可以包含 tranforcpp_api.h。
+     *
+     * @return 插件名到可执行文件的映射（按插件名排序），编译失败的插件不在其中
+     */
+    public Map<String, File> compileEach(File cppDir) {
+        Map<String, List<File>> units = findPluginUnits(cppDir);
+        Map<String, File> executables = new TreeMap<>();
+        if (units.isEmpty()) {
+            return executables;
+        }
+
+        String os = System.getProperty("os.name").toLowerCase();
+        boolean isWindows = os.contains("win");
+        String compiler = detectCompiler(isWindows);
+        if (compiler == null) {
+            if (!errorAlreadyShown) {
+                logMissingCompilerError();
+                errorAlreadyShown = true;
+            }
+            compilerChecked = false;
+            return executables;
         }
 
-        List<String> command = buildCompileCommand(compiler, outputFile, cppFiles, isWindows);
+        File buildDir = new File(cppDir, BUILD_DIR_NAME);
+        if (!buildDir.isDirectory() && !buildDir.mkdirs()) {
+            TranforCPlusPlus.getInstance().getLogger().severe("Failed to create build directory: " + buildDir.getAbsolutePath());
+            return executables;
+        }
+        for (Map.Entry<String, List<File>> unit : units.entrySet()) {
+            String fileName = unit.getKey() + outputSuffix;
+            File outputFile = new File(buildDir, isWindows ? fileName + ".exe" : fileName);
+            File executable = runCompiler(compiler, outputFile, unit.getValue(), cppDir, isWindows);
+            if (executable != null) {
+                executables.put(unit.getKey(), executable);
+            } else {
+                TranforCPlusPlus.getInstance().getLogger().severe("C++ plugin " + unit.getKey() + " was not compiled and will not start");
+            }
+        }
+        return executables;
+    }
+
+    /**
+     * 按插件分组源文件，插件名只保留字母、数字、点、下划线和连字符，用于可执行文件名与传输文件名
+     */
+    private Map<String, List<File>> findPluginUnits(File cppDir) {
+        Map<String, List<File>> units = new TreeMap<>();
+        for (File file : findCppFiles(cppDir)) {
+            String fileName = file.getName();
+            units.put(pluginName(fileName.substring(0, fileName.length() - ".cpp".length())), List.of(file));
+        }
+        File[] dirs = cppDir.listFiles(File::isDirectory);
+        if (dirs != null) {
+            for (File dir : dirs) {
+                if (dir.getName().startsWith(".")) {
+                    continue;
+                }
+                List<File> sources = findCppFiles(dir);
+                if (sources.isEmpty()) {
+                    continue;
+                }
+                String name = pluginName(dir.getName());
+                if (units.putIfAbsent(name, sources) != null) {
+                    TranforCPlusPlus.getInstance().getLogger().warning("Skipping C++ plugin directory " + dir.getName()
+                            + ": a plugin named " + name + " already exists");
+                }
+            }
+        }
+        return units;
+    }
+
+    private static String pluginName(String raw) {
+        String name = raw.replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.isEmpty() || name.startsWith(".") ? "_" + name : name;
+    }
+
+    private File runCompiler(String compiler, File outputFile, List<File> cppFiles, File includeDir, boolean isWindows) {
+        List<String> command = buildCompileCommand(compiler, outputFile, cppFiles, includeDir, isWindows);
 
         try {
             ProcessBuilder pb = new ProcessBuilder(command);
@@ -176,10 +274,15 @@ public class CppCompiler {
     /**
      * 构建编译命令
      */
-    private List<String> buildCompileCommand(String compiler, File outputFile, List<File> cppFiles, boolean isWindows) {
+    private List<String> buildCompileCommand(String compiler, File outputFile, List<File> cppFiles, File includeDir, boolean isWindows) {
         List<String> command = new ArrayList<>();
         command.add(compiler);
         command.add("-std=c++17");
+
+        if (includeDir != null) {
+            command.add("-I");
+            command.add(includeDir.getAbsolutePath());
+        }
         
         if (!isWindows) {
             command.add("-pthread");
@@ -191,6 +294,11 @@ public class CppCompiler {
         for (File cppFile : cppFiles) {
             command.add(cppFile.getAbsolutePath());
         }
+
+        // tranforcpp_api.h 的套接字传输依赖 Winsock
+        if (isWindows && !compiler.equals("cl.exe")) {
+            command.add("-lws2_32");
+        }
         return command;
     }
     
@@ -0,0 +1,174 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.utils.FoliaCompatUtil;
+import com.github.tranforcpp.utils.RateLimitedLogger;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 按tick时间预算执行C++动作
+ * <p>
+ * 读取线程解析动作后把需要访问服务器状态的部分（发送消息、执行指令等）提交到这里，
+ * 每个tick在服务器线程上执行队列中的动作，直到用完 actions.tick-budget-ms，
+ * 剩余的动作留到下一个tick，因此C++进程一次发送大量动作也不会拖长单个tick。
+ * <p>
+ * 主要功能：
+ * - Paper上在主线程执行，Folia上在全局区域线程执行，针对玩家的动作再转交给玩家所在区域的线程
+ * - 每个tick至少执行一个动作，保证队列总能前进
+ * - 队列有上限，超出的动作被拒绝并计数
+ * - 统计队列深度、峰值、执行数以及有剩余动作留到下一tick的次数
+ */
+public final class ActionExecutor {
+
+    private static final long REJECT_LOG_INTERVAL_SECONDS = 5;
+
+    private final Plugin plugin;
+    private final long budgetNanos;
+    private final int maxQueued;
+    private final Logger logger;
+    private final RateLimitedLogger rejectLogger;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder carryOverTicks = new LongAdder();
+    private final AtomicLong maxTickNanos = new AtomicLong();
+    private volatile FoliaCompatUtil.TaskHandle task;
+
+    public ActionExecutor(Plugin plugin, long budgetNanos, int maxQueued, Logger logger) {
+        this.plugin = plugin;
+        this.budgetNanos = Math.max(0, budgetNanos);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.logger = logger;
+        this.rejectLogger = new RateLimitedLogger(logger, REJECT_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void start() {
+        if (task == null) {
+            task = FoliaCompatUtil.runSyncTaskTimer(plugin, this::drain, 1L, 1L);
+        }
+    }
+
+    /**
+     * 停止执行并丢弃队列中剩余的动作，返回丢弃的数量
+     */
+    public synchronized int stop() {
+        FoliaCompatUtil.TaskHandle current = task;
+        task = null;
+        if (current != null) {
+            current.cancel();
+        }
+        int dropped = 0;
+        while (queue.poll() != null) {
+            dropped++;
+        }
+        depth.set(0);
+        return dropped;
+    }
+
+    /**
+     * 提交一个动作，可在任意线程上调用；队列已满时丢弃动作并返回false
+     *
+     * @param actionName 动作名，只用于队列已满时的日志
+     */
+    public boolean submit(String actionName, Runnable action) {
+        int queued = depth.incrementAndGet();
+        if (queued > maxQueued) {
+            depth.decrementAndGet();
+            rejected.increment();
+            rejectLogger.warning("C++ action queue full, dropped action: ", actionName);
+            return false;
+        }
+        queue.add(action);
+        int peak = peakDepth.get();
+        while (queued > peak && !peakDepth.compareAndSet(peak, queued)) {
+            peak = peakDepth.get();
+        }
+        return true;
+    }
+
+    /**
+     * 在拥有该实体的线程上执行针对实体的操作，只能在本执行器执行的动作中调用：
+     * Paper上直接执行，Folia上转交给实体所在区域的线程，实体已被移除时不执行
+     */
+    public void runFor(Entity entity, Runnable action) {
+        if (FoliaCompatUtil.isFolia()) {
+            FoliaCompatUtil.runEntityTask(plugin, entity, () -> run(action), () -> { });
+        } else {
+            run(action);
+        }
+    }
+
+    private void drain() {
+        long start = System.nanoTime();
+        Runnable action;
+        // 先执行再检查预算，每个tick至少执行一个动作
+        while ((action = queue.poll()) != null) {
+            depth.decrementAndGet();
+            run(action);
+            if (System.nanoTime() - start >= budgetNanos) {
+                break;
+            }
+        }
+        if (depth.get() > 0) {
+            carryOverTicks.increment();
+        }
+        long elapsed = System.nanoTime() - start;
+        long max = maxTickNanos.get();
+        while (elapsed > max && !maxTickNanos.compareAndSet(max, elapsed)) {
+            max = maxTickNanos.get();
+        }
+    }
+
+    private void run(Runnable action) {
+        try {
+            action.run();
+            executed.increment();
+        } catch (Exception e) {
+            logger.warning("Error executing C++ action: " + e.getMessage());
+        }
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakDepth.get();
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 执行完预算后队列中仍有剩余动作的tick数
+     */
+    public long getCarryOverTicks() {
+        return carryOverTicks.sum();
+    }
+
+    /**
+     * 单个tick中执行动作花费的最长时间
+     */
+    public long getMaxTickNanos() {
+        return maxTickNanos.get();
+    }
+}
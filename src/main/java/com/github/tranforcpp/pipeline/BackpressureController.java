@@ -0,0 +1,239 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.utils.RateLimitedLogger;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * 按事件类型的背压控制
+ * <p>
+ * 事件进入事件环之前先经过这里，按事件名选择 {@link BackpressurePolicy}。
+ * 非阻塞策略的事件只能使用队列容量的高水位以下部分，剩余空间留给阻塞策略的关键事件，
+ * 因此 PlayerMove 之类的高频事件再多也不会挤掉 PlayerJoin、PlayerDeath。
+ * <p>
+ * 主要特性：
+ * - 每种事件单独统计接收、丢弃、合并与阻塞等待次数
+ * - 丢弃日志限速输出，高负载时不会刷屏
+ * - 未配置的事件使用默认策略，首次出现时创建统计项
+ */
+public final class BackpressureController {
+
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    private static final long DROP_LOG_INTERVAL_SECONDS = 5;
+
+    private final EventRing ring;
+    private final CoalescingBuffer coalescer;
+    private final Map<String, BackpressurePolicy> configuredPolicies;
+    private final BackpressurePolicy defaultPolicy;
+    private final int highWater;
+    private final long blockTimeoutNanos;
+    private final RateLimitedLogger dropLogger;
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private volatile Channel[] channelsByTag = new Channel[1];
+    private volatile boolean paused;
+
+    /**
+     * @param policies         按事件名配置的策略
+     * @param highWaterPercent 非阻塞策略可使用的队列容量百分比
+     * @param blockTimeoutMs   阻塞策略等待空位的最长时间
+     */
+    public BackpressureController(EventRing ring, Map<String, BackpressurePolicy> policies,
+                                  BackpressurePolicy defaultPolicy, int highWaterPercent,
+                                  long blockTimeoutMs, Logger logger) {
+        this.ring = ring;
+        this.coalescer = new CoalescingBuffer(ring);
+        this.configuredPolicies = Map.copyOf(policies);
+        this.defaultPolicy = defaultPolicy;
+        int percent = Math.max(1, Math.min(100, highWaterPercent));
+        this.highWater = Math.max(1, (int) ((long) ring.getCapacity() * percent / 100));
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, blockTimeoutMs));
+        this.dropLogger = new RateLimitedLogger(logger, DROP_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 返回事件对应的通道，首次出现时按配置创建
+     */
+    public Channel channel(String eventName) {
+        Channel channel = channels.get(eventName);
+        return channel != null ? channel : channels.computeIfAbsent(eventName, this::createChannel);
+    }
+
+    /**
+     * 按通道的策略提交一条已编码的事件，返回事件是否被接收（合并也视为接收）
+     *
+     * @param key      合并键（通常是玩家UUID），可以为null
+     * @param sequence 按玩家分配的序号，0表示未编号
+     */
+    public boolean submit(Channel channel, UUID key, byte[] data, int length, int sequence) {
+        switch (channel.policy) {
+            case COALESCE -> {
+                // 新的待写出条目在事件环中占一个标记，按事件环的唤醒阈值计入批次大小
+                if (coalescer.put(channel.eventName, key, data, length)) {
+                    channel.coalesced.increment();
+                }
+                channel.accepted.increment();
+                return true;
+            }
+            case DROP_NEWEST -> {
+                if (ring.size() < highWater && ring.offer(data, 0, length, sequence, 0)) {
+                    channel.accepted.increment();
+                    return true;
+                }
+            }
+            case DROP_OLDEST -> {
+                if (ring.size() >= highWater) {
+                    evictOldest();
+                }
+                if (ring.size() < highWater && ring.offer(data, 0, length, sequence, channel.tag)) {
+                    channel.accepted.increment();
+                    return true;
+                }
+            }
+            case BLOCK -> {
+                if (offerBlocking(channel, data, length, sequence)) {
+                    channel.accepted.increment();
+                    return true;
+                }
+            }
+        }
+        channel.dropped.increment();
+        dropLogger.warning("消息队列已满，丢弃事件: ", channel.eventName);
+        return false;
+    }
+
+    private void evictOldest() {
+        int tag = ring.discardOldest();
+        if (tag > 0) {
+            Channel[] byTag = channelsByTag;
+            if (tag < byTag.length && byTag[tag] != null) {
+                byTag[tag].dropped.increment();
+            }
+        }
+    }
+
+    private boolean offerBlocking(Channel channel, byte[] data, int length, int sequence) {
+        if (ring.offer(data, 0, length, sequence, 0)) {
+            return true;
+        }
+        if (paused) {
+            // 没有写线程在消费，等待也不会腾出空位
+            return false;
+        }
+        channel.blocked.increment();
+        ring.wakeConsumer();
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (ring.offer(data, 0, length, sequence, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 丢弃某个玩家尚未写出的合并事件（玩家退出时）
+     */
+    public void forget(UUID key) {
+        coalescer.forget(key);
+    }
+
+    /**
+     * C++进程退出等待重启期间暂停：阻塞策略的事件在队列已满时直接丢弃，不在服务器线程上等待
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    /**
+     * 丢弃所有积压的事件，调用时写线程应已停止
+     */
+    public void clear() {
+        ring.clear();
+        coalescer.clear();
+    }
+
+    public CoalescingBuffer getCoalescingBuffer() {
+        return coalescer;
+    }
+
+    public Collection<Channel> getChannels() {
+        return Collections.unmodifiableCollection(channels.values());
+    }
+
+    public int getHighWater() {
+        return highWater;
+    }
+
+    private synchronized Channel createChannel(String eventName) {
+        Channel[] current = channelsByTag;
+        Channel channel = new Channel(eventName,
+                configuredPolicies.getOrDefault(eventName, defaultPolicy), current.length);
+        Channel[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[channel.tag] = channel;
+        channelsByTag = updated;
+        return channel;
+    }
+
+    /**
+     * 单个事件类型的策略与统计
+     */
+    public static final class Channel {
+        private final String eventName;
+        private final BackpressurePolicy policy;
+        private final int tag;
+        private final LongAdder accepted = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder coalesced = new LongAdder();
+        private final LongAdder blocked = new LongAdder();
+
+        private Channel(String eventName, BackpressurePolicy policy, int tag) {
+            this.eventName = eventName;
+            this.policy = policy;
+            this.tag = tag;
+        }
+
+        public String getEventName() {
+            return eventName;
+        }
+
+        public BackpressurePolicy getPolicy() {
+            return policy;
+        }
+
+        public long getAcceptedCount() {
+            return accepted.sum();
+        }
+
+        /**
+         * 被丢弃的数量，包括入队被拒绝的新事件和为其他事件腾出位置而被丢弃的旧事件
+         */
+        public long getDroppedCount() {
+            return dropped.sum();
+        }
+
+        /**
+         * 被同一玩家的新事件覆盖而没有写出的数量
+         */
+        public long getCoalescedCount() {
+            return coalesced.sum();
+        }
+
+        /**
+         * 队列已满、不得不等待空位的次数
+         */
+        public long getBlockedCount() {
+            return blocked.sum();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.tranforcpp.pipeline;
+
+import java.util.Locale;
+
+/**
+ * 事件积压时的处理策略
+ * <p>
+ * 通过config.yml中的 pipeline.backpressure 按事件类型配置。
+ * <p>
+ * 支持的策略：
+ * - DROP_NEWEST: 队列超过高水位时丢弃新事件（默认）
+ * - DROP_OLDEST: 队列超过高水位时丢弃队首可丢弃的旧事件，为新事件腾出位置
+ * - COALESCE: 同一事件、同一玩家只保留最新一条，不占用事件环
+ * - BLOCK: 关键事件，不受高水位限制，队列已满时在超时时间内等待空位
+ */
+public enum BackpressurePolicy {
+    DROP_NEWEST("drop-newest"),
+    DROP_OLDEST("drop-oldest"),
+    COALESCE("coalesce"),
+    BLOCK("block");
+
+    private final String configName;
+
+    BackpressurePolicy(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static BackpressurePolicy fromConfig(String value, BackpressurePolicy defaultPolicy) {
+        if (value != null) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            for (BackpressurePolicy policy : values()) {
+                if (policy.configName.equals(normalized)) {
+                    return policy;
+                }
+            }
+        }
+        return defaultPolicy;
+    }
+}
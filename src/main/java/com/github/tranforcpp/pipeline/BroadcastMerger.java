@@ -0,0 +1,72 @@
+package com.github.tranforcpp.pipeline;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并分片进程发出的重复广播
+ * <p>
+ * 同一个C++插件以多个分片运行时，每个分片执行同一份代码，定时公告等与玩家无关的广播会被每个分片各发一次。
+ * 本类记录每个插件最近发出的广播（动作名、目标与消息内容），时间窗口内其他分片发出的相同广播被丢弃，
+ * 只有第一个分片的那一条会被执行。同一个分片重复发送的广播不受影响。
+ * <p>
+ * 主要功能：
+ * - 按插件、动作与内容识别重复广播，窗口为 processes.broadcast-merge-ms，0表示不合并
+ * - 记录数超过上限时清理窗口外的记录
+ * - 统计被合并的广播数
+ */
+public final class BroadcastMerger {
+
+    private static final int PRUNE_THRESHOLD = 1024;
+
+    private final long windowNanos;
+    private final Map<String, Recent> recent = new ConcurrentHashMap<>();
+    private final LongAdder merged = new LongAdder();
+
+    public BroadcastMerger(long windowNanos) {
+        this.windowNanos = Math.max(0, windowNanos);
+    }
+
+    /**
+     * 在读取线程上调用，返回false表示另一个分片刚刚发出过相同的广播，这一条应被丢弃
+     *
+     * @param plugin  插件名，单进程模式下为null
+     * @param shard   发出广播的分片序号
+     * @param content 动作名与参数拼接成的内容
+     */
+    public boolean accept(String plugin, int shard, String content) {
+        if (windowNanos == 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        String key = plugin != null ? plugin + '\u0000' + content : content;
+        Recent previous = recent.get(key);
+        if (previous != null && previous.shard != shard && now - previous.nanos < windowNanos) {
+            merged.increment();
+            return false;
+        }
+        recent.put(key, new Recent(shard, now));
+        if (recent.size() > PRUNE_THRESHOLD) {
+            prune(now);
+        }
+        return true;
+    }
+
+    private void prune(long now) {
+        Iterator<Recent> iterator = recent.values().iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().nanos >= windowNanos) {
+                iterator.remove();
+            }
+        }
+    }
+
+    public long getMergedCount() {
+        return merged.sum();
+    }
+
+    private record Recent(int shard, long nanos) {
+    }
+}
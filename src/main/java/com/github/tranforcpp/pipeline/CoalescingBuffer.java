@@ -0,0 +1,169 @@
+package com.github.tranforcpp.pipeline;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按键合并的事件缓冲区
+ * <p>
+ * 使用合并策略的事件的数据不进入事件环，而是按（事件名, 玩家UUID）保存最新一条已编码的数据。
+ * 条目从"已写出"变为"待写出"时在事件环中放入一个占位标记（{@link EventRing#offerMarker(Object)}），
+ * 写线程取到标记时写出该条目此刻的最新数据。写出之前到达的新事件直接覆盖旧事件，
+ * 因此高频事件（如 PlayerMove）无论产生多快，每个玩家每批最多只占用一条，
+ * 且仍排在同一玩家之后入队的事件之前（如先移动后破坏方块时，移动先写出）。
+ * <p>
+ * 主要特性：
+ * - 每个键的缓冲区在首次使用时分配，之后原地覆盖
+ * - 只有从"已写出"变为"待写出"的条目才会放入标记；事件环已满时改为进入溢出队列，在本批事件环事件之后写出
+ * - 合并的事件不编号
+ */
+public final class CoalescingBuffer {
+
+    private static final UUID NO_KEY = new UUID(0L, 0L);
+    private static final int INITIAL_ENTRY_SIZE = 128;
+
+    private final EventRing ring;
+    private final Map<String, Map<UUID, Entry>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> dirty = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    // 只在写线程上使用
+    private byte[] scratch = new byte[INITIAL_ENTRY_SIZE];
+
+    /**
+     * @param ring 放入占位标记的事件环，即同一进程的事件环
+     */
+    public CoalescingBuffer(EventRing ring) {
+        this.ring = ring;
+    }
+
+    /**
+     * 生产者：保存一条事件，返回true表示覆盖了一条尚未写出的旧事件
+     *
+     * @param key 合并键（通常是玩家UUID），为null时同名事件全部合并为一条
+     */
+    public boolean put(String eventName, UUID key, byte[] data, int length) {
+        Map<UUID, Entry> byKey = entries.get(eventName);
+        if (byKey == null) {
+            byKey = entries.computeIfAbsent(eventName, name -> new ConcurrentHashMap<>());
+        }
+        UUID entryKey = key != null ? key : NO_KEY;
+        Entry entry = byKey.get(entryKey);
+        if (entry == null) {
+            entry = byKey.computeIfAbsent(entryKey, k -> new Entry());
+        }
+        synchronized (entry) {
+            if (entry.data.length < length) {
+                entry.data = new byte[Math.max(length, entry.data.length * 2)];
+            }
+            System.arraycopy(data, 0, entry.data, 0, length);
+            entry.length = length;
+            if (entry.pending) {
+                return true;
+            }
+            entry.pending = true;
+        }
+        pending.incrementAndGet();
+        if (!ring.offerMarker(entry)) {
+            dirty.add(entry);
+        }
+        return false;
+    }
+
+    /**
+     * 写线程：事件环中取到 {@link #put} 放入的占位标记时调用，把该条目的最新数据交给 consumer，返回是否写出
+     */
+    public boolean write(Object marker, EventRing.SlotConsumer consumer) throws IOException {
+        return marker instanceof Entry entry && write(entry, consumer);
+    }
+
+    /**
+     * 写线程：依次把溢出队列中最多 limit 条待写出的事件交给 consumer，返回写出的数量
+     */
+    public int drain(EventRing.SlotConsumer consumer, int limit) throws IOException {
+        int count = 0;
+        Entry entry;
+        while (count < limit && (entry = dirty.poll()) != null) {
+            if (write(entry, consumer)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private boolean write(Entry entry, EventRing.SlotConsumer consumer) throws IOException {
+        int length;
+        synchronized (entry) {
+            if (!entry.pending) {
+                // 已被 forget 丢弃，或已经通过另一个标记写出
+                return false;
+            }
+            entry.pending = false;
+            length = entry.length;
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            System.arraycopy(entry.data, 0, scratch, 0, length);
+        }
+        pending.decrementAndGet();
+        consumer.accept(scratch, 0, length, 0);
+        return true;
+    }
+
+    /**
+     * 占位标记随过期的积压一起被丢弃时（见 {@link EventRing#discardOlderThan(long, java.util.function.Consumer)}）
+     * 把条目放入溢出队列，条目本身是最新状态，仍要写出
+     */
+    public void requeue(Object marker) {
+        if (marker instanceof Entry entry) {
+            dirty.add(entry);
+        }
+    }
+
+    /**
+     * 丢弃某个键的所有条目（例如玩家退出时），返回其中尚未写出的数量
+     */
+    public int forget(UUID key) {
+        int discarded = 0;
+        for (Map<UUID, Entry> byKey : entries.values()) {
+            Entry entry = byKey.remove(key);
+            if (entry == null) {
+                continue;
+            }
+            synchronized (entry) {
+                if (entry.pending) {
+                    entry.pending = false;
+                    pending.decrementAndGet();
+                    discarded++;
+                }
+            }
+        }
+        return discarded;
+    }
+
+    /**
+     * 丢弃所有条目，调用时写线程应已停止；事件环中的标记随事件环一起清空
+     */
+    public void clear() {
+        entries.clear();
+        dirty.clear();
+        pending.set(0);
+    }
+
+    /**
+     * 待写出的条目数
+     */
+    public int size() {
+        return pending.get();
+    }
+
+    private static final class Entry {
+        private byte[] data = new byte[INITIAL_ENTRY_SIZE];
+        private int length;
+        private boolean pending;
+    }
+}
@@ -0,0 +1,181 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.protocol.EventEncoder;
+import com.github.tranforcpp.protocol.WireFormat;
+import com.github.tranforcpp.utils.FoliaCompatUtil;
+import com.github.tranforcpp.utils.RateLimitedLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * C++进程发送的控制台指令队列
+ * <p>
+ * executeCommand 与 dispatchCommand 动作在读取线程上进入队列，每个tick在服务器线程上
+ * （Paper为主线程，Folia为全局区域线程）按顺序执行至多 actions.commands.max-per-tick 条，
+ * 剩余的指令留到下一个tick。指令可能触发任意插件的逻辑，耗时无法预估，因此按条数而不是按时间限流。
+ * <p>
+ * 主要功能：
+ * - 队列有上限，超出的指令被拒绝
+ * - 带请求ID的指令（dispatchCommand 的 sync 为 true）执行后以响应帧把结果回报给发送指令的C++进程，
+ *   被拒绝的指令同样会收到响应
+ * - 统计执行、失败、拒绝的指令数与队列峰值
+ */
+public final class CommandPipeline {
+
+    /** 指令执行成功 */
+    public static final int STATUS_OK = 0;
+    /** 指令不存在或执行器返回 false */
+    public static final int STATUS_FAILED = 1;
+    /** 执行指令时抛出异常 */
+    public static final int STATUS_ERROR = 2;
+    /** 队列已满，指令未执行 */
+    public static final int STATUS_REJECTED = 3;
+
+    private static final long REJECT_LOG_INTERVAL_SECONDS = 5;
+
+    private final Plugin plugin;
+    private final int maxPerTick;
+    private final int maxQueued;
+    private final WireFormat format;
+    private final Logger logger;
+    private final RateLimitedLogger rejectLogger;
+    private final Queue<PendingCommand> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicInteger peakDepth = new AtomicInteger();
+    private final LongAdder executed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder unsent = new LongAdder();
+    private volatile FoliaCompatUtil.TaskHandle task;
+
+    public CommandPipeline(Plugin plugin, int maxPerTick, int maxQueued, WireFormat format, Logger logger) {
+        this.plugin = plugin;
+        this.maxPerTick = Math.max(1, maxPerTick);
+        this.maxQueued = Math.max(1, maxQueued);
+        this.format = format;
+        this.logger = logger;
+        this.rejectLogger = new RateLimitedLogger(logger, REJECT_LOG_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    public synchronized void start() {
+        if (task == null) {
+            task = FoliaCompatUtil.runSyncTaskTimer(plugin, this::drain, 1L, 1L);
+        }
+    }
+
+    /**
+     * 停止执行并丢弃队列中剩余的指令，返回丢弃的数量；进程正在停止，不再回报结果
+     */
+    public synchronized int stop() {
+        FoliaCompatUtil.TaskHandle current = task;
+        task = null;
+        if (current != null) {
+            current.cancel();
+        }
+        int dropped = 0;
+        while (queue.poll() != null) {
+            dropped++;
+        }
+        depth.set(0);
+        return dropped;
+    }
+
+    /**
+     * 把指令加入队列，可在任意线程上调用
+     *
+     * @param requestId C++进程分配的请求ID，非0时执行后回报结果
+     * @param replyTo   发送指令的进程的事件环，结果写入这里
+     * @return 队列已满时返回false
+     */
+    public boolean submit(String command, int requestId, EventRing replyTo) {
+        int queued = depth.incrementAndGet();
+        if (queued > maxQueued) {
+            depth.decrementAndGet();
+            rejected.increment();
+            rejectLogger.warning("C++ command queue full, dropped command: ", command);
+            respond(replyTo, requestId, STATUS_REJECTED);
+            return false;
+        }
+        queue.add(new PendingCommand(command, requestId, replyTo));
+        int peak = peakDepth.get();
+        while (queued > peak && !peakDepth.compareAndSet(peak, queued)) {
+            peak = peakDepth.get();
+        }
+        return true;
+    }
+
+    private void drain() {
+        PendingCommand command;
+        for (int i = 0; i < maxPerTick && (command = queue.poll()) != null; i++) {
+            depth.decrementAndGet();
+            respond(command.replyTo, command.requestId, execute(command.command));
+        }
+    }
+
+    private int execute(String command) {
+        try {
+            if (Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command)) {
+                executed.increment();
+                return STATUS_OK;
+            }
+            failed.increment();
+            return STATUS_FAILED;
+        } catch (Exception e) {
+            failed.increment();
+            logger.warning("执行命令失败: " + e.getMessage());
+            return STATUS_ERROR;
+        }
+    }
+
+    private void respond(EventRing ring, int requestId, int status) {
+        if (requestId == 0) {
+            return;
+        }
+        EventEncoder encoder = new EventEncoder().beginResponse(format, requestId).int32(status).end();
+        // 与查询响应一样不经过背压策略：C++进程在等待这个结果
+        if (!ring.offer(encoder.array(), 0, encoder.length())) {
+            unsent.increment();
+            logger.warning("Event ring full, dropped result of command request " + Integer.toUnsignedString(requestId));
+            return;
+        }
+        ring.wakeConsumer();
+    }
+
+    public int getMaxPerTick() {
+        return maxPerTick;
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public int getPeakQueueDepth() {
+        return peakDepth.get();
+    }
+
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    public long getUnsentCount() {
+        return unsent.sum();
+    }
+
+    private record PendingCommand(String command, int requestId, EventRing replyTo) {
+    }
+}
@@ -0,0 +1,202 @@
+package com.github.tranforcpp.pipeline;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.EntityType;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * C++进程下发的事件过滤条件
+ * <p>
+ * 表达式由分号分隔的若干条件组成，全部成立时事件才会发送；每个条件为 {@code 键=值1,值2} 或 {@code 键!=值1,值2}，
+ * 值中可以使用 {@code *} 通配符。编译时材料与实体类型的通配符会展开为 {@link EnumSet}，
+ * 因此监听器中的判断只是几次集合查找，在事件被编码之前完成。
+ * <p>
+ * 支持的键：
+ * - material: 方块或物品材料，如 {@code material=*_ORE,ANCIENT_DEBRIS}
+ * - entity: 实体类型，如 {@code entity=ZOMBIE,SKELETON,CREEPER}
+ * - world: 世界名，如 {@code world!=world_the_end}
+ * - permission: 事件相关的玩家（或指令发送者）拥有其中任一权限
+ * <p>
+ * 事件没有某个属性（例如 EntitySpawn 没有玩家）时，与该属性有关的条件不成立。
+ */
+public final class EventFilter {
+
+    private final String expression;
+    private EnumSet<Material> materials;
+    private boolean materialsNegated;
+    private EnumSet<EntityType> entityTypes;
+    private boolean entityTypesNegated;
+    private NameMatcher worlds;
+    private boolean worldsNegated;
+    private String[] permissions;
+    private boolean permissionsNegated;
+
+    private EventFilter(String expression) {
+        this.expression = expression;
+    }
+
+    /**
+     * 编译过滤表达式，表达式不合法时抛出 IllegalArgumentException
+     */
+    public static EventFilter compile(String expression) {
+        EventFilter filter = new EventFilter(expression.trim());
+        Set<String> seenKeys = new HashSet<>();
+        for (String clause : expression.split(";")) {
+            String trimmed = clause.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int operator = trimmed.indexOf('=');
+            if (operator <= 0) {
+                throw new IllegalArgumentException("Expected key=value in filter clause: " + trimmed);
+            }
+            boolean negated = trimmed.charAt(operator - 1) == '!';
+            String key = trimmed.substring(0, negated ? operator - 1 : operator).trim().toLowerCase(Locale.ROOT);
+            List<String> values = splitValues(trimmed.substring(operator + 1));
+            if (values.isEmpty()) {
+                throw new IllegalArgumentException("Filter clause has no values: " + trimmed);
+            }
+            if (!seenKeys.add(key)) {
+                throw new IllegalArgumentException("Duplicate filter key: " + key);
+            }
+            switch (key) {
+                case "material" -> {
+                    filter.materials = expand(Material.class, values);
+                    filter.materialsNegated = negated;
+                }
+                case "entity" -> {
+                    filter.entityTypes = expand(EntityType.class, values);
+                    filter.entityTypesNegated = negated;
+                }
+                case "world" -> {
+                    filter.worlds = new NameMatcher(values);
+                    filter.worldsNegated = negated;
+                }
+                case "permission" -> {
+                    filter.permissions = values.toArray(new String[0]);
+                    filter.permissionsNegated = negated;
+                }
+                default -> throw new IllegalArgumentException("Unknown filter key: " + key);
+            }
+        }
+        if (seenKeys.isEmpty()) {
+            throw new IllegalArgumentException("Empty filter expression");
+        }
+        return filter;
+    }
+
+    /**
+     * 判断事件是否满足过滤条件
+     *
+     * @param subject    事件相关的玩家或指令发送者，可以为null
+     * @param world      事件所在的世界，可以为null
+     * @param material   事件涉及的方块或物品材料，可以为null
+     * @param entityType 事件涉及的实体类型，可以为null
+     */
+    public boolean test(CommandSender subject, World world, Material material, EntityType entityType) {
+        if (materials != null && (material == null || materials.contains(material) == materialsNegated)) {
+            return false;
+        }
+        if (entityTypes != null && (entityType == null || entityTypes.contains(entityType) == entityTypesNegated)) {
+            return false;
+        }
+        if (worlds != null && (world == null || worlds.matches(world.getName()) == worldsNegated)) {
+            return false;
+        }
+        return permissions == null || (subject != null && hasAnyPermission(subject) != permissionsNegated);
+    }
+
+    private boolean hasAnyPermission(CommandSender subject) {
+        for (String permission : permissions) {
+            if (subject.hasPermission(permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    private static List<String> splitValues(String values) {
+        List<String> result = new ArrayList<>();
+        for (String value : values.split(",")) {
+            String trimmed = value.trim();
+            if (!trimmed.isEmpty()) {
+                result.add(trimmed);
+            }
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> EnumSet<E> expand(Class<E> type, List<String> values) {
+        EnumSet<E> result = EnumSet.noneOf(type);
+        for (String value : values) {
+            String normalized = value.toUpperCase(Locale.ROOT);
+            Pattern pattern = globToPattern(normalized);
+            boolean matched = false;
+            for (E constant : type.getEnumConstants()) {
+                if (pattern.matcher(constant.name()).matches()) {
+                    result.add(constant);
+                    matched = true;
+                }
+            }
+            if (!matched) {
+                throw new IllegalArgumentException("No " + type.getSimpleName() + " matches: " + value);
+            }
+        }
+        return result;
+    }
+
+    private static Pattern globToPattern(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int start = 0;
+        int star;
+        while ((star = glob.indexOf('*', start)) >= 0) {
+            regex.append(Pattern.quote(glob.substring(start, star))).append(".*");
+            start = star + 1;
+        }
+        regex.append(Pattern.quote(glob.substring(start)));
+        return Pattern.compile(regex.toString());
+    }
+
+    /**
+     * 世界名在运行时才确定，精确名称用集合查找，带通配符的名称用正则匹配
+     */
+    private static final class NameMatcher {
+        private final Set<String> exact = new HashSet<>();
+        private final List<Pattern> patterns = new ArrayList<>();
+
+        private NameMatcher(List<String> values) {
+            for (String value : values) {
+                if (value.indexOf('*') >= 0) {
+                    patterns.add(globToPattern(value));
+                } else {
+                    exact.add(value);
+                }
+            }
+        }
+
+        private boolean matches(String name) {
+            if (exact.contains(name)) {
+                return true;
+            }
+            for (Pattern pattern : patterns) {
+                if (pattern.matcher(name).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.tranforcpp.pipeline;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按事件名保存的过滤条件
+ * <p>
+ * 过滤条件由C++进程在运行时下发（filter 动作），监听器在编码事件之前查询，
+ * 没有过滤条件的事件只多一次哈希查找。
+ */
+public final class EventFilters {
+
+    private final Map<String, EventFilter> filters = new ConcurrentHashMap<>();
+
+    /**
+     * 返回事件的过滤条件，没有则为null
+     */
+    public EventFilter get(String eventName) {
+        return filters.get(eventName);
+    }
+
+    /**
+     * 设置事件的过滤条件，表达式为空时移除；表达式不合法时抛出 IllegalArgumentException，原有条件保持不变
+     */
+    public EventFilter set(String eventName, String expression) {
+        if (expression == null || expression.isBlank()) {
+            filters.remove(eventName);
+            return null;
+        }
+        EventFilter filter = EventFilter.compile(expression);
+        filters.put(eventName, filter);
+        return filter;
+    }
+
+    public void clear() {
+        filters.clear();
+    }
+
+    public Map<String, EventFilter> getFilters() {
+        return Collections.unmodifiableMap(filters);
+    }
+}
@@ -0,0 +1,377 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.protocol.WireFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 事件日志
+ * <p>
+ * 按时间顺序追加记录发给C++进程的每一帧（事件、请求、响应、句柄定义）与C++进程发来的每个动作，
+ * 写入数据目录 journal/ 下的内存映射段文件，用于事故排查与离线压测（读取见 {@link JournalReader}）。
+ * <p>
+ * 记录线程（写线程、读取线程）只把记录复制进一个有界的 {@link EventRing}，不做文件IO也不分配对象；
+ * 专用的日志线程把记录写入映射的段文件。队列已满时记录被丢弃并计数，不会拖慢事件发送。
+ * <p>
+ * 段文件格式（小端序）：
+ * - 文件头 {@value #FILE_HEADER_SIZE} 字节：魔数 "TFJ1"、u16 版本、u8 编码格式（0 JSON，1 二进制）、u8 保留、
+ *   i64 段开始时间（毫秒）、u32 段序号、保留至 32 字节
+ * - 记录：u32 内容长度、u8 类型、u8 保留、u16 来源、u32 序号、i64 时间（微秒），随后是内容；长度为 0 表示段结束
+ * - 每个段开头先写出全部来源定义记录，单独一个段也能还原来源名称
+ * <p>
+ * 主要功能：
+ * - 段文件写满 journal.segment-size-mb 或使用超过 journal.rotate-minutes 后换新文件
+ * - 只保留最近 journal.max-segments 个段文件
+ * - 统计记录数、丢弃数与写入字节数
+ */
+public final class EventJournal {
+
+    /** 发给C++进程的帧，内容为线路上的原始字节（已编号事件为编号前的帧，序号在记录头） */
+    public static final int KIND_OUT = 1;
+    /** C++进程发来的动作，内容为一条完整的消息（二进制不含长度前缀，JSON不含换行） */
+    public static final int KIND_IN = 2;
+    /** 来源定义，内容为UTF-8来源名，记录头的来源字段即其编号 */
+    public static final int KIND_SOURCE = 3;
+    /** 进程生命周期标记（启动、退出、停止），内容为UTF-8文本 */
+    public static final int KIND_MARK = 4;
+
+    public static final int FILE_HEADER_SIZE = 32;
+    public static final int RECORD_HEADER_SIZE = 20;
+    public static final int MAGIC = 0x314A4654; // "TFJ1"
+    public static final int VERSION = 1;
+
+    static final String FILE_PREFIX = "journal-";
+    static final String FILE_SUFFIX = ".tfj";
+
+    private static final int BATCH = 256;
+    private static final int WAKE_THRESHOLD = 64;
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long JOIN_TIMEOUT_MS = 2000;
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final File directory;
+    private final WireFormat format;
+    private final long segmentBytes;
+    private final long rotateNanos;
+    private final int maxSegments;
+    private final Logger logger;
+    private final EventRing queue;
+    private final AtomicInteger nextSource = new AtomicInteger(1);
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final long baseMicros = TimeUnit.MILLISECONDS.toMicros(System.currentTimeMillis());
+    private final long baseNanos = System.nanoTime();
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[256]);
+
+    // 以下字段只在日志线程上使用
+    private final Map<Integer, byte[]> sourceRecords = new HashMap<>();
+    private MappedByteBuffer segment;
+    private File segmentFile;
+    private long segmentOpenedNanos;
+    private int segmentIndex;
+
+    private volatile long writtenBytes;
+    private volatile String currentFile;
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param segmentBytes 单个段文件的大小
+     * @param rotateNanos  段文件最长使用时间，0表示只按大小轮换
+     * @param maxSegments  最多保留的段文件数，0表示不限制
+     * @param queueSize    等待写入的记录上限
+     */
+    public EventJournal(File directory, WireFormat format, long segmentBytes, long rotateNanos, int maxSegments,
+                        int queueSize, Logger logger) {
+        this.directory = directory;
+        this.format = format;
+        this.segmentBytes = Math.max(FILE_HEADER_SIZE + RECORD_HEADER_SIZE + 4096, segmentBytes);
+        this.rotateNanos = Math.max(0, rotateNanos);
+        this.maxSegments = Math.max(0, maxSegments);
+        this.logger = logger;
+        this.queue = new EventRing(queueSize, WAKE_THRESHOLD);
+    }
+
+    /**
+     * 打开第一个段文件并启动日志线程
+     *
+     * @throws IOException 无法创建目录或段文件
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create journal directory: " + directory.getAbsolutePath());
+        }
+        openSegment();
+        running = true;
+        thread = new Thread(this::run, "TranforC++-Journal");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        thread.start();
+    }
+
+    /**
+     * 写完队列中剩余的记录后关闭段文件
+     */
+    public synchronized void stop() {
+        running = false;
+        Thread current = thread;
+        thread = null;
+        if (current == null) {
+            return;
+        }
+        queue.wakeConsumer();
+        try {
+            current.join(JOIN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (current.isAlive()) {
+            logger.warning("Event journal writer did not stop within " + JOIN_TIMEOUT_MS + "ms");
+        }
+    }
+
+    /**
+     * 登记一个记录来源（通常是一个C++进程实例），来源定义随后写入日志
+     */
+    public Source source(String name) {
+        Source source = new Source(nextSource.getAndIncrement() & 0xFFFF);
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        append(KIND_SOURCE, source.id, 0, bytes, 0, bytes.length);
+        return source;
+    }
+
+    /**
+     * 把记录头与内容拼接进线程本地缓冲区后放入队列，缓冲区只在需要更大空间时重新分配
+     */
+    private void append(int kind, int source, int sequence, byte[] data, int offset, int length) {
+        if (!running) {
+            return;
+        }
+        int total = RECORD_HEADER_SIZE + length;
+        byte[] buffer = scratch.get();
+        if (buffer.length < total) {
+            buffer = new byte[Math.max(total, buffer.length * 2)];
+            scratch.set(buffer);
+        }
+        long micros = baseMicros + (System.nanoTime() - baseNanos) / 1000;
+        writeRecordHeader(buffer, length, kind, source, sequence, micros);
+        System.arraycopy(data, offset, buffer, RECORD_HEADER_SIZE, length);
+        if (queue.offer(buffer, 0, total)) {
+            recorded.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    private void run() {
+        SegmentWriter writer = new SegmentWriter();
+        try {
+            while (running) {
+                int drained = queue.drain(writer, BATCH);
+                if (rotateNanos > 0 && System.nanoTime() - segmentOpenedNanos >= rotateNanos) {
+                    rotate();
+                }
+                if (drained == 0) {
+                    queue.await(IDLE_WAIT_NANOS);
+                }
+            }
+            while (queue.drain(writer, BATCH) > 0) {
+                // 停止前写完剩余记录
+            }
+        } catch (IOException e) {
+            logger.warning("Event journal stopped: " + e.getMessage());
+            running = false;
+        } finally {
+            closeSegment();
+        }
+    }
+
+    /**
+     * 日志线程：把一条记录写入当前段，放不下时先换新段
+     */
+    private final class SegmentWriter implements EventRing.SlotConsumer {
+        @Override
+        public void accept(byte[] data, int offset, int length, int sequence) throws IOException {
+            // 末尾留出4字节的结束标记
+            if (segment.position() + length > segment.capacity() - 4) {
+                rotate();
+                if (segment.position() + length > segment.capacity() - 4) {
+                    // 比整个段还大的记录
+                    dropped.increment();
+                    return;
+                }
+            }
+            segment.put(data, offset, length);
+            writtenBytes += length;
+            if (data[offset + 4] == KIND_SOURCE) {
+                sourceRecords.put(readU16(data, offset + 6), Arrays.copyOfRange(data, offset, offset + length));
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        closeSegment();
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        segmentIndex++;
+        String name = FILE_PREFIX + LocalDateTime.now().format(FILE_TIME) + "-"
+                + String.format("%04d", segmentIndex) + FILE_SUFFIX;
+        File file = new File(directory, name);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(segmentBytes);
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+        segment.order(ByteOrder.LITTLE_ENDIAN);
+        segment.putInt(MAGIC);
+        segment.putShort((short) VERSION);
+        segment.put((byte) (format == WireFormat.BINARY ? 1 : 0));
+        segment.put((byte) 0);
+        segment.putLong(System.currentTimeMillis());
+        segment.putInt(segmentIndex);
+        segment.position(FILE_HEADER_SIZE);
+        for (byte[] record : sourceRecords.values()) {
+            segment.put(record);
+        }
+        segmentFile = file;
+        segmentOpenedNanos = System.nanoTime();
+        currentFile = name;
+        pruneSegments();
+    }
+
+    /**
+     * 写入结束标记并把文件截断到实际长度（映射仍存在时截断失败的平台上保留文件原长，读取时遇到结束标记即停止）
+     */
+    private void closeSegment() {
+        MappedByteBuffer current = segment;
+        if (current == null) {
+            return;
+        }
+        segment = null;
+        int end = current.position();
+        current.putInt(0);
+        current.force();
+        try (RandomAccessFile raf = new RandomAccessFile(segmentFile, "rw")) {
+            raf.setLength(end + 4L);
+        } catch (IOException e) {
+            // 保留未截断的文件
+        }
+    }
+
+    private void pruneSegments() {
+        if (maxSegments == 0) {
+            return;
+        }
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null || files.length <= maxSegments) {
+            return;
+        }
+        // 文件名以开始时间与段序号开头，按名称排序即按时间排序
+        Arrays.sort(files, (a, b) -> a.getName().compareTo(b.getName()));
+        for (int i = 0; i < files.length - maxSegments; i++) {
+            if (!files[i].equals(segmentFile) && !files[i].delete()) {
+                logger.warning("Failed to delete old journal segment: " + files[i].getName());
+            }
+        }
+    }
+
+    private static void writeRecordHeader(byte[] target, int length, int kind, int source, int sequence, long micros) {
+        writeIntLE(target, 0, length);
+        target[4] = (byte) kind;
+        target[5] = 0;
+        target[6] = (byte) source;
+        target[7] = (byte) (source >>> 8);
+        writeIntLE(target, 8, sequence);
+        writeIntLE(target, 12, (int) micros);
+        writeIntLE(target, 16, (int) (micros >>> 32));
+    }
+
+    private static void writeIntLE(byte[] target, int index, int value) {
+        target[index] = (byte) value;
+        target[index + 1] = (byte) (value >>> 8);
+        target[index + 2] = (byte) (value >>> 16);
+        target[index + 3] = (byte) (value >>> 24);
+    }
+
+    private static int readU16(byte[] data, int index) {
+        return (data[index] & 0xFF) | (data[index + 1] & 0xFF) << 8;
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * 当前段文件名
+     */
+    public String getCurrentFile() {
+        return currentFile;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * 一个记录来源，由该来源的写线程与读取线程调用，不分配对象
+     */
+    public final class Source {
+        private final int id;
+
+        private Source(int id) {
+            this.id = id;
+        }
+
+        /**
+         * 写线程：记录一帧发给C++进程的数据
+         *
+         * @param sequence 按玩家分配的序号，0表示未编号
+         */
+        public void out(byte[] data, int offset, int length, int sequence) {
+            append(KIND_OUT, id, sequence, data, offset, length);
+        }
+
+        /**
+         * 读取线程：记录一个C++进程发来的动作
+         */
+        public void in(byte[] data, int offset, int length) {
+            append(KIND_IN, id, 0, data, offset, length);
+        }
+
+        /**
+         * 记录进程生命周期标记
+         */
+        public void mark(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            append(KIND_MARK, id, 0, bytes, 0, bytes.length);
+        }
+    }
+}
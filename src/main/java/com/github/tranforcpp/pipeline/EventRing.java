@@ -0,0 +1,420 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.utils.LatencyHistogram;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 有界无锁多生产者/单消费者事件环
+ * <p>
+ * 槽位在创建时预先分配，每个槽位持有一块可复用的字节缓冲区，生产者把已编码的事件直接复制进槽位，
+ * 稳定运行时入队不产生任何对象。并发控制采用按槽位序号的算法（Vyukov有界队列）：
+ * 生产者通过CAS抢占写位置，写完数据后以release语义发布槽位序号；消费者按序号判断槽位是否就绪。
+ * <p>
+ * 主要特性：
+ * - 入队无锁，环满时立即返回false，由调用方决定丢弃策略
+ * - 入队时可以把事件标记为可丢弃，积压时允许生产者丢弃队首的旧事件为新事件腾出位置
+ * - 可以入队不含数据的占位标记（见 {@link #offerMarker(Object)}），为内容到写出时才确定的事件保留位置
+ * - 消费者一次可以连续取出多个事件，取出时不复制数据
+ * - 消费者空闲时park，积压达到唤醒阈值时由生产者唤醒
+ * - 统计入队次数、丢弃次数、CAS竞争次数、占用量峰值以及事件在环中等待写线程取出的时间分布
+ */
+public final class EventRing {
+
+    private static final int INITIAL_SLOT_SIZE = 128;
+    // 每个序号独占一个缓存行，避免相邻槽位的生产者之间伪共享
+    private static final int SEQUENCE_STRIDE = 8;
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final byte[][] slots;
+    private final int[] lengths;
+    private final int[] sequenceNumbers;
+    private final int[] evictionTags;
+    private final long[] offerNanos;
+    private final Object[] markers;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicBoolean consuming = new AtomicBoolean();
+    private volatile int wakeThreshold;
+    private volatile Thread waiter;
+    private volatile boolean wakeRequested;
+
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final AtomicLong peakSize = new AtomicLong();
+    private final LatencyHistogram queueDelay = new LatencyHistogram();
+
+    /**
+     * @param requestedCapacity 槽位数量，会向上取整为2的幂
+     * @param wakeThreshold     积压达到该数量时唤醒等待中的消费者
+     */
+    public EventRing(int requestedCapacity, int wakeThreshold) {
+        this.capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.mask = capacity - 1;
+        this.wakeThreshold = Math.max(1, wakeThreshold);
+        this.sequences = new AtomicLongArray(capacity * SEQUENCE_STRIDE);
+        this.slots = new byte[capacity][];
+        this.lengths = new int[capacity];
+        this.sequenceNumbers = new int[capacity];
+        this.evictionTags = new int[capacity];
+        this.offerNanos = new long[capacity];
+        this.markers = new Object[capacity];
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i * SEQUENCE_STRIDE, i);
+            slots[i] = new byte[INITIAL_SLOT_SIZE];
+        }
+    }
+
+    /**
+     * 生产者：复制一个已编码的事件进环，环满时返回false
+     */
+    public boolean offer(byte[] data, int offset, int length) {
+        return offer(data, offset, length, 0, 0);
+    }
+
+    /**
+     * 生产者：复制一个已编码的事件进环
+     *
+     * @param sequenceNumber 按玩家分配的序号，0表示未编号
+     * @param evictionTag    大于0时该事件可以被 {@link #discardOldest()} 丢弃，丢弃时原样返回给调用方
+     */
+    public boolean offer(byte[] data, int offset, int length, int sequenceNumber, int evictionTag) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        int index = (int) (position & mask);
+        byte[] slot = slots[index];
+        if (slot.length < length) {
+            slot = new byte[Math.max(length, slot.length * 2)];
+            slots[index] = slot;
+        }
+        System.arraycopy(data, offset, slot, 0, length);
+        lengths[index] = length;
+        sequenceNumbers[index] = sequenceNumber;
+        evictionTags[index] = evictionTag;
+        publish(position, index);
+        return true;
+    }
+
+    /**
+     * 生产者：入队一个占位标记，环满时返回false
+     * <p>
+     * 标记不含数据，也不会被 {@link #discardOldest()} 丢弃；轮到它时交给 {@link SlotConsumer#marker(Object)}，
+     * 由消费者决定写出什么。用于合并事件：保留它首次出现时的位置，写出时再取最新内容。
+     */
+    public boolean offerMarker(Object marker) {
+        long position = claim();
+        if (position < 0) {
+            return false;
+        }
+        int index = (int) (position & mask);
+        markers[index] = marker;
+        lengths[index] = 0;
+        sequenceNumbers[index] = 0;
+        evictionTags[index] = 0;
+        publish(position, index);
+        return true;
+    }
+
+    /**
+     * 抢占一个写位置，环满时返回-1
+     */
+    private long claim() {
+        long position = tail.get();
+        while (true) {
+            int index = (int) (position & mask);
+            long sequence = sequences.getAcquire(index * SEQUENCE_STRIDE);
+            long difference = sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return position;
+                }
+                contended.increment();
+                position = tail.get();
+            } else if (difference < 0) {
+                rejected.increment();
+                return -1;
+            } else {
+                // 其他生产者已经抢占了这个位置
+                contended.increment();
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * 发布已写好的槽位，必要时唤醒消费者
+     */
+    private void publish(long position, int index) {
+        offerNanos[index] = System.nanoTime();
+        sequences.setRelease(index * SEQUENCE_STRIDE, position + 1);
+
+        offered.increment();
+        long size = position + 1 - head.get();
+        if (size > peakSize.get()) {
+            peakSize.accumulateAndGet(size, Math::max);
+        }
+        if (size >= wakeThreshold) {
+            Thread consumer = waiter;
+            if (consumer != null) {
+                LockSupport.unpark(consumer);
+            }
+        }
+    }
+
+    /**
+     * 消费者：依次把最多 limit 个已发布的事件交给 consumer，返回取出的数量
+     * <p>
+     * 同一时刻只允许一个消费者，其他线程调用时直接返回0。
+     * consumer 抛出异常时，当前事件视为已取出。
+     */
+    public int drain(SlotConsumer consumer, int limit) throws IOException {
+        if (!consuming.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long position = head.get();
+            int count = 0;
+            long now = 0;
+            while (count < limit) {
+                int index = (int) (position & mask);
+                if (sequences.getAcquire(index * SEQUENCE_STRIDE) != position + 1) {
+                    break;
+                }
+                // 一批事件共用一次取时，批内后面的事件等待写出前面事件的时间不计入
+                if (now == 0) {
+                    now = System.nanoTime();
+                }
+                queueDelay.record(now - offerNanos[index]);
+                Object marker = markers[index];
+                try {
+                    if (marker != null) {
+                        markers[index] = null;
+                        consumer.marker(marker);
+                    } else {
+                        consumer.accept(slots[index], 0, lengths[index], sequenceNumbers[index]);
+                    }
+                } finally {
+                    sequences.setRelease(index * SEQUENCE_STRIDE, position + capacity);
+                    position++;
+                    head.set(position);
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            consuming.set(false);
+        }
+    }
+
+    /**
+     * 生产者：队首事件已发布且可丢弃时将其丢弃，返回它入队时的标记，否则返回0
+     * <p>
+     * 借用消费者的位置完成，消费者正在取出事件时直接返回0（此时队列本身就在腾出空间）。
+     */
+    public int discardOldest() {
+        if (!consuming.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long position = head.get();
+            int index = (int) (position & mask);
+            if (sequences.getAcquire(index * SEQUENCE_STRIDE) != position + 1) {
+                return 0;
+            }
+            int tag = evictionTags[index];
+            if (tag <= 0) {
+                return 0;
+            }
+            sequences.setRelease(index * SEQUENCE_STRIDE, position + capacity);
+            head.set(position + 1);
+            evicted.increment();
+            return tag;
+        } finally {
+            consuming.set(false);
+        }
+    }
+
+    /**
+     * 消费者：丢弃队首入队时间早于 cutoffNanos（{@link System#nanoTime()}）的事件，返回丢弃的数量
+     * <p>
+     * 用于C++进程重启后只重放最近一段时间内的积压，调用时不应有写线程在消费。
+     *
+     * @param discardedMarkers 依次接收被丢弃的占位标记（见 {@link #offerMarker(Object)}）
+     */
+    public int discardOlderThan(long cutoffNanos, Consumer<Object> discardedMarkers) {
+        if (!consuming.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long position = head.get();
+            int count = 0;
+            while (true) {
+                int index = (int) (position & mask);
+                if (sequences.getAcquire(index * SEQUENCE_STRIDE) != position + 1
+                        || offerNanos[index] - cutoffNanos >= 0) {
+                    break;
+                }
+                Object marker = markers[index];
+                if (marker != null) {
+                    markers[index] = null;
+                    discardedMarkers.accept(marker);
+                }
+                sequences.setRelease(index * SEQUENCE_STRIDE, position + capacity);
+                position++;
+                head.set(position);
+                count++;
+            }
+            return count;
+        } finally {
+            consuming.set(false);
+        }
+    }
+
+    /**
+     * 消费者：在积压未达到唤醒阈值且没有唤醒请求时最多等待 nanos 纳秒
+     */
+    public void await(long nanos) {
+        waiter = Thread.currentThread();
+        try {
+            if (!wakeRequested && size() < wakeThreshold) {
+                LockSupport.parkNanos(this, nanos);
+            }
+        } finally {
+            waiter = null;
+            wakeRequested = false;
+        }
+    }
+
+    /**
+     * 请求消费者立即处理积压，用于定时刷新、tick结束或关闭时
+     * <p>
+     * 消费者此刻没有在等待时，请求会保留到它下一次调用 {@link #await(long)}，不会丢失。
+     */
+    public void wakeConsumer() {
+        wakeRequested = true;
+        Thread consumer = waiter;
+        if (consumer != null) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    public int getWakeThreshold() {
+        return wakeThreshold;
+    }
+
+    public void setWakeThreshold(int wakeThreshold) {
+        this.wakeThreshold = Math.max(1, Math.min(wakeThreshold, capacity));
+    }
+
+    /**
+     * 丢弃所有已发布的事件，会等待正在进行的消费结束
+     */
+    public int clear() {
+        int cleared = 0;
+        while (true) {
+            try {
+                int drained = drain((data, offset, length, sequenceNumber) -> {}, capacity);
+                if (drained > 0) {
+                    cleared += drained;
+                    continue;
+                }
+            } catch (IOException ignored) {
+                // 空消费者不会抛出异常
+            }
+            if (!consuming.get()) {
+                return cleared;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 当前占用的槽位数（包括已抢占但尚未发布的槽位）
+     */
+    public int size() {
+        // 先读head：两次读取之间被抢占时只会高估占用量，高水位判断因此偏保守
+        long consumed = head.get();
+        long size = tail.get() - consumed;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * 下一个入队事件将占用的位置，单调递增
+     */
+    public long getProducedPosition() {
+        return tail.get();
+    }
+
+    /**
+     * 已取出（写出或丢弃）的事件数，位置小于该值的事件都已离开事件环
+     */
+    public long getConsumedPosition() {
+        return head.get();
+    }
+
+    public long getOfferedCount() {
+        return offered.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 为新事件腾出位置而被丢弃的队首事件数
+     */
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    /**
+     * 生产者CAS失败或遇到被其他生产者抢占的槽位的次数，反映入队竞争程度
+     */
+    public long getContendedCount() {
+        return contended.sum();
+    }
+
+    public long getPeakSize() {
+        return peakSize.get();
+    }
+
+    /**
+     * 事件从入队到被写线程取出的等待时间分布，衡量写线程与C++进程是否跟得上
+     */
+    public LatencyHistogram getQueueDelay() {
+        return queueDelay;
+    }
+
+    @FunctionalInterface
+    public interface SlotConsumer {
+        /**
+         * 数据只在回调期间有效，回调内可以原地修改
+         *
+         * @param sequenceNumber 入队时附带的序号，0表示未编号
+         */
+        void accept(byte[] data, int offset, int length, int sequenceNumber) throws IOException;
+
+        /**
+         * 轮到 {@link #offerMarker(Object)} 入队的占位标记时调用，默认忽略
+         */
+        default void marker(Object marker) throws IOException {
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.tranforcpp.pipeline;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.Cancellable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 事件订阅表
+ * <p>
+ * 每个转发给C++进程的事件对应一个绑定（事件名、Bukkit事件类、处理函数），
+ * 只有至少被一个C++进程订阅的绑定才会通过 {@link org.bukkit.plugin.PluginManager#registerEvent} 注册到Bukkit，
+ * 没有进程订阅的事件连监听器都不存在，不产生任何开销。
+ * <p>
+ * 订阅流程（每个C++进程对应一个 {@link Subscriber}，各自独立）：
+ * - 进程启动时订阅全部事件，兼容不发送订阅的旧版C++插件
+ * - C++进程第一次发送 subscribe 时，它的订阅替换为声明的事件，不再被任何进程订阅的监听器从 HandlerList 中注销
+ * - 之后的 subscribe / unsubscribe 在运行时增减订阅
+ */
+public final class EventSubscriptions {
+
+    /**
+     * 订阅全部事件时使用的名称
+     */
+    public static final String ALL = "*";
+
+    private final Plugin plugin;
+    private final Map<String, Binding<?>> bindings = new LinkedHashMap<>();
+    private final List<Subscriber> subscribers = new ArrayList<>();
+
+    public EventSubscriptions(Plugin plugin) {
+        this.plugin = plugin;
+    }
+
+    /**
+     * 声明一个可订阅的事件，只能在订阅开始之前调用
+     */
+    public synchronized <E extends Event> void bind(String eventName, Class<E> type, Consumer<E> handler) {
+        if (bindings.putIfAbsent(eventName, new Binding<>(type, handler)) != null) {
+            throw new IllegalArgumentException("Duplicate event binding: " + eventName);
+        }
+    }
+
+    /**
+     * 为一个C++进程创建订阅者：订阅全部事件，并等待该进程声明自己的订阅
+     */
+    public synchronized Subscriber subscribeAll() {
+        Subscriber subscriber = new Subscriber();
+        subscriber.events = Set.copyOf(bindings.keySet());
+        subscribers.add(subscriber);
+        for (Binding<?> binding : bindings.values()) {
+            register(binding);
+        }
+        return subscriber;
+    }
+
+    /**
+     * 注销所有事件并关闭所有订阅者（全部进程停止时）
+     */
+    public synchronized void unregisterAll() {
+        for (Subscriber subscriber : subscribers) {
+            subscriber.events = Collections.emptySet();
+        }
+        subscribers.clear();
+        for (Binding<?> binding : bindings.values()) {
+            unregister(binding);
+        }
+    }
+
+    /**
+     * 至少被一个进程订阅的事件
+     */
+    public synchronized Set<String> getSubscribedEvents() {
+        Set<String> subscribed = new LinkedHashSet<>();
+        for (Map.Entry<String, Binding<?>> entry : bindings.entrySet()) {
+            if (entry.getValue().registered) {
+                subscribed.add(entry.getKey());
+            }
+        }
+        return subscribed;
+    }
+
+    public synchronized Set<String> getAvailableEvents() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(bindings.keySet()));
+    }
+
+    /**
+     * 事件是否存在且可以被取消，只有这样的事件才能由C++进程同步裁决
+     */
+    public synchronized boolean isCancellable(String eventName) {
+        Binding<?> binding = bindings.get(eventName);
+        return binding != null && Cancellable.class.isAssignableFrom(binding.type);
+    }
+
+    private Set<String> resolve(Collection<String> eventNames, List<String> unknown) {
+        Set<String> resolved = new LinkedHashSet<>();
+        for (String eventName : eventNames) {
+            if (ALL.equals(eventName)) {
+                resolved.addAll(bindings.keySet());
+            } else if (bindings.containsKey(eventName)) {
+                resolved.add(eventName);
+            } else {
+                unknown.add(eventName);
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * 按全部订阅者的订阅并集注册或注销监听器
+     */
+    private void reconcile() {
+        for (Map.Entry<String, Binding<?>> entry : bindings.entrySet()) {
+            boolean wanted = false;
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.events.contains(entry.getKey())) {
+                    wanted = true;
+                    break;
+                }
+            }
+            if (wanted) {
+                register(entry.getValue());
+            } else {
+                unregister(entry.getValue());
+            }
+        }
+    }
+
+    private void register(Binding<?> binding) {
+        if (binding.registered) {
+            return;
+        }
+        Bukkit.getPluginManager().registerEvent(binding.type, binding.listener, EventPriority.NORMAL,
+                (listener, event) -> binding.dispatch(event), plugin);
+        binding.registered = true;
+    }
+
+    private void unregister(Binding<?> binding) {
+        if (!binding.registered) {
+            return;
+        }
+        HandlerList.unregisterAll(binding.listener);
+        binding.registered = false;
+    }
+
+    /**
+     * 一个C++进程的订阅，{@link #isSubscribed(String)} 可在任意线程上无锁调用
+     */
+    public final class Subscriber {
+        private volatile Set<String> events = Collections.emptySet();
+        // 以下字段由 EventSubscriptions.this 保护
+        private boolean declared;
+
+        private Subscriber() {
+        }
+
+        public boolean isSubscribed(String eventName) {
+            return events.contains(eventName);
+        }
+
+        public Set<String> getSubscribedEvents() {
+            return events;
+        }
+
+        /**
+         * 订阅事件，返回无法识别的事件名
+         * <p>
+         * 第一次调用时只保留本次声明的事件。
+         */
+        public List<String> subscribe(Collection<String> eventNames) {
+            synchronized (EventSubscriptions.this) {
+                List<String> unknown = new ArrayList<>();
+                Set<String> requested = resolve(eventNames, unknown);
+                Set<String> updated = new LinkedHashSet<>(declared ? events : Set.of());
+                updated.addAll(requested);
+                declared = true;
+                update(updated);
+                return unknown;
+            }
+        }
+
+        /**
+         * 取消订阅事件，返回无法识别的事件名
+         */
+        public List<String> unsubscribe(Collection<String> eventNames) {
+            synchronized (EventSubscriptions.this) {
+                List<String> unknown = new ArrayList<>();
+                Set<String> updated = new LinkedHashSet<>(events);
+                updated.removeAll(resolve(eventNames, unknown));
+                declared = true;
+                update(updated);
+                return unknown;
+            }
+        }
+
+        /**
+         * 移除该订阅者（进程停止时），只有它订阅的事件随之注销
+         */
+        public void close() {
+            synchronized (EventSubscriptions.this) {
+                if (subscribers.remove(this)) {
+                    update(Collections.emptySet());
+                }
+            }
+        }
+
+        private void update(Set<String> updated) {
+            events = Set.copyOf(updated);
+            reconcile();
+        }
+    }
+
+    private static final class Binding<E extends Event> {
+        private final Class<E> type;
+        private final Consumer<E> handler;
+        // 每个绑定使用独立的监听器对象，注销时只影响这一个事件
+        private final Listener listener = new Listener() {
+        };
+        private boolean registered;
+
+        private Binding(Class<E> type, Consumer<E> handler) {
+            this.type = type;
+            this.handler = handler;
+        }
+
+        private void dispatch(Event event) {
+            // 子类事件可能共用父类的 HandlerList（如 PlayerDeathEvent 与 EntityDeathEvent）
+            if (type.isInstance(event)) {
+                handler.accept(type.cast(event));
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.protocol.BinaryFrameCodec;
+import com.github.tranforcpp.protocol.WireFormat;
+import com.github.tranforcpp.transport.CppTransport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * 单写者事件发送线程
+ * <p>
+ * 事件环唯一的消费者，独占传输层的写入端。每轮从事件环中取出一整批事件，
+ * 按入队顺序全部写出后只刷新一次，写入端不需要任何锁，也不会出现多个发送线程交错写入。
+ * <p>
+ * 主要特性：
+ * - 整批写出：一批最多 {@value #MAX_BATCH} 个事件（含 {@link CoalescingBuffer} 中合并的事件），每批刷新一次；
+ *   合并的事件在事件环中以标记占位，按首次入队的位置写出，不会排到同一玩家之后的事件后面
+ * - 按玩家编号：入队时附带序号的事件写出为已编号事件，序号插入帧头，参数部分不复制；
+ *   序号在入队时分配（入队失败也会占用），C++端看到序号不连续即说明有事件被丢弃
+ * - 句柄定义：写出每个事件之前先写出 {@link SessionHandles} 中排队的定义，C++端不会遇到未定义的句柄
+ * - 启用事件日志时，每一帧写出后再交给 {@link EventJournal} 记录
+ * - 空闲时按 {@link FlushScheduler} 的时机等待，不空转
+ * - 写出失败时（进程仍在运行）调用失败回调，由进程结束C++子进程并交给守护重启，写线程不会悄悄退出
+ */
+public final class EventWriter implements EventRing.SlotConsumer {
+
+    public static final int MAX_BATCH = 256;
+    private static final long JOIN_TIMEOUT_MS = 1000;
+    private static final byte[] JSON_SEQUENCE_PREFIX = "{\"seq\":".getBytes(StandardCharsets.US_ASCII);
+
+    private final EventRing ring;
+    private final CoalescingBuffer coalescer;
+    private final FlushScheduler scheduler;
+    private final CppTransport transport;
+    private final WireFormat format;
+    private final SessionHandles.Attachment handles;
+    private final Process process;
+    private final AtomicLong writtenCounter;
+    private final EventJournal.Source journal;
+    private final Runnable failureHandler;
+    private final Logger logger;
+
+    // 只在写线程上使用
+    private final byte[] header = new byte[32];
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * @param handles 本进程在会话句柄表中的定义队列，只在二进制格式下使用，JSON格式为null
+     * @param journal        事件日志中本进程的来源，未启用事件日志时为null
+     * @param failureHandler 写出或刷新失败且写线程未被停止时在写线程上调用
+     */
+    public EventWriter(EventRing ring, CoalescingBuffer coalescer, FlushScheduler scheduler, CppTransport transport,
+                       WireFormat format, SessionHandles.Attachment handles, Process process, AtomicLong writtenCounter,
+                       EventJournal.Source journal, Runnable failureHandler, Logger logger) {
+        this.ring = ring;
+        this.coalescer = coalescer;
+        this.scheduler = scheduler;
+        this.transport = transport;
+        this.format = format;
+        this.handles = handles;
+        this.process = process;
+        this.writtenCounter = writtenCounter;
+        this.journal = journal;
+        this.failureHandler = failureHandler;
+        this.logger = logger;
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "TranforC++-Writer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.NORM_PRIORITY - 1);
+        thread.start();
+    }
+
+    /**
+     * 停止写线程并等待它退出，未写出的事件留在事件环中
+     */
+    public synchronized void stop() {
+        running = false;
+        Thread current = thread;
+        thread = null;
+        if (current == null) {
+            return;
+        }
+        ring.wakeConsumer();
+        try {
+            current.join(JOIN_TIMEOUT_MS);
+            if (current.isAlive()) {
+                // 写入阻塞在对端上，由关闭传输层来解除
+                logger.warning("Event writer did not stop within " + JOIN_TIMEOUT_MS + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            // 材料表等启动时就确定的定义不必等到第一个事件
+            if (handles != null && handles.writeDefinitions(transport, journal) > 0) {
+                transport.flush();
+            }
+            while (running && process.isAlive()) {
+                int drained = ring.drain(this, MAX_BATCH);
+                if (drained < MAX_BATCH) {
+                    // 事件环已满时未能放入标记的合并事件跟在本批之后写出
+                    drained += coalescer.drain(this, MAX_BATCH - drained);
+                }
+                if (drained > 0) {
+                    transport.flush();
+                    writtenCounter.addAndGet(drained);
+                    continue;
+                }
+                // 等待下一个刷新时机：批次已满、tick结束或截止时间到达
+                scheduler.awaitFlush();
+            }
+        } catch (IOException e) {
+            if (running) {
+                logger.warning("Error in event writer: " + e.getMessage());
+                // 进程可能仍在运行（如套接字一直未连接），不处理的话事件环会无声地填满
+                failureHandler.run();
+            }
+        }
+    }
+
+    @Override
+    public void accept(byte[] data, int offset, int length, int sequence) throws IOException {
+        if (handles != null && handles.hasPendingDefinitions()) {
+            handles.writeDefinitions(transport, journal);
+        }
+        if (sequence == 0) {
+            transport.write(data, offset, length);
+        } else if (format == WireFormat.BINARY) {
+            writeSequencedFrame(data, offset, length, sequence);
+        } else {
+            writeSequencedLine(data, offset, length, sequence);
+        }
+        if (journal != null) {
+            journal.out(data, offset, length, sequence);
+        }
+    }
+
+    @Override
+    public void marker(Object marker) throws IOException {
+        coalescer.write(marker, this);
+    }
+
+    /**
+     * 二进制：把事件帧改写为带u32序号的已编号事件帧，参数部分原样写出
+     */
+    private void writeSequencedFrame(byte[] data, int offset, int length, int sequence) throws IOException {
+        int headerEnd = BinaryFrameCodec.LENGTH_FIELD_SIZE + BinaryFrameCodec.BODY_HEADER_SIZE;
+        int bodyLength = length - BinaryFrameCodec.LENGTH_FIELD_SIZE + BinaryFrameCodec.SEQUENCE_SIZE;
+        writeIntLE(header, 0, bodyLength);
+        header[4] = BinaryFrameCodec.KIND_SEQUENCED_EVENT;
+        System.arraycopy(data, offset + 5, header, 5, headerEnd - 5);
+        writeIntLE(header, headerEnd, sequence);
+        transport.write(header, 0, headerEnd + BinaryFrameCodec.SEQUENCE_SIZE);
+        transport.write(data, offset + headerEnd, length - headerEnd);
+    }
+
+    /**
+     * JSON：在对象开头插入 "seq" 字段，其余内容原样写出
+     */
+    private void writeSequencedLine(byte[] data, int offset, int length, int sequence) throws IOException {
+        int position = JSON_SEQUENCE_PREFIX.length;
+        System.arraycopy(JSON_SEQUENCE_PREFIX, 0, header, 0, position);
+        position = writeUnsignedDecimal(header, position, sequence);
+        header[position++] = ',';
+        transport.write(header, 0, position);
+        // 跳过原有的 '{'
+        transport.write(data, offset + 1, length - 1);
+    }
+
+    private static int writeUnsignedDecimal(byte[] target, int index, int value) {
+        long remaining = Integer.toUnsignedLong(value);
+        int end = index + 1;
+        for (long bound = 10; bound <= remaining; bound *= 10) {
+            end++;
+        }
+        int position = end;
+        do {
+            target[--position] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        return end;
+    }
+
+    private static void writeIntLE(byte[] target, int index, int value) {
+        target[index] = (byte) value;
+        target[index + 1] = (byte) (value >>> 8);
+        target[index + 2] = (byte) (value >>> 16);
+        target[index + 3] = (byte) (value >>> 24);
+    }
+}
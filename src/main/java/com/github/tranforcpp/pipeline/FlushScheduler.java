@@ -0,0 +1,82 @@
+package com.github.tranforcpp.pipeline;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.github.tranforcpp.utils.FoliaCompatUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.HandlerList;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量刷新调度器
+ * <p>
+ * 决定发送线程何时把事件环中的积压写出，与是否有新事件到达无关，
+ * 因此服务器空闲时最后几个事件也不会滞留在队列中。
+ * <p>
+ * 主要特性：
+ * - 截止时间：任何事件在队列中停留的时间都不超过 max-delay
+ * - 批次大小：积压（含 {@link CoalescingBuffer} 中待写出的条目）达到批次大小时立即唤醒发送线程
+ * - tick对齐（仅Paper）：每个tick结束时唤醒发送线程，使同一tick产生的事件（包括只有合并事件的tick）作为一批发出；
+ *   Folia没有全局tick，自动退回按截止时间刷新
+ */
+public final class FlushScheduler implements Listener {
+
+    private final EventRing ring;
+    private final CoalescingBuffer coalescer;
+    private final long maxDelayNanos;
+    private final boolean tickAligned;
+    private volatile boolean tickDriven;
+
+    public FlushScheduler(EventRing ring, CoalescingBuffer coalescer, long maxDelayMs, int batchSize,
+                          boolean tickAligned) {
+        this.ring = ring;
+        this.coalescer = coalescer;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxDelayMs));
+        this.tickAligned = tickAligned;
+        ring.setWakeThreshold(batchSize);
+    }
+
+    public void start(Plugin plugin) {
+        if (!tickAligned || FoliaCompatUtil.isFolia()) {
+            return;
+        }
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+        tickDriven = true;
+    }
+
+    public void stop() {
+        if (tickDriven) {
+            HandlerList.unregisterAll(this);
+            tickDriven = false;
+        }
+    }
+
+    /**
+     * 发送线程：等待到下一个刷新时机（截止时间、批次已满或tick结束）
+     */
+    public void awaitFlush() {
+        ring.await(maxDelayNanos);
+    }
+
+    /**
+     * 立即请求一次刷新
+     */
+    public void requestFlush() {
+        ring.wakeConsumer();
+    }
+
+    public boolean isTickDriven() {
+        return tickDriven;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTickEnd(ServerTickEndEvent event) {
+        if (ring.size() + coalescer.size() > 0) {
+            ring.wakeConsumer();
+        }
+    }
+}
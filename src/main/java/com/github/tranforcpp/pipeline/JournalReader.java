@@ -0,0 +1,112 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.protocol.WireFormat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 事件日志段文件的读取器
+ * <p>
+ * 按写入顺序遍历 {@link EventJournal} 写出的一个段文件，用于事故排查，或把记录的事件重新喂给C++插件做离线压测。
+ * 段文件以只读方式映射，记录内容以 {@link ByteBuffer} 交给 {@link RecordVisitor}，该缓冲区只在回调期间有效。
+ * 遇到结束标记、不完整的记录（进程在写入中途退出）或文件末尾时停止。
+ */
+public final class JournalReader {
+
+    private final WireFormat format;
+    private final long startedMillis;
+    private final ByteBuffer data;
+
+    private JournalReader(WireFormat format, long startedMillis, ByteBuffer data) {
+        this.format = format;
+        this.startedMillis = startedMillis;
+        this.data = data;
+    }
+
+    /**
+     * 打开一个段文件
+     *
+     * @throws IOException 文件无法读取或不是事件日志段文件
+     */
+    public static JournalReader open(File segment) throws IOException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(segment.toPath(), StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.remaining() < EventJournal.FILE_HEADER_SIZE || data.getInt(0) != EventJournal.MAGIC) {
+            throw new IOException("Not an event journal segment: " + segment.getName());
+        }
+        int version = data.getShort(4) & 0xFFFF;
+        if (version != EventJournal.VERSION) {
+            throw new IOException("Unsupported event journal version " + version + ": " + segment.getName());
+        }
+        WireFormat format = data.get(6) == 1 ? WireFormat.BINARY : WireFormat.JSON;
+        return new JournalReader(format, data.getLong(8), data);
+    }
+
+    /**
+     * 记录中帧的编码格式
+     */
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 段开始时间（毫秒）
+     */
+    public long getStartedMillis() {
+        return startedMillis;
+    }
+
+    /**
+     * 按顺序遍历全部记录，来源定义记录用于解析来源名，不交给 visitor；返回遍历的记录数
+     */
+    public int forEach(RecordVisitor visitor) {
+        Map<Integer, String> sources = new HashMap<>();
+        ByteBuffer records = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        records.position(EventJournal.FILE_HEADER_SIZE);
+        int count = 0;
+        while (records.remaining() >= EventJournal.RECORD_HEADER_SIZE) {
+            int position = records.position();
+            int length = records.getInt(position);
+            if ((length == 0 && records.get(position + 4) == 0)
+                    || length < 0 || length > records.remaining() - EventJournal.RECORD_HEADER_SIZE) {
+                break;
+            }
+            int kind = records.get(position + 4);
+            int source = records.getShort(position + 6) & 0xFFFF;
+            int sequence = records.getInt(position + 8);
+            long micros = records.getLong(position + 12);
+            int payloadStart = position + EventJournal.RECORD_HEADER_SIZE;
+            ByteBuffer payload = records.slice(payloadStart, length);
+            records.position(payloadStart + length);
+            if (kind == EventJournal.KIND_SOURCE) {
+                sources.put(source, StandardCharsets.UTF_8.decode(payload).toString());
+                continue;
+            }
+            visitor.record(kind, sources.get(source), sequence, micros, payload);
+            count++;
+        }
+        return count;
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        /**
+         * @param kind      记录类型，见 {@link EventJournal} 的 KIND_ 常量
+         * @param source    来源名，单进程模式下为 "C++ plugin"
+         * @param sequence  按玩家分配的序号，0表示未编号
+         * @param micros    记录时间（微秒）
+         */
+        void record(int kind, String source, int sequence, long micros, ByteBuffer payload);
+    }
+}
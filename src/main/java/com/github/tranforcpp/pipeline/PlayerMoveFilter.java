@@ -0,0 +1,137 @@
+package com.github.tranforcpp.pipeline;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 玩家移动事件过滤器
+ * <p>
+ * PlayerMoveEvent 在玩家转动视角时也会触发，每个玩家每秒约20次，是IPC流量的主要来源。
+ * 本类记录每个玩家上一次发送给C++进程的位置，只有变化足够大时才放行，
+ * 放行后的事件再经过合并策略，每个玩家每批最多写出一条。
+ * <p>
+ * 过滤模式：
+ * - ALL: 全部放行
+ * - BLOCK: 所在方块（或世界）变化时放行
+ * - THRESHOLD: 移动距离或视角转动超过阈值（或世界变化）时放行
+ */
+public final class PlayerMoveFilter {
+
+    private final Mode mode;
+    private final double minDistanceSquared;
+    private final float minRotation;
+    private final Map<UUID, LastSent> lastSent = new ConcurrentHashMap<>();
+
+    public PlayerMoveFilter(Mode mode, double minDistance, float minRotation) {
+        this.mode = mode;
+        this.minDistanceSquared = minDistance * minDistance;
+        this.minRotation = minRotation;
+    }
+
+    /**
+     * 判断移动是否需要发送，需要时把 to 记为该玩家最后发送的位置
+     * <p>
+     * 同一玩家的移动事件只在该玩家所在的线程上触发，因此每个玩家的记录不需要加锁。
+     */
+    public boolean accept(UUID playerId, Location to) {
+        if (mode == Mode.ALL) {
+            return true;
+        }
+        LastSent last = lastSent.get(playerId);
+        if (last == null) {
+            last = new LastSent();
+            lastSent.put(playerId, last);
+        } else if (last.world == to.getWorld() && !changedEnough(last, to)) {
+            return false;
+        }
+        last.update(to);
+        return true;
+    }
+
+    private boolean changedEnough(LastSent last, Location to) {
+        if (mode == Mode.BLOCK) {
+            return last.blockX != to.getBlockX() || last.blockY != to.getBlockY() || last.blockZ != to.getBlockZ();
+        }
+        double dx = to.getX() - last.x;
+        double dy = to.getY() - last.y;
+        double dz = to.getZ() - last.z;
+        if (dx * dx + dy * dy + dz * dz >= minDistanceSquared) {
+            return true;
+        }
+        return angleBetween(last.yaw, to.getYaw()) >= minRotation
+                || Math.abs(to.getPitch() - last.pitch) >= minRotation;
+    }
+
+    private static float angleBetween(float from, float to) {
+        float difference = Math.abs(to - from) % 360.0F;
+        return difference > 180.0F ? 360.0F - difference : difference;
+    }
+
+    /**
+     * 玩家退出时清除记录，重新加入后的第一次移动总会发送
+     */
+    public void forget(UUID playerId) {
+        lastSent.remove(playerId);
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private static final class LastSent {
+        private World world;
+        private double x;
+        private double y;
+        private double z;
+        private float yaw;
+        private float pitch;
+        private int blockX;
+        private int blockY;
+        private int blockZ;
+
+        private void update(Location location) {
+            world = location.getWorld();
+            x = location.getX();
+            y = location.getY();
+            z = location.getZ();
+            yaw = location.getYaw();
+            pitch = location.getPitch();
+            blockX = location.getBlockX();
+            blockY = location.getBlockY();
+            blockZ = location.getBlockZ();
+        }
+    }
+
+    public enum Mode {
+        ALL("all"),
+        BLOCK("block"),
+        THRESHOLD("threshold");
+
+        private final String configName;
+
+        Mode(String configName) {
+            this.configName = configName;
+        }
+
+        public String getConfigName() {
+            return configName;
+        }
+
+        public static Mode fromConfig(String value) {
+            if (value != null) {
+                String normalized = value.trim().toLowerCase(Locale.ROOT);
+                for (Mode mode : values()) {
+                    if (mode.configName.equals(normalized)) {
+                        return mode;
+                    }
+                }
+            }
+            return THRESHOLD;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.tranforcpp.pipeline;
+
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * multicast 动作的目标选择器
+ * <p>
+ * 选择器在读取线程上解析，目标玩家在服务器线程上解析，因此一条消息发给多个玩家时
+ * 只需要一次解析和一次服务器线程上的发送循环。
+ * <p>
+ * 支持的选择器：
+ * - players:名称1,名称2 - 按玩家名
+ * - handles:句柄1,句柄2 - 按会话句柄（仅二进制格式），在读取线程上就转换为UUID，之后句柄被复用也不会发错人
+ * - world:世界名 - 该世界中的所有玩家
+ * - permission:权限节点 - 拥有该权限的所有玩家
+ */
+public final class PlayerSelector {
+
+    private final Type type;
+    private final String value;
+    private final Set<String> names;
+    private final Set<UUID> playerIds;
+
+    private PlayerSelector(Type type, String value, Set<String> names, Set<UUID> playerIds) {
+        this.type = type;
+        this.value = value;
+        this.names = names;
+        this.playerIds = playerIds;
+    }
+
+    /**
+     * 解析选择器，可在任意线程上调用
+     *
+     * @param handles 二进制格式下的会话句柄表，JSON格式为null
+     * @throws IllegalArgumentException 选择器格式错误，或在JSON格式下使用句柄
+     */
+    public static PlayerSelector parse(String targets, SessionHandles handles) {
+        int colon = targets.indexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Invalid multicast targets: " + targets);
+        }
+        Type type = Type.fromPrefix(targets.substring(0, colon).trim());
+        String value = targets.substring(colon + 1).trim();
+        return switch (type) {
+            case PLAYERS -> new PlayerSelector(type, value, splitList(value), Set.of());
+            case HANDLES -> new PlayerSelector(type, value, Set.of(), resolveHandles(value, handles));
+            case WORLD, PERMISSION -> {
+                if (value.isEmpty()) {
+                    throw new IllegalArgumentException("Empty multicast " + type.prefix);
+                }
+                yield new PlayerSelector(type, value, Set.of(), Set.of());
+            }
+        };
+    }
+
+    /**
+     * 在服务器线程上解析出当前在线的目标玩家
+     */
+    public List<Player> resolve() {
+        List<Player> players = new ArrayList<>();
+        switch (type) {
+            case PLAYERS -> {
+                for (String name : names) {
+                    addOnline(players, Bukkit.getPlayerExact(name));
+                }
+            }
+            case HANDLES -> {
+                for (UUID playerId : playerIds) {
+                    addOnline(players, Bukkit.getPlayer(playerId));
+                }
+            }
+            case WORLD -> {
+                World world = Bukkit.getWorld(value);
+                if (world != null) {
+                    for (Player player : Bukkit.getOnlinePlayers()) {
+                        if (player.getWorld() == world) {
+                            players.add(player);
+                        }
+                    }
+                }
+            }
+            case PERMISSION -> {
+                for (Player player : Bukkit.getOnlinePlayers()) {
+                    if (player.hasPermission(value)) {
+                        players.add(player);
+                    }
+                }
+            }
+        }
+        return players;
+    }
+
+    private static void addOnline(List<Player> players, Player player) {
+        if (player != null && player.isOnline()) {
+            players.add(player);
+        }
+    }
+
+    private static Set<String> splitList(String value) {
+        Set<String> items = new LinkedHashSet<>();
+        for (String item : value.split(",")) {
+            String trimmed = item.trim();
+            if (!trimmed.isEmpty()) {
+                items.add(trimmed);
+            }
+        }
+        return items;
+    }
+
+    private static Set<UUID> resolveHandles(String value, SessionHandles handles) {
+        if (handles == null) {
+            throw new IllegalArgumentException("Player handles require transport.format: binary");
+        }
+        Set<UUID> playerIds = new LinkedHashSet<>();
+        for (String item : splitList(value)) {
+            int handle;
+            try {
+                handle = Integer.parseInt(item);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid player handle: " + item);
+            }
+            // 已退出玩家的句柄没有对应的UUID，直接跳过
+            UUID playerId = handles.playerId(handle);
+            if (playerId != null) {
+                playerIds.add(playerId);
+            }
+        }
+        return playerIds;
+    }
+
+    private enum Type {
+        PLAYERS("players"),
+        HANDLES("handles"),
+        WORLD("world"),
+        PERMISSION("permission");
+
+        private final String prefix;
+
+        Type(String prefix) {
+            this.prefix = prefix;
+        }
+
+        static Type fromPrefix(String prefix) {
+            String normalized = prefix.toLowerCase(Locale.ROOT);
+            for (Type type : values()) {
+                if (type.prefix.equals(normalized)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown multicast target type: " + prefix);
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.protocol.BinaryFrameCodec;
+import com.github.tranforcpp.protocol.EventEncoder;
+import com.github.tranforcpp.protocol.WireFormat;
+import com.github.tranforcpp.transport.CppTransport;
+import org.bukkit.Material;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 会话句柄表
+ * <p>
+ * 二进制格式下，事件中的玩家、世界和材料不再重复发送名称字符串，而是发送紧凑的整数句柄，
+ * C++端按句柄下标在平坦数组中查到名称和UUID，也可以直接用句柄作为每个玩家状态的数组下标。
+ * <p>
+ * 句柄分配：
+ * - 玩家：第一次出现在事件中时分配，退出时释放；释放的句柄要等到事件环中此前入队的事件全部离开后才会复用，
+ *   因此C++端不会把旧玩家的事件算到新玩家头上
+ * - 世界：第一次出现时分配，会话内不释放（同一UID的世界重新加载后句柄不变）
+ * - 材料：即 {@link Material#ordinal()}，名称表在写出第一个事件之前整表发送
+ * <p>
+ * 句柄定义以句柄定义帧（{@link BinaryFrameCodec#KIND_HANDLES}）发送。定义在使用它的事件入队之前放入定义队列，
+ * 写线程在写出每个事件之前先写出队列中的定义，所以C++端总是先收到定义再收到引用它的事件。
+ * <p>
+ * 多个C++进程共用一张句柄表，同一个事件只编码一次即可发给多个进程。每个进程通过 {@link #attach(EventRing)}
+ * 取得自己的定义队列，新接入的进程先收到当前全部有效的定义；释放的玩家句柄要等所有接入进程的事件环都越过释放点才会复用。
+ * 进程崩溃重启时保留原来的接入，用 {@link Attachment#resend()} 把定义重新发给新进程。
+ */
+public final class SessionHandles {
+
+    // 每帧最多 255 个参数，第一个参数为起始序号
+    private static final int MATERIALS_PER_FRAME = BinaryFrameCodec.MAX_ARGS - 1;
+
+    private final Map<UUID, Integer> players = new ConcurrentHashMap<>();
+    private final Map<Integer, UUID> playerIds = new ConcurrentHashMap<>();
+    private final Map<UUID, Integer> worlds = new ConcurrentHashMap<>();
+    private final EventEncoder encoder = new EventEncoder();
+
+    // 以下字段由 this 保护
+    private final List<byte[]> materialDefinitions = new ArrayList<>();
+    private final Map<Integer, byte[]> playerDefinitions = new HashMap<>();
+    private final List<byte[]> worldDefinitions = new ArrayList<>();
+    private final List<Attachment> attachments = new ArrayList<>();
+    private final ArrayDeque<Integer> freePlayers = new ArrayDeque<>();
+    private final ArrayDeque<Released> releasedPlayers = new ArrayDeque<>();
+    private int nextPlayer;
+    private int nextWorld;
+
+    public SessionHandles() {
+        Material[] materials = Material.values();
+        for (int start = 0; start < materials.length; start += MATERIALS_PER_FRAME) {
+            int end = Math.min(materials.length, start + MATERIALS_PER_FRAME);
+            encoder.begin(WireFormat.BINARY, BinaryFrameCodec.KIND_HANDLES, BinaryFrameCodec.TABLE_MATERIAL).int32(start);
+            for (int i = start; i < end; i++) {
+                encoder.string(materials[i].name());
+            }
+            materialDefinitions.add(copy(encoder.end()));
+        }
+    }
+
+    /**
+     * 接入一个C++进程：返回该进程的定义队列，其中已排好材料表和当前全部玩家、世界的定义
+     *
+     * @param ring 该进程的事件环，用于判断释放的玩家句柄何时可以复用
+     */
+    public synchronized Attachment attach(EventRing ring) {
+        Attachment attachment = new Attachment(ring);
+        attachment.definitions.addAll(materialDefinitions);
+        attachment.definitions.addAll(worldDefinitions);
+        attachment.definitions.addAll(playerDefinitions.values());
+        attachments.add(attachment);
+        return attachment;
+    }
+
+    /**
+     * 返回玩家的句柄，第一次出现时分配并排队发送定义
+     */
+    public int player(UUID playerId, String name) {
+        Integer handle = players.get(playerId);
+        return handle != null ? handle : assignPlayer(playerId, name);
+    }
+
+    /**
+     * 返回世界的句柄，第一次出现时分配并排队发送定义
+     */
+    public int world(UUID worldId, String name) {
+        Integer handle = worlds.get(worldId);
+        return handle != null ? handle : assignWorld(worldId, name);
+    }
+
+    /**
+     * C++端发回的玩家句柄对应的玩家UUID，句柄未分配或玩家已退出时返回null
+     */
+    public UUID playerId(int handle) {
+        return playerIds.get(handle);
+    }
+
+    /**
+     * 玩家退出时释放句柄，此刻之前入队的事件全部离开事件环后句柄才可复用
+     */
+    public synchronized void releasePlayer(UUID playerId) {
+        Integer handle = players.remove(playerId);
+        if (handle != null) {
+            playerIds.remove(handle);
+            byte[] definition = playerDefinitions.remove(handle);
+            Attachment[] current = attachments.toArray(new Attachment[0]);
+            long[] positions = new long[current.length];
+            for (int i = 0; i < current.length; i++) {
+                positions[i] = current[i].ring.getProducedPosition();
+            }
+            releasedPlayers.add(new Released(handle, definition, current, positions));
+        }
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    public int getWorldCount() {
+        return worlds.size();
+    }
+
+    private synchronized int assignPlayer(UUID playerId, String name) {
+        Integer existing = players.get(playerId);
+        if (existing != null) {
+            return existing;
+        }
+        int handle = takePlayerHandle();
+        playerDefinitions.put(handle, define(BinaryFrameCodec.TABLE_PLAYER, handle, name, playerId));
+        players.put(playerId, handle);
+        playerIds.put(handle, playerId);
+        return handle;
+    }
+
+    private synchronized int assignWorld(UUID worldId, String name) {
+        Integer existing = worlds.get(worldId);
+        if (existing != null) {
+            return existing;
+        }
+        int handle = nextWorld++;
+        worldDefinitions.add(define(BinaryFrameCodec.TABLE_WORLD, handle, name, worldId));
+        worlds.put(worldId, handle);
+        return handle;
+    }
+
+    private int takePlayerHandle() {
+        while (!releasedPlayers.isEmpty() && releasedPlayers.peek().consumedEverywhere()) {
+            freePlayers.add(releasedPlayers.poll().handle);
+        }
+        Integer free = freePlayers.poll();
+        return free != null ? free : nextPlayer++;
+    }
+
+    private byte[] define(int table, int handle, String name, UUID id) {
+        encoder.begin(WireFormat.BINARY, BinaryFrameCodec.KIND_HANDLES, table).int32(handle).string(name).uuid(id);
+        byte[] definition = copy(encoder.end());
+        for (Attachment attachment : attachments) {
+            attachment.definitions.add(definition);
+        }
+        return definition;
+    }
+
+    private static byte[] copy(EventEncoder encoder) {
+        return Arrays.copyOf(encoder.array(), encoder.length());
+    }
+
+    /**
+     * 一个C++进程的句柄定义队列，由该进程的写线程消费
+     */
+    public final class Attachment {
+        private final EventRing ring;
+        private final Queue<byte[]> definitions = new ConcurrentLinkedQueue<>();
+
+        private Attachment(EventRing ring) {
+            this.ring = ring;
+        }
+
+        /**
+         * 写线程：写出所有尚未发送的句柄定义，返回写出的帧数
+         *
+         * @param journal 事件日志中本进程的来源，未启用事件日志时为null
+         */
+        public int writeDefinitions(CppTransport transport, EventJournal.Source journal) throws IOException {
+            int written = 0;
+            byte[] frame;
+            while ((frame = definitions.poll()) != null) {
+                transport.write(frame, 0, frame.length);
+                if (journal != null) {
+                    journal.out(frame, 0, frame.length, 0);
+                }
+                written++;
+            }
+            return written;
+        }
+
+        public boolean hasPendingDefinitions() {
+            return !definitions.isEmpty();
+        }
+
+        /**
+         * 进程重启后重新排队全部定义，包括已退出但事件环中可能仍有其事件的玩家，写线程启动前调用
+         */
+        public void resend() {
+            synchronized (SessionHandles.this) {
+                definitions.clear();
+                definitions.addAll(materialDefinitions);
+                definitions.addAll(worldDefinitions);
+                for (Released released : releasedPlayers) {
+                    if (released.definition != null) {
+                        definitions.add(released.definition);
+                    }
+                }
+                definitions.addAll(playerDefinitions.values());
+            }
+        }
+
+        /**
+         * 进程停止时断开，之后释放的玩家句柄不再等待它的事件环
+         */
+        public void detach() {
+            synchronized (SessionHandles.this) {
+                attachments.remove(this);
+            }
+        }
+    }
+
+    private final class Released {
+        private final int handle;
+        private final byte[] definition;
+        private final Attachment[] attachments;
+        private final long[] positions;
+
+        private Released(int handle, byte[] definition, Attachment[] attachments, long[] positions) {
+            this.handle = handle;
+            this.definition = definition;
+            this.attachments = attachments;
+            this.positions = positions;
+        }
+
+        /**
+         * 释放时仍接入的每个进程都已写出释放点之前的事件（已断开的进程不再计算）
+         */
+        private boolean consumedEverywhere() {
+            for (int i = 0; i < attachments.length; i++) {
+                if (SessionHandles.this.attachments.contains(attachments[i])
+                        && attachments[i].ring.getConsumedPosition() < positions[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.github.tranforcpp.pipeline;
+
+import com.github.tranforcpp.utils.LatencyHistogram;
+import org.bukkit.Bukkit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 同步可取消事件的裁决通道
+ * <p>
+ * C++进程通过 intercept 动作声明需要同步裁决的事件，这些事件在事件线程上以带请求ID的帧发送，
+ * 事件线程随后等待C++进程用 verdict 动作回复是否取消。等待有固定的时间预算，
+ * 超时后按默认裁决处理，迟到的回复被丢弃，因此C++进程卡住也不会拖垮服务器的tick。
+ * <p>
+ * 多个C++进程拦截同一个事件时，请求同时发给这些进程：任一进程回复取消即取消，全部回复放行才放行，
+ * 等待时间仍只有一份预算。拦截集合由各进程自己维护（见 {@link com.github.tranforcpp.CppProcess}）。
+ * <p>
+ * 主要功能：
+ * - 分配请求ID并登记等待者与期待的回复数
+ * - 先自旋再 park 等待裁决，预算耗尽即返回默认裁决
+ * - 统计请求数、超时数、迟到回复数与等待延迟分布，以及平均每tick花在等待上的时间
+ */
+public final class SyncEventGate {
+
+    private static final int PENDING = 0;
+    private static final int ALLOW = 1;
+    private static final int CANCEL = 2;
+    private static final int TIMED_OUT = 3;
+
+    /**
+     * 先自旋这么久再 park：回复通常在几十微秒内到达，park/unpark 的唤醒开销与之相当。
+     * 单核机器上自旋只会占住写线程和C++进程需要的CPU，直接 park
+     */
+    private static final long SPIN_NANOS = Runtime.getRuntime().availableProcessors() > 1 ? 20_000L : 0L;
+
+    private final long budgetNanos;
+    private final boolean defaultCancel;
+    private final ConcurrentHashMap<Integer, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder unsent = new LongAdder();
+    private final int startTick;
+
+    public SyncEventGate(long budgetNanos, boolean defaultCancel) {
+        this.budgetNanos = Math.max(0, budgetNanos);
+        this.defaultCancel = defaultCancel;
+        this.startTick = Bukkit.getCurrentTick();
+    }
+
+    /**
+     * 登记一个等待中的请求并返回其ID，ID不会为0
+     *
+     * @param expected 请求发给的进程数，即期待的回复数
+     */
+    public int open(int expected) {
+        int id;
+        do {
+            id = nextId.incrementAndGet();
+        } while (id == 0);
+        pending.put(id, new Pending(Thread.currentThread(), expected));
+        requests.increment();
+        return id;
+    }
+
+    /**
+     * 请求未能写入某个进程的队列时调用：该进程的回复按默认裁决计入。
+     * 之后仍需调用 {@link #await(int)}，全部进程都未能写入时它立即返回默认裁决
+     */
+    public void abandon(int id) {
+        unsent.increment();
+        Pending entry = pending.get(id);
+        if (entry != null) {
+            entry.unsent.incrementAndGet();
+            resolve(entry, defaultCancel);
+        }
+    }
+
+    /**
+     * 在当前线程等待裁决，返回 true 表示事件应被取消
+     */
+    public boolean await(int id) {
+        Pending entry = pending.get(id);
+        if (entry == null) {
+            return countVerdict(defaultCancel);
+        }
+        if (entry.unsent.get() == entry.expected) {
+            pending.remove(id);
+            return countVerdict(defaultCancel);
+        }
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        long spinUntil = start + Math.min(SPIN_NANOS, budgetNanos);
+        int state;
+        long now;
+        while ((state = entry.state.get()) == PENDING && (now = System.nanoTime()) < deadline) {
+            if (now < spinUntil) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(this, deadline - now);
+            }
+        }
+        // 与 complete 竞争同一个状态：超时标记成功后到达的回复计为迟到
+        if (state == PENDING && !entry.state.compareAndSet(PENDING, TIMED_OUT)) {
+            state = entry.state.get();
+        }
+        pending.remove(id);
+        latency.record(System.nanoTime() - start);
+        if (state == PENDING) {
+            timeouts.increment();
+            return countVerdict(defaultCancel);
+        }
+        return countVerdict(state == CANCEL);
+    }
+
+    /**
+     * 由读取线程在收到 verdict 动作时调用；请求已超时、已被其他进程取消或不存在时计为迟到回复。
+     * 回复可能在事件线程开始等待之前到达，登记由等待方在返回时移除
+     */
+    public void complete(int id, boolean cancel) {
+        Pending entry = pending.get(id);
+        if (entry == null || !resolve(entry, cancel)) {
+            late.increment();
+        }
+    }
+
+    /**
+     * 计入一个进程的裁决：取消立即生效，放行要等全部期待的回复都到达；裁决已确定时返回false
+     */
+    private boolean resolve(Pending entry, boolean cancel) {
+        if (entry.state.get() != PENDING) {
+            return false;
+        }
+        if (cancel) {
+            if (!entry.state.compareAndSet(PENDING, CANCEL)) {
+                return false;
+            }
+        } else if (entry.remaining.decrementAndGet() > 0) {
+            return true;
+        } else if (!entry.state.compareAndSet(PENDING, ALLOW)) {
+            return false;
+        }
+        LockSupport.unpark(entry.waiter);
+        return true;
+    }
+
+    /**
+     * 释放所有等待者，全部进程停止时调用，等待者按默认裁决返回
+     */
+    public void clear() {
+        for (Integer id : pending.keySet()) {
+            Pending entry = pending.remove(id);
+            if (entry != null && entry.state.compareAndSet(PENDING, defaultCancel ? CANCEL : ALLOW)) {
+                LockSupport.unpark(entry.waiter);
+            }
+        }
+    }
+
+    private boolean countVerdict(boolean cancel) {
+        if (cancel) {
+            cancelled.increment();
+        }
+        return cancel;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+
+    public boolean isDefaultCancel() {
+        return defaultCancel;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getLateVerdicts() {
+        return late.sum();
+    }
+
+    public long getCancelled() {
+        return cancelled.sum();
+    }
+
+    public long getUnsent() {
+        return unsent.sum();
+    }
+
+    /**
+     * 自创建以来平均每tick在等待裁决上花费的微秒数，衡量同步事件对tick时间的占用
+     */
+    public double getWaitMicrosPerTick() {
+        long ticks = Math.max(1, Bukkit.getCurrentTick() - startTick);
+        return latency.getTotalNanos() / 1000.0 / ticks;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    private static final class Pending {
+        private final Thread waiter;
+        private final int expected;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private final AtomicInteger remaining;
+        private final AtomicInteger unsent = new AtomicInteger();
+
+        private Pending(Thread waiter, int expected) {
+            this.waiter = waiter;
+            this.expected = Math.max(1, expected);
+            this.remaining = new AtomicInteger(this.expected);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.tranforcpp.protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 动作分发表
+ * <p>
+ * 按动作名保存 {@link ActionHandler}，读取线程只读取不可变的快照数组，
+ * 注册与注销时整体替换（写时复制），因此查找不需要加锁。
+ * <p>
+ * 主要特性：
+ * - 二进制帧中的内置动作直接按ID索引
+ * - JSON和自定义动作按UTF-8字节比较动作名，不需要先解码为字符串
+ * - Java插件可以注册新的动作，也可以覆盖内置动作
+ */
+public final class ActionDispatcher {
+
+    private volatile Entry[] entries = new Entry[0];
+    private volatile ActionHandler[] handlersById = new ActionHandler[0];
+
+    /**
+     * 注册动作处理器，返回被替换的旧处理器（没有则为null）
+     */
+    public synchronized ActionHandler register(String action, ActionHandler handler) {
+        if (action == null || action.isEmpty() || handler == null) {
+            throw new IllegalArgumentException("Action name and handler must not be empty");
+        }
+        Entry[] current = entries;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].action.equals(action)) {
+                Entry[] updated = current.clone();
+                updated[i] = new Entry(action, handler);
+                publish(updated);
+                return current[i].handler;
+            }
+        }
+        Entry[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = new Entry(action, handler);
+        publish(updated);
+        return null;
+    }
+
+    /**
+     * 注销动作处理器，返回是否存在该动作
+     */
+    public synchronized boolean unregister(String action) {
+        Entry[] current = entries;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i].action.equals(action)) {
+                Entry[] updated = new Entry[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                publish(updated);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找当前消息对应的处理器，未注册时返回null
+     */
+    public ActionHandler lookup(ActionReader reader) {
+        int id = reader.actionId();
+        if (id != CppAction.CUSTOM_ID) {
+            ActionHandler[] byId = handlersById;
+            return id < byId.length ? byId[id] : null;
+        }
+        for (Entry entry : entries) {
+            if (reader.actionNameEquals(entry.nameBytes)) {
+                return entry.handler;
+            }
+        }
+        return null;
+    }
+
+    private void publish(Entry[] updated) {
+        int maxId = 0;
+        for (CppAction action : CppAction.values()) {
+            maxId = Math.max(maxId, action.getId());
+        }
+        ActionHandler[] byId = new ActionHandler[maxId + 1];
+        for (Entry entry : updated) {
+            for (CppAction action : CppAction.values()) {
+                if (action.getActionName().equals(entry.action)) {
+                    byId[action.getId()] = entry.handler;
+                }
+            }
+        }
+        entries = updated;
+        handlersById = byId;
+    }
+
+    private static final class Entry {
+        private final String action;
+        private final byte[] nameBytes;
+        private final ActionHandler handler;
+
+        private Entry(String action, ActionHandler handler) {
+            this.action = action;
+            this.nameBytes = action.getBytes(StandardCharsets.UTF_8);
+            this.handler = handler;
+        }
+    }
+}
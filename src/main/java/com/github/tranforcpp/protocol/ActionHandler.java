@@ -0,0 +1,14 @@
+package com.github.tranforcpp.protocol;
+
+/**
+ * C++动作处理器
+ * <p>
+ * 通过 {@code ProcessManager#registerActionHandler} 注册到动作分发表，
+ * 在读取线程上被调用。处理器只应从 {@link ActionReader} 中读取自己需要的字段，
+ * 且不能在回调结束后继续引用该读取器。
+ */
+@FunctionalInterface
+public interface ActionHandler {
+
+    void handle(ActionReader action) throws Exception;
+}
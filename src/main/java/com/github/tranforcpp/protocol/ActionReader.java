@@ -0,0 +1,615 @@
+package com.github.tranforcpp.protocol;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * 流式动作读取器
+ * <p>
+ * 对C++进程发来的一条动作消息（一行JSON或一个二进制帧体）只做一次浅层扫描，
+ * 记录每个顶层字段的位置，不构建JSON树。动作名先于其他字段确定，
+ * 处理器只按需从原始字节中取出自己需要的字段。
+ * <p>
+ * 二进制帧按 {@link CppAction} 的参数表把位置参数映射为字段名，
+ * 自定义动作的参数名依次为 {@code arg0}、{@code arg1} ……，与JSON格式保持一致。
+ * <p>
+ * 读取器在回调期间引用传输层的缓冲区，只能在 {@link ActionHandler#handle(ActionReader)} 内使用，
+ * 不能被保存或跨线程传递。本类不是线程安全的。
+ */
+public final class ActionReader {
+
+    private static final String ACTION_KEY = "action";
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_NUMBER = 2;
+    private static final byte TYPE_TRUE = 3;
+    private static final byte TYPE_FALSE = 4;
+    private static final byte TYPE_NULL = 5;
+    private static final byte TYPE_COMPOUND = 6;
+    private static final int INITIAL_FIELDS = 8;
+
+    private final WireFormat format;
+    private final String source;
+    private byte[] data;
+    private int fieldCount;
+    private int[] keyStart = new int[INITIAL_FIELDS];
+    private int[] keyEnd = new int[INITIAL_FIELDS];
+    private int[] valueStart = new int[INITIAL_FIELDS];
+    private int[] valueEnd = new int[INITIAL_FIELDS];
+    private byte[] valueType = new byte[INITIAL_FIELDS];
+    private byte[] binaryTag = new byte[INITIAL_FIELDS];
+    private boolean[] escaped = new boolean[INITIAL_FIELDS];
+
+    private int actionField;
+    private int actionId;
+    private CppAction knownAction;
+
+    public ActionReader(WireFormat format) {
+        this(format, null);
+    }
+
+    /**
+     * @param source 发送动作的C++进程实例名，单进程且不分片时为null
+     */
+    public ActionReader(WireFormat format, String source) {
+        this.format = format;
+        this.source = source;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 发送这条动作的C++进程实例名，单进程且不分片时为null
+     */
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 指向一条新的消息，之前的字段位置全部失效
+     *
+     * @throws IllegalArgumentException 消息格式错误或缺少动作名
+     */
+    public void reset(byte[] data, int offset, int length) {
+        this.data = data;
+        this.fieldCount = 0;
+        this.actionField = -1;
+        this.actionId = CppAction.CUSTOM_ID;
+        this.knownAction = null;
+        if (format == WireFormat.BINARY) {
+            scanBinary(offset, offset + length);
+        } else {
+            scanJson(offset, offset + length);
+        }
+    }
+
+    /**
+     * 二进制帧中的动作ID，JSON格式或自定义动作时为 {@link CppAction#CUSTOM_ID}
+     */
+    public int actionId() {
+        return actionId;
+    }
+
+    /**
+     * 动作名，JSON格式和自定义动作需要解码字符串
+     */
+    public String actionName() {
+        return knownAction != null ? knownAction.getActionName() : stringAt(actionField);
+    }
+
+    /**
+     * 不解码字符串，直接比较动作名的UTF-8字节
+     */
+    public boolean actionNameEquals(byte[] nameBytes) {
+        if (knownAction != null) {
+            return Arrays.equals(knownAction.getActionNameBytes(), nameBytes);
+        }
+        if (escaped[actionField]) {
+            return new String(nameBytes, StandardCharsets.UTF_8).equals(stringAt(actionField));
+        }
+        return Arrays.equals(data, valueStart[actionField], valueEnd[actionField], nameBytes, 0, nameBytes.length);
+    }
+
+    public boolean has(String field) {
+        return indexOf(field) >= 0;
+    }
+
+    /**
+     * 读取字段的字符串形式，字段不存在或为null时返回null；数值与布尔值返回其文本
+     */
+    public String getString(String field) {
+        int index = indexOf(field);
+        return index >= 0 ? stringAt(index) : null;
+    }
+
+    /**
+     * 读取必需的字符串字段
+     *
+     * @throws IllegalArgumentException 字段不存在或为null
+     */
+    public String requireString(String field) {
+        String value = getString(field);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing field '" + field + "' in action " + actionName());
+        }
+        return value;
+    }
+
+    public long getLong(String field, long defaultValue) {
+        int index = indexOf(field);
+        if (index < 0) {
+            return defaultValue;
+        }
+        return switch (valueType[index]) {
+            case TYPE_NUMBER -> format == WireFormat.BINARY
+                    ? binaryLong(index)
+                    : parseLong(valueStart[index], valueEnd[index], defaultValue);
+            case TYPE_STRING -> escaped[index]
+                    ? parseLong(stringAt(index), defaultValue)
+                    : parseLong(valueStart[index], valueEnd[index], defaultValue);
+            case TYPE_TRUE -> 1;
+            case TYPE_FALSE -> 0;
+            default -> defaultValue;
+        };
+    }
+
+    public int getInt(String field, int defaultValue) {
+        long value = getLong(field, defaultValue);
+        return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ? (int) value : defaultValue;
+    }
+
+    public double getDouble(String field, double defaultValue) {
+        int index = indexOf(field);
+        if (index < 0) {
+            return defaultValue;
+        }
+        if (format == WireFormat.BINARY && valueType[index] == TYPE_NUMBER) {
+            return binaryDouble(index);
+        }
+        String text = stringAt(index);
+        if (text == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String field, boolean defaultValue) {
+        int index = indexOf(field);
+        if (index < 0) {
+            return defaultValue;
+        }
+        return switch (valueType[index]) {
+            case TYPE_TRUE -> true;
+            case TYPE_FALSE -> false;
+            case TYPE_NUMBER -> getLong(field, 0) != 0;
+            case TYPE_STRING -> {
+                String text = stringAt(index);
+                yield "true".equalsIgnoreCase(text) || (!"false".equalsIgnoreCase(text) && defaultValue);
+            }
+            default -> defaultValue;
+        };
+    }
+
+    private int indexOf(String field) {
+        if (format == WireFormat.BINARY) {
+            return binaryIndexOf(field);
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            if (i != actionField && keyEquals(i, field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(int index, String field) {
+        int start = keyStart[index];
+        int end = keyEnd[index];
+        if (end - start == field.length()) {
+            int i = 0;
+            while (i < field.length() && data[start + i] == field.charAt(i)) {
+                i++;
+            }
+            if (i == field.length()) {
+                return true;
+            }
+        }
+        // 含转义或非ASCII字符的键需要解码后比较
+        return hasEscapeOrNonAscii(start, end) && field.equals(decodeJsonString(start, end));
+    }
+
+    private boolean hasEscapeOrNonAscii(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == '\\' || data[i] < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String stringAt(int index) {
+        int start = valueStart[index];
+        int end = valueEnd[index];
+        return switch (valueType[index]) {
+            case TYPE_STRING -> escaped[index]
+                    ? decodeJsonString(start, end)
+                    : new String(data, start, end - start, StandardCharsets.UTF_8);
+            case TYPE_NUMBER -> format == WireFormat.BINARY
+                    ? binaryNumberText(index)
+                    : new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+            case TYPE_TRUE -> "true";
+            case TYPE_FALSE -> "false";
+            case TYPE_NULL -> null;
+            default -> format == WireFormat.BINARY
+                    ? new UUID(readLongLE(start), readLongLE(start + 8)).toString()
+                    : new String(data, start, end - start, StandardCharsets.UTF_8);
+        };
+    }
+
+    private long parseLong(String text, long defaultValue) {
+        if (text == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private long parseLong(int start, int end, long defaultValue) {
+        if (start >= end) {
+            return defaultValue;
+        }
+        boolean negative = data[start] == '-';
+        int i = negative || data[start] == '+' ? start + 1 : start;
+        if (i >= end || end - i > 18) {
+            // 可能溢出或不是纯整数，交给标准解析
+            return parseLong(new String(data, start, end - start, StandardCharsets.ISO_8859_1), defaultValue);
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return parseLong(new String(data, start, end - start, StandardCharsets.ISO_8859_1), defaultValue);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // ---- JSON ----
+
+    private void scanJson(int position, int end) {
+        position = skipWhitespace(position, end);
+        if (position >= end || data[position] != '{') {
+            throw new IllegalArgumentException("Action message is not a JSON object");
+        }
+        position++;
+        while (true) {
+            position = skipWhitespace(position, end);
+            if (position >= end) {
+                throw new IllegalArgumentException("Unterminated JSON object");
+            }
+            if (data[position] == '}') {
+                break;
+            }
+            if (data[position] != '"') {
+                throw new IllegalArgumentException("Expected field name at " + position);
+            }
+            int field = addField();
+            keyStart[field] = position + 1;
+            position = skipString(position, end);
+            keyEnd[field] = position - 1;
+
+            position = skipWhitespace(position, end);
+            if (position >= end || data[position] != ':') {
+                throw new IllegalArgumentException("Expected ':' at " + position);
+            }
+            position = skipWhitespace(position + 1, end);
+            position = scanJsonValue(field, position, end);
+
+            position = skipWhitespace(position, end);
+            if (position < end && data[position] == ',') {
+                position++;
+            } else if (position >= end || data[position] != '}') {
+                throw new IllegalArgumentException("Expected ',' or '}' at " + position);
+            }
+        }
+
+        for (int i = 0; i < fieldCount; i++) {
+            if (keyEquals(i, ACTION_KEY)) {
+                actionField = i;
+                break;
+            }
+        }
+        if (actionField < 0 || valueType[actionField] != TYPE_STRING) {
+            throw new IllegalArgumentException("Action message without action name");
+        }
+    }
+
+    private int scanJsonValue(int field, int position, int end) {
+        if (position >= end) {
+            throw new IllegalArgumentException("Missing value");
+        }
+        byte first = data[position];
+        switch (first) {
+            case '"' -> {
+                valueStart[field] = position + 1;
+                int after = skipString(position, end);
+                valueEnd[field] = after - 1;
+                valueType[field] = TYPE_STRING;
+                escaped[field] = hasEscape(valueStart[field], valueEnd[field]);
+                return after;
+            }
+            case '{', '[' -> {
+                valueStart[field] = position;
+                int after = skipCompound(position, end);
+                valueEnd[field] = after;
+                valueType[field] = TYPE_COMPOUND;
+                return after;
+            }
+            default -> {
+                int after = position;
+                while (after < end && data[after] != ',' && data[after] != '}' && !isWhitespace(data[after])) {
+                    after++;
+                }
+                valueStart[field] = position;
+                valueEnd[field] = after;
+                valueType[field] = literalType(position, after);
+                return after;
+            }
+        }
+    }
+
+    private byte literalType(int start, int end) {
+        int length = end - start;
+        if (length == 4 && data[start] == 't' && data[start + 1] == 'r' && data[start + 2] == 'u' && data[start + 3] == 'e') {
+            return TYPE_TRUE;
+        }
+        if (length == 5 && data[start] == 'f' && data[start + 1] == 'a' && data[start + 2] == 'l'
+                && data[start + 3] == 's' && data[start + 4] == 'e') {
+            return TYPE_FALSE;
+        }
+        if (length == 4 && data[start] == 'n' && data[start + 1] == 'u' && data[start + 2] == 'l' && data[start + 3] == 'l') {
+            return TYPE_NULL;
+        }
+        if (length == 0) {
+            throw new IllegalArgumentException("Missing value at " + start);
+        }
+        return TYPE_NUMBER;
+    }
+
+    private boolean hasEscape(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] == '\\') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 跳过从 position 处引号开始的字符串，返回结束引号之后的位置
+     */
+    private int skipString(int position, int end) {
+        for (int i = position + 1; i < end; i++) {
+            byte b = data[i];
+            if (b == '\\') {
+                i++;
+            } else if (b == '"') {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON string");
+    }
+
+    private int skipCompound(int position, int end) {
+        int depth = 0;
+        for (int i = position; i < end; i++) {
+            byte b = data[i];
+            if (b == '"') {
+                i = skipString(i, end) - 1;
+            } else if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (--depth == 0) {
+                    return i + 1;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unterminated JSON value");
+    }
+
+    private int skipWhitespace(int position, int end) {
+        while (position < end && isWhitespace(data[position])) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private String decodeJsonString(int start, int end) {
+        StringBuilder builder = new StringBuilder(end - start);
+        int runStart = start;
+        for (int i = start; i < end; i++) {
+            if (data[i] != '\\') {
+                continue;
+            }
+            builder.append(new String(data, runStart, i - runStart, StandardCharsets.UTF_8));
+            if (++i >= end) {
+                throw new IllegalArgumentException("Invalid escape at end of string");
+            }
+            switch (data[i]) {
+                case 'n' -> builder.append('\n');
+                case 'r' -> builder.append('\r');
+                case 't' -> builder.append('\t');
+                case 'b' -> builder.append('\b');
+                case 'f' -> builder.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= end) {
+                        throw new IllegalArgumentException("Invalid unicode escape");
+                    }
+                    builder.append((char) Integer.parseInt(new String(data, i + 1, 4, StandardCharsets.ISO_8859_1), 16));
+                    i += 4;
+                }
+                default -> builder.append((char) data[i]);
+            }
+            runStart = i + 1;
+        }
+        builder.append(new String(data, runStart, end - runStart, StandardCharsets.UTF_8));
+        return builder.toString();
+    }
+
+    // ---- 二进制 ----
+
+    private void scanBinary(int position, int end) {
+        if (end - position < BinaryFrameCodec.BODY_HEADER_SIZE) {
+            throw new IllegalArgumentException("Truncated action frame");
+        }
+        byte kind = data[position];
+        if (kind != BinaryFrameCodec.KIND_ACTION) {
+            throw new IllegalArgumentException("Unexpected frame kind: " + kind);
+        }
+        int id = (data[position + 1] & 0xFF) | (data[position + 2] & 0xFF) << 8;
+        int argc = data[position + 3] & 0xFF;
+        position += BinaryFrameCodec.BODY_HEADER_SIZE;
+
+        if (id != CppAction.CUSTOM_ID) {
+            knownAction = CppAction.byId(id);
+            if (knownAction == null) {
+                throw new IllegalArgumentException("Unknown action id: " + id);
+            }
+            actionId = id;
+        } else if (argc == 0) {
+            throw new IllegalArgumentException("Custom action frame without name");
+        }
+
+        for (int i = 0; i < argc; i++) {
+            if (position >= end) {
+                throw new IllegalArgumentException("Truncated action frame");
+            }
+            int field = addField();
+            byte tag = data[position++];
+            int size = switch (tag) {
+                case BinaryFrameCodec.TAG_NULL -> 0;
+                case BinaryFrameCodec.TAG_STRING -> {
+                    requireBytes(position, 4, end);
+                    int length = readIntLE(position);
+                    position += 4;
+                    if (length < 0) {
+                        throw new IllegalArgumentException("Invalid string length: " + length);
+                    }
+                    yield length;
+                }
+                case BinaryFrameCodec.TAG_INT -> 4;
+                case BinaryFrameCodec.TAG_LONG, BinaryFrameCodec.TAG_DOUBLE -> 8;
+                case BinaryFrameCodec.TAG_BOOL -> 1;
+                case BinaryFrameCodec.TAG_UUID -> 16;
+                default -> throw new IllegalArgumentException("Unknown argument tag: " + tag);
+            };
+            requireBytes(position, size, end);
+            valueStart[field] = position;
+            valueEnd[field] = position + size;
+            escaped[field] = false;
+            valueType[field] = switch (tag) {
+                case BinaryFrameCodec.TAG_NULL -> TYPE_NULL;
+                case BinaryFrameCodec.TAG_STRING -> TYPE_STRING;
+                case BinaryFrameCodec.TAG_BOOL -> data[position] != 0 ? TYPE_TRUE : TYPE_FALSE;
+                case BinaryFrameCodec.TAG_UUID -> TYPE_COMPOUND;
+                default -> TYPE_NUMBER;
+            };
+            binaryTag[field] = tag;
+            position += size;
+        }
+
+        if (knownAction == null) {
+            if (valueType[0] != TYPE_STRING) {
+                throw new IllegalArgumentException("Custom action name is not a string");
+            }
+            actionField = 0;
+        }
+    }
+
+    private int binaryIndexOf(String field) {
+        if (knownAction != null) {
+            int index = knownAction.indexOf(field);
+            return index >= 0 && index < fieldCount ? index : -1;
+        }
+        // 自定义动作：字段名为 argN，对应名称之后的第N个参数
+        if (!field.startsWith("arg") || field.length() == 3) {
+            return -1;
+        }
+        int position = 0;
+        for (int i = 3; i < field.length(); i++) {
+            int digit = field.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || position > BinaryFrameCodec.MAX_ARGS) {
+                return -1;
+            }
+            position = position * 10 + digit;
+        }
+        int index = position + 1;
+        return index < fieldCount ? index : -1;
+    }
+
+    private long binaryLong(int index) {
+        int start = valueStart[index];
+        return switch (binaryTag[index]) {
+            case BinaryFrameCodec.TAG_INT -> readIntLE(start);
+            case BinaryFrameCodec.TAG_LONG -> readLongLE(start);
+            default -> (long) Double.longBitsToDouble(readLongLE(start));
+        };
+    }
+
+    private double binaryDouble(int index) {
+        return binaryTag[index] == BinaryFrameCodec.TAG_DOUBLE
+                ? Double.longBitsToDouble(readLongLE(valueStart[index]))
+                : binaryLong(index);
+    }
+
+    private String binaryNumberText(int index) {
+        return binaryTag[index] == BinaryFrameCodec.TAG_DOUBLE
+                ? Double.toString(binaryDouble(index))
+                : Long.toString(binaryLong(index));
+    }
+
+    private static void requireBytes(int position, int size, int end) {
+        if (size > end - position) {
+            throw new IllegalArgumentException("Truncated action frame");
+        }
+    }
+
+    private int readIntLE(int position) {
+        return (data[position] & 0xFF)
+                | (data[position + 1] & 0xFF) << 8
+                | (data[position + 2] & 0xFF) << 16
+                | (data[position + 3] & 0xFF) << 24;
+    }
+
+    private long readLongLE(int position) {
+        return (readIntLE(position) & 0xFFFFFFFFL) | (long) readIntLE(position + 4) << 32;
+    }
+
+    private int addField() {
+        if (fieldCount == valueStart.length) {
+            int capacity = fieldCount * 2;
+            keyStart = Arrays.copyOf(keyStart, capacity);
+            keyEnd = Arrays.copyOf(keyEnd, capacity);
+            valueStart = Arrays.copyOf(valueStart, capacity);
+            valueEnd = Arrays.copyOf(valueEnd, capacity);
+            valueType = Arrays.copyOf(valueType, capacity);
+            binaryTag = Arrays.copyOf(binaryTag, capacity);
+            escaped = Arrays.copyOf(escaped, capacity);
+        }
+        return fieldCount++;
+    }
+}
@@ -0,0 +1,54 @@
+package com.github.tranforcpp.protocol;
+
+/**
+ * 二进制帧编解码器
+ * <p>
+ * 实现Java与C++进程之间长度前缀的二进制帧格式，双方都无需扫描引号和换行，
+ * 也省去了JSON树的构建。所有多字节整数均为小端序，与tranforcpp_api.h保持一致。
+ * <p>
+ * 帧格式：
+ * - u32 帧体长度（不含长度字段本身）
+ * - u8 帧类型（1=事件, 2=动作, 3=已编号事件, 4=句柄定义, 5=同步裁决请求, 6=查询响应）
+ * - u16 事件/动作ID（0表示自定义，此时第一个参数为名称字符串；句柄定义帧中为句柄表ID）
+ * - u8 参数个数
+ * - 仅已编号事件：u32 按玩家递增的序号
+ * - 仅同步裁决请求：u32 请求ID，C++进程以 verdict 动作回复
+ * - 仅查询响应：u32 查询ID + u32 参数个数（结果可能超过255个参数，帧头中的参数个数为0）
+ * - 参数列表：u8 类型标签 + 负载
+ * <p>
+ * 事件帧由 {@link EventEncoder} 流式编码，动作帧由 {@link ActionReader} 按需读取，本类只定义帧格式常量。
+ */
+public final class BinaryFrameCodec {
+
+    public static final byte KIND_EVENT = 1;
+    public static final byte KIND_ACTION = 2;
+    public static final byte KIND_SEQUENCED_EVENT = 3;
+    public static final byte KIND_HANDLES = 4;
+    public static final byte KIND_REQUEST = 5;
+    public static final byte KIND_RESPONSE = 6;
+
+    public static final int TABLE_PLAYER = 1;
+    public static final int TABLE_WORLD = 2;
+    public static final int TABLE_MATERIAL = 3;
+
+    public static final byte TAG_NULL = 0;
+    public static final byte TAG_STRING = 1;
+    public static final byte TAG_INT = 2;
+    public static final byte TAG_LONG = 3;
+    public static final byte TAG_DOUBLE = 4;
+    public static final byte TAG_BOOL = 5;
+    public static final byte TAG_UUID = 6;
+    public static final byte TAG_PLAYER = 7;
+    public static final byte TAG_WORLD = 8;
+    public static final byte TAG_MATERIAL = 9;
+
+    public static final int LENGTH_FIELD_SIZE = 4;
+    public static final int BODY_HEADER_SIZE = 4;
+    public static final int SEQUENCE_SIZE = 4;
+    public static final int REQUEST_ID_SIZE = 4;
+    public static final int MAX_FRAME_SIZE = 1 << 20;
+    public static final int MAX_ARGS = 255;
+
+    private BinaryFrameCodec() {
+    }
+}
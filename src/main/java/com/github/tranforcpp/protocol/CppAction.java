@@ -0,0 +1,85 @@
+package com.github.tranforcpp.protocol;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * C++进程发送的动作ID表
+ * <p>
+ * 二进制帧中的动作按位置传递参数，这里记录每个动作的参数名，
+ * 解码时据此还原为与JSON格式相同的字段。ID必须与tranforcpp_api.h中的
+ * tranforcpp::frame::ActionId 保持一致。
+ */
+public enum CppAction {
+    BROADCAST(1, "broadcast", "message", "args"),
+    SEND_MESSAGE(2, "sendMessage", "player", "message", "args"),
+    CONSOLE(3, "console", "message"),
+    EXECUTE_COMMAND(4, "executeCommand", "command"),
+    DISPATCH_COMMAND(5, "dispatchCommand", "command", "sync", "id"),
+    SUBSCRIBE(6, "subscribe", "events"),
+    UNSUBSCRIBE(7, "unsubscribe", "events"),
+    FILTER(8, "filter", "event", "expression"),
+    INTERCEPT(9, "intercept", "events"),
+    VERDICT(10, "verdict", "id", "cancel"),
+    QUERY(11, "query", "id", "queries"),
+    MULTICAST(12, "multicast", "targets", "message", "args"),
+    READY(13, "ready");
+
+    public static final int CUSTOM_ID = 0;
+
+    private static final CppAction[] BY_ID;
+
+    static {
+        int maxId = 0;
+        for (CppAction action : values()) {
+            maxId = Math.max(maxId, action.id);
+        }
+        BY_ID = new CppAction[maxId + 1];
+        for (CppAction action : values()) {
+            BY_ID[action.id] = action;
+        }
+    }
+
+    private final int id;
+    private final String actionName;
+    private final byte[] actionNameBytes;
+    private final String[] fields;
+
+    CppAction(int id, String actionName, String... fields) {
+        this.id = id;
+        this.actionName = actionName;
+        this.actionNameBytes = actionName.getBytes(StandardCharsets.UTF_8);
+        this.fields = fields;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getActionName() {
+        return actionName;
+    }
+
+    byte[] getActionNameBytes() {
+        return actionNameBytes;
+    }
+
+    /**
+     * 字段名对应的参数位置，未知字段返回-1
+     */
+    public int indexOf(String field) {
+        for (int i = 0; i < fields.length; i++) {
+            if (fields[i].equals(field)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public String fieldName(int index) {
+        return index < fields.length ? fields[index] : "arg" + index;
+    }
+
+    public static CppAction byId(int id) {
+        return id > 0 && id < BY_ID.length ? BY_ID[id] : null;
+    }
+}
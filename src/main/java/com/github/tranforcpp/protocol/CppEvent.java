@@ -0,0 +1,101 @@
+package com.github.tranforcpp.protocol;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tranforcpp.protocol.EventField.bool;
+import static com.github.tranforcpp.protocol.EventField.float64;
+import static com.github.tranforcpp.protocol.EventField.int32;
+import static com.github.tranforcpp.protocol.EventField.material;
+import static com.github.tranforcpp.protocol.EventField.player;
+import static com.github.tranforcpp.protocol.EventField.string;
+import static com.github.tranforcpp.protocol.EventField.uuid;
+import static com.github.tranforcpp.protocol.EventField.world;
+
+/**
+ * 发送给C++进程的事件ID与负载字段表
+ * <p>
+ * 二进制帧中用固定的数字ID代替事件名称，ID必须与tranforcpp_api.h中的
+ * tranforcpp::frame::EventId 保持一致。新增事件只能追加，不能修改已有ID。
+ * 未在表中登记的事件使用 {@link #CUSTOM_ID}，并把事件名作为第一个参数发送。
+ * <p>
+ * 字段表描述 ProcessManager 中监听器发送的参数顺序和类型：
+ * - 旧版字段（名称、类型名等字符串）排在最前面，原有C++回调的参数位置不变
+ * - 新字段只能追加在末尾，UUID、坐标、实体ID和数值按原生类型编码
+ * - 玩家、世界、材料字段在二进制格式下为 {@link com.github.tranforcpp.pipeline.SessionHandles} 分配的句柄，JSON格式下仍为名称
+ * - 修改字段表后需要重新运行 {@link CppHeaderGenerator} 更新头文件中的事件结构体
+ */
+public enum CppEvent {
+    PLAYER_JOIN(1, "PlayerJoin", player("player")),
+    PLAYER_QUIT(2, "PlayerQuit", player("player")),
+    BLOCK_BREAK(3, "BlockBreak", player("player"), material("block"), world("world"), int32("x"), int32("y"), int32("z")),
+    BLOCK_PLACE(4, "BlockPlace", player("player"), material("block"), world("world"), int32("x"), int32("y"), int32("z")),
+    ENTITY_DAMAGE(5, "EntityDamage", string("entityName"), float64("damage"),
+            int32("entityId"), uuid("entityUuid"), string("entityType"), string("cause"), world("world")),
+    ENTITY_DEATH(6, "EntityDeath", string("entityName"),
+            int32("entityId"), uuid("entityUuid"), string("entityType"), world("world")),
+    PLAYER_DEATH(7, "PlayerDeath", player("player"), string("deathMessage")),
+    INVENTORY_CLICK(8, "InventoryClick", player("player"), int32("slot"), material("item")),
+    INVENTORY_OPEN(9, "InventoryOpen", player("player")),
+    INVENTORY_CLOSE(10, "InventoryClose", player("player")),
+    PLAYER_MOVE(11, "PlayerMove", player("player"), world("world"),
+            float64("x"), float64("y"), float64("z"), float64("yaw"), float64("pitch")),
+    PLAYER_RESPAWN(12, "PlayerRespawn", player("player")),
+    BLOCK_IGNITE(13, "BlockIgnite", player("player"), material("block"), world("world"), int32("x"), int32("y"), int32("z")),
+    ENTITY_SPAWN(14, "EntitySpawn", string("entityType"),
+            int32("entityId"), uuid("entityUuid"), world("world"), float64("x"), float64("y"), float64("z")),
+    PLAYER_INTERACT(15, "PlayerInteract", player("player"), string("action"), material("item")),
+    PLAYER_DROP_ITEM(16, "PlayerDropItem", player("player"), material("item"), int32("amount")),
+    PLAYER_PICKUP_ITEM(17, "PlayerPickupItem", player("player"), material("item"), int32("amount")),
+    SERVER_COMMAND(18, "ServerCommand", string("sender"), string("command")),
+    WORLD_LOAD(19, "WorldLoad", world("world")),
+    WEATHER_CHANGE(20, "WeatherChange", world("world"), bool("raining")),
+    HANGING_BREAK(21, "HangingBreak", string("entityType"), string("cause"),
+            int32("entityId"), uuid("entityUuid"), world("world")),
+    SHUTDOWN(22, "shutdown");
+
+    public static final int CUSTOM_ID = 0;
+
+    private static final Map<String, CppEvent> BY_NAME = new HashMap<>();
+
+    static {
+        for (CppEvent event : values()) {
+            BY_NAME.put(event.eventName, event);
+        }
+    }
+
+    private final int id;
+    private final String eventName;
+    private final List<EventField> fields;
+
+    CppEvent(int id, String eventName, EventField... fields) {
+        this.id = id;
+        this.eventName = eventName;
+        this.fields = List.of(fields);
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    public List<EventField> getFields() {
+        return fields;
+    }
+
+    public static int idOf(String eventName) {
+        CppEvent event = BY_NAME.get(eventName);
+        return event != null ? event.id : CUSTOM_ID;
+    }
+
+    /**
+     * 按事件名查找，未登记的事件返回null
+     */
+    public static CppEvent byName(String eventName) {
+        return BY_NAME.get(eventName);
+    }
+}
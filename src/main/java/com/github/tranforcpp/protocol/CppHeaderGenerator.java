@@ -0,0 +1,110 @@
+package com.github.tranforcpp.protocol;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 根据 {@link CppEvent} 的字段表生成 tranforcpp_api.h 中的事件结构体
+ * <p>
+ * 每个内置事件生成一个 {@code tranforcpp::events::<事件名>} 结构体，成员按字段类型声明，
+ * {@code decode(frame)} 直接从二进制帧的参数中取出原生数值，C++端不需要再解析字符串。
+ * <p>
+ * 用法：
+ * - 不带参数运行时把生成的代码输出到标准输出
+ * - 带头文件路径运行时替换 {@link #BEGIN_MARKER} 与 {@link #END_MARKER} 之间的内容
+ */
+public final class CppHeaderGenerator {
+
+    public static final String BEGIN_MARKER = "// BEGIN GENERATED EVENT PAYLOADS";
+    public static final String END_MARKER = "// END GENERATED EVENT PAYLOADS";
+
+    private static final String INDENT = "    ";
+
+    private CppHeaderGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.print(generate());
+            return;
+        }
+        Path header = Path.of(args[0]);
+        String content = Files.readString(header, StandardCharsets.UTF_8);
+        Files.writeString(header, replaceGenerated(content), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 替换头文件中两个标记之间的生成代码，标记本身保留
+     */
+    public static String replaceGenerated(String header) {
+        int begin = header.indexOf(BEGIN_MARKER);
+        int end = header.indexOf(END_MARKER);
+        if (begin < 0 || end < begin) {
+            throw new IllegalArgumentException("Header does not contain generated section markers");
+        }
+        int bodyStart = header.indexOf('\n', begin) + 1;
+        int bodyEnd = header.lastIndexOf('\n', end) + 1;
+        return header.substring(0, bodyStart) + generate() + header.substring(bodyEnd);
+    }
+
+    /**
+     * 生成标记之间的全部代码
+     */
+    public static String generate() {
+        StringBuilder out = new StringBuilder();
+        line(out, 1, "// 由 CppHeaderGenerator 根据 Java 端 CppEvent 的字段表生成，请勿手动修改");
+        line(out, 1, "namespace events {");
+        boolean first = true;
+        for (CppEvent event : CppEvent.values()) {
+            if (event.getFields().isEmpty()) {
+                continue;
+            }
+            if (!first) {
+                out.append('\n');
+            }
+            first = false;
+            appendStruct(out, event);
+        }
+        line(out, 1, "}");
+        return out.toString();
+    }
+
+    private static void appendStruct(StringBuilder out, CppEvent event) {
+        List<EventField> fields = event.getFields();
+        String name = event.getEventName();
+        line(out, 2, "struct " + name + " {");
+        line(out, 3, "static constexpr frame::EventId Id = frame::" + name + ";");
+        for (EventField field : fields) {
+            line(out, 3, field.getType().getCppType() + " " + field.getName() + defaultValue(field.getType()) + ";");
+        }
+        out.append('\n');
+        line(out, 3, "// 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false");
+        line(out, 3, "bool decode(const frame::Frame& frame) {");
+        line(out, 4, "if (frame.id != Id || frame.args.size() < " + fields.size() + ") {");
+        line(out, 5, "return false;");
+        line(out, 4, "}");
+        for (int i = 0; i < fields.size(); i++) {
+            EventField field = fields.get(i);
+            line(out, 4, field.getName() + " = frame.args[" + i + "]." + field.getType().getCppAccessor() + ";");
+        }
+        line(out, 4, "return true;");
+        line(out, 3, "}");
+        line(out, 2, "};");
+    }
+
+    private static String defaultValue(EventField.Type type) {
+        return switch (type) {
+            case INT, LONG, PLAYER, WORLD, MATERIAL -> " = 0";
+            case DOUBLE -> " = 0.0";
+            case BOOL -> " = false";
+            case STRING, UUID -> "";
+        };
+    }
+
+    private static void line(StringBuilder out, int depth, String text) {
+        out.append(INDENT.repeat(depth)).append(text).append('\n');
+    }
+}
@@ -0,0 +1,513 @@
+package com.github.tranforcpp.protocol;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 流式事件编码器
+ * <p>
+ * 把事件名和参数直接写入可复用的字节缓冲区，生成可直接写入传输层的完整消息
+ * （JSON格式带换行，二进制格式带长度前缀）。不构建JSON树，也不为参数分配中间字符串，
+ * 字符串的UTF-8编码与JSON转义都在写入时内联完成，基本类型参数不会装箱。
+ * <p>
+ * 为兼容旧版C++插件，JSON格式中的所有参数仍以字符串形式输出；
+ * 二进制格式则按类型标签写入原生数值。JSON格式下的double参数仍需经过 {@link Double#toString(double)}。
+ * <p>
+ * 帧的大小不能超过 {@link BinaryFrameCodec#MAX_FRAME_SIZE}（为写线程插入的序号或请求ID预留4字节），
+ * 超长的帧在 {@link #end()} 时被拒绝，不会到达C++进程。
+ * <p>
+ * 本类不是线程安全的，通常每个线程持有一个实例并在事件之间复用。
+ */
+public final class EventEncoder {
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final char LINE_SEPARATOR = 0x2028;
+    private static final char PARAGRAPH_SEPARATOR = 0x2029;
+    private static final byte[] JSON_EVENT_PREFIX = ascii("{\"event\":\"");
+    private static final byte[] JSON_REQUEST_PREFIX = ascii("\"request\":");
+    private static final byte[] JSON_RESPONSE_PREFIX = ascii("{\"response\":");
+    private static final byte[] JSON_RESPONSE_ARGS_PREFIX = ascii(",\"args\":[");
+    private static final byte[] JSON_ARGS_PREFIX = ascii("\",\"args\":[");
+    private static final byte[] JSON_SUFFIX = ascii("]}\n");
+    private static final byte[] JSON_NULL = ascii("\"null\"");
+    private static final byte[] JSON_TRUE = ascii("\"true\"");
+    private static final byte[] JSON_FALSE = ascii("\"false\"");
+    private static final byte[] HEX_DIGITS = ascii("0123456789abcdef");
+    private static final byte[] MIN_LONG = ascii("-9223372036854775808");
+    // 写线程在帧头后插入的序号与同步裁决的请求ID都是4字节
+    private static final int MAX_BODY_SIZE = BinaryFrameCodec.MAX_FRAME_SIZE - BinaryFrameCodec.SEQUENCE_SIZE;
+    private static final LongAdder OVERSIZED = new LongAdder();
+
+    private byte[] buffer = new byte[INITIAL_CAPACITY];
+    private int length;
+    private WireFormat format = WireFormat.JSON;
+    private int argCount;
+    private int argCountOffset;
+    private int wideArgCountOffset = -1;
+
+    private static byte[] ascii(String value) {
+        byte[] bytes = new byte[value.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) value.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * 开始编码一个新事件，丢弃缓冲区中之前的内容
+     */
+    public EventEncoder begin(WireFormat format, String eventName) {
+        this.format = format;
+        this.length = 0;
+        this.argCount = 0;
+        this.wideArgCountOffset = -1;
+        if (format == WireFormat.BINARY) {
+            int id = CppEvent.idOf(eventName);
+            writeFrameHeader(BinaryFrameCodec.KIND_EVENT, id);
+            if (id == CppEvent.CUSTOM_ID) {
+                string(eventName);
+            }
+        } else {
+            writeBytes(JSON_EVENT_PREFIX);
+            writeJsonEscaped(eventName);
+            writeBytes(JSON_ARGS_PREFIX);
+        }
+        return this;
+    }
+
+    /**
+     * 开始编码一个指定类型的二进制帧（如句柄定义帧），丢弃缓冲区中之前的内容
+     */
+    public EventEncoder begin(WireFormat format, byte kind, int id) {
+        if (format != WireFormat.BINARY) {
+            throw new IllegalArgumentException("Only binary frames have a frame kind");
+        }
+        this.format = format;
+        this.length = 0;
+        this.argCount = 0;
+        this.wideArgCountOffset = -1;
+        writeFrameHeader(kind, id);
+        return this;
+    }
+
+    /**
+     * 开始编码一个查询响应，丢弃缓冲区中之前的内容
+     * <p>
+     * 二进制格式下帧类型为 {@link BinaryFrameCodec#KIND_RESPONSE}，帧头后为u32查询ID与u32参数个数，不受255个参数的限制；
+     * JSON格式为 {@code {"response":<ID>,"args":[...]}}。
+     */
+    public EventEncoder beginResponse(WireFormat format, int queryId) {
+        this.format = format;
+        this.length = 0;
+        this.argCount = 0;
+        this.wideArgCountOffset = -1;
+        if (format == WireFormat.BINARY) {
+            writeFrameHeader(BinaryFrameCodec.KIND_RESPONSE, 0);
+            ensureCapacity(8);
+            putIntLE(length, queryId);
+            wideArgCountOffset = length + 4;
+            length += 8;
+        } else {
+            writeBytes(JSON_RESPONSE_PREFIX);
+            writeDecimal(queryId & 0xFFFFFFFFL);
+            writeBytes(JSON_RESPONSE_ARGS_PREFIX);
+        }
+        return this;
+    }
+
+    private void writeFrameHeader(byte kind, int id) {
+        ensureCapacity(BinaryFrameCodec.LENGTH_FIELD_SIZE + BinaryFrameCodec.BODY_HEADER_SIZE);
+        length = BinaryFrameCodec.LENGTH_FIELD_SIZE;
+        buffer[length++] = kind;
+        buffer[length++] = (byte) id;
+        buffer[length++] = (byte) (id >>> 8);
+        argCountOffset = length++;
+    }
+
+    public EventEncoder string(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        nextArg();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_STRING);
+            int lengthOffset = length;
+            ensureCapacity(4);
+            length += 4;
+            int start = length;
+            writeUtf8(value);
+            putIntLE(lengthOffset, length - start);
+        } else {
+            writeByte('"');
+            writeJsonEscaped(value);
+            writeByte('"');
+        }
+        return this;
+    }
+
+    public EventEncoder int32(int value) {
+        nextArg();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_INT);
+            ensureCapacity(4);
+            putIntLE(length, value);
+            length += 4;
+        } else {
+            writeByte('"');
+            writeDecimal(value);
+            writeByte('"');
+        }
+        return this;
+    }
+
+    public EventEncoder int64(long value) {
+        nextArg();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_LONG);
+            writeLongLE(value);
+        } else {
+            writeByte('"');
+            writeDecimal(value);
+            writeByte('"');
+        }
+        return this;
+    }
+
+    public EventEncoder float64(double value) {
+        nextArg();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_DOUBLE);
+            writeLongLE(Double.doubleToRawLongBits(value));
+        } else {
+            writeByte('"');
+            writeAscii(Double.toString(value));
+            writeByte('"');
+        }
+        return this;
+    }
+
+    public EventEncoder bool(boolean value) {
+        nextArg();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_BOOL);
+            writeByte(value ? 1 : 0);
+        } else {
+            writeBytes(value ? JSON_TRUE : JSON_FALSE);
+        }
+        return this;
+    }
+
+    public EventEncoder uuid(UUID value) {
+        if (value == null) {
+            return nullValue();
+        }
+        nextArg();
+        long most = value.getMostSignificantBits();
+        long least = value.getLeastSignificantBits();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_UUID);
+            writeLongLE(most);
+            writeLongLE(least);
+        } else {
+            ensureCapacity(38);
+            buffer[length++] = '"';
+            writeHex(most >>> 32, 8);
+            buffer[length++] = '-';
+            writeHex(most >>> 16, 4);
+            buffer[length++] = '-';
+            writeHex(most, 4);
+            buffer[length++] = '-';
+            writeHex(least >>> 48, 4);
+            buffer[length++] = '-';
+            writeHex(least, 12);
+            buffer[length++] = '"';
+        }
+        return this;
+    }
+
+    /**
+     * 句柄参数（玩家、世界、材料），只用于二进制格式，JSON格式应直接发送名称
+     *
+     * @param tag {@link BinaryFrameCodec#TAG_PLAYER}、{@link BinaryFrameCodec#TAG_WORLD} 或 {@link BinaryFrameCodec#TAG_MATERIAL}
+     */
+    public EventEncoder handle(byte tag, int handle) {
+        if (format != WireFormat.BINARY) {
+            throw new IllegalStateException("Handles are only encoded in binary frames");
+        }
+        nextArg();
+        writeByte(tag);
+        ensureCapacity(4);
+        putIntLE(length, handle);
+        length += 4;
+        return this;
+    }
+
+    public EventEncoder nullValue() {
+        nextArg();
+        if (format == WireFormat.BINARY) {
+            writeByte(BinaryFrameCodec.TAG_NULL);
+        } else {
+            // 与旧版行为一致，JSON中的null参数以字符串"null"发送
+            writeBytes(JSON_NULL);
+        }
+        return this;
+    }
+
+    /**
+     * 按运行时类型编码任意参数，供 {@code sendEvent(String, Object...)} 等兼容接口使用
+     */
+    public EventEncoder object(Object value) {
+        if (value == null) {
+            return nullValue();
+        } else if (value instanceof String string) {
+            return string(string);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return int32(((Number) value).intValue());
+        } else if (value instanceof Long number) {
+            return int64(number);
+        } else if (value instanceof Double || value instanceof Float) {
+            return float64(((Number) value).doubleValue());
+        } else if (value instanceof Boolean bool) {
+            return bool(bool);
+        } else if (value instanceof UUID id) {
+            return uuid(id);
+        }
+        return string(value.toString());
+    }
+
+    /**
+     * 完成当前事件，之后可通过 {@link #array()} 与 {@link #length()} 取得编码结果
+     *
+     * @throws FrameTooLargeException 帧超过 {@link BinaryFrameCodec#MAX_FRAME_SIZE}，调用方应丢弃该帧
+     */
+    public EventEncoder end() {
+        int bodySize = format == WireFormat.BINARY
+                ? length - BinaryFrameCodec.LENGTH_FIELD_SIZE
+                : length + JSON_SUFFIX.length;
+        if (bodySize > MAX_BODY_SIZE) {
+            OVERSIZED.increment();
+            throw new FrameTooLargeException(bodySize);
+        }
+        if (format == WireFormat.BINARY) {
+            putIntLE(0, length - BinaryFrameCodec.LENGTH_FIELD_SIZE);
+            if (wideArgCountOffset >= 0) {
+                buffer[argCountOffset] = 0;
+                putIntLE(wideArgCountOffset, argCount);
+            } else {
+                buffer[argCountOffset] = (byte) argCount;
+            }
+        } else {
+            writeBytes(JSON_SUFFIX);
+        }
+        return this;
+    }
+
+    /**
+     * 把已完成的事件改写为同步裁决请求，须在 {@link #end()} 之后调用
+     * <p>
+     * 二进制格式下帧类型改为 {@link BinaryFrameCodec#KIND_REQUEST} 并在帧头后插入请求ID；
+     * JSON格式下在对象开头插入 {@code "request":<ID>} 字段，旧版C++插件会忽略该字段。
+     */
+    public EventEncoder toRequest(int requestId) {
+        if (format == WireFormat.BINARY) {
+            int offset = BinaryFrameCodec.LENGTH_FIELD_SIZE + BinaryFrameCodec.BODY_HEADER_SIZE;
+            insertGap(offset, BinaryFrameCodec.REQUEST_ID_SIZE);
+            putIntLE(offset, requestId);
+            buffer[BinaryFrameCodec.LENGTH_FIELD_SIZE] = BinaryFrameCodec.KIND_REQUEST;
+            putIntLE(0, length - BinaryFrameCodec.LENGTH_FIELD_SIZE);
+        } else {
+            long id = requestId & 0xFFFFFFFFL;
+            int digits = 1;
+            for (long remaining = id / 10; remaining > 0; remaining /= 10) {
+                digits++;
+            }
+            insertGap(1, JSON_REQUEST_PREFIX.length + digits + 1);
+            int end = length;
+            length = 1;
+            writeBytes(JSON_REQUEST_PREFIX);
+            writeDecimal(id);
+            writeByte(',');
+            length = end;
+        }
+        return this;
+    }
+
+    /**
+     * 内部缓冲区，只有前 {@link #length()} 个字节有效，下次 begin 之前保持不变
+     */
+    public byte[] array() {
+        return buffer;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 因超过 {@link BinaryFrameCodec#MAX_FRAME_SIZE} 而被拒绝的帧数（所有编码器合计）
+     */
+    public static long getOversizedCount() {
+        return OVERSIZED.sum();
+    }
+
+    private void nextArg() {
+        if (format == WireFormat.BINARY) {
+            if (argCount == BinaryFrameCodec.MAX_ARGS && wideArgCountOffset < 0) {
+                throw new IllegalArgumentException("Too many event arguments");
+            }
+        } else if (argCount > 0) {
+            writeByte(',');
+        }
+        argCount++;
+    }
+
+    private void writeJsonEscaped(String value) {
+        int size = value.length();
+        for (int i = 0; i < size; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> writeEscape('"');
+                case '\\' -> writeEscape('\\');
+                case '\n' -> writeEscape('n');
+                case '\r' -> writeEscape('r');
+                case '\t' -> writeEscape('t');
+                case '\b' -> writeEscape('b');
+                case '\f' -> writeEscape('f');
+                default -> {
+                    if (c < 0x20 || c == LINE_SEPARATOR || c == PARAGRAPH_SEPARATOR) {
+                        ensureCapacity(6);
+                        buffer[length++] = '\\';
+                        buffer[length++] = 'u';
+                        writeHex(c, 4);
+                    } else if (c < 0x80) {
+                        writeByte(c);
+                    } else {
+                        i = writeUtf8Char(value, i);
+                    }
+                }
+            }
+        }
+    }
+
+    private void writeEscape(char c) {
+        ensureCapacity(2);
+        buffer[length++] = '\\';
+        buffer[length++] = (byte) c;
+    }
+
+    private void writeUtf8(String value) {
+        int size = value.length();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else {
+                i = writeUtf8Char(value, i);
+            }
+        }
+    }
+
+    /**
+     * 写出一个非ASCII字符的UTF-8编码，返回最后消耗的字符下标
+     */
+    private int writeUtf8Char(String value, int index) {
+        char c = value.charAt(index);
+        ensureCapacity(4);
+        if (c < 0x800) {
+            buffer[length++] = (byte) (0xC0 | (c >> 6));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+            buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            // 孤立的代理字符无法编码，与String.getBytes一致替换为'?'
+            buffer[length++] = '?';
+        } else {
+            buffer[length++] = (byte) (0xE0 | (c >> 12));
+            buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[length++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return index;
+    }
+
+    private void writeDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeBytes(MIN_LONG);
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining > 0; remaining /= 10) {
+            digits++;
+        }
+        int position = length + digits;
+        length = position;
+        do {
+            buffer[--position] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+    }
+
+    private void writeHex(long value, int digits) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            buffer[length++] = HEX_DIGITS[(int) (value >>> shift) & 0xF];
+        }
+    }
+
+    private void writeAscii(String value) {
+        int size = value.length();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            buffer[length++] = (byte) value.charAt(i);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void insertGap(int offset, int size) {
+        ensureCapacity(size);
+        System.arraycopy(buffer, offset, buffer, offset + size, length - offset);
+        length += size;
+    }
+
+    private void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) value;
+    }
+
+    private void writeLongLE(long value) {
+        ensureCapacity(8);
+        for (int i = 0; i < 8; i++) {
+            buffer[length++] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private void putIntLE(int offset, int value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >>> 8);
+        buffer[offset + 2] = (byte) (value >>> 16);
+        buffer[offset + 3] = (byte) (value >>> 24);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
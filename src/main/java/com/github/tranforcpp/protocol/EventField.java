@@ -0,0 +1,111 @@
+package com.github.tranforcpp.protocol;
+
+/**
+ * 事件负载中的一个字段
+ * <p>
+ * {@link CppEvent} 用字段表描述每个内置事件的参数顺序和类型，
+ * tranforcpp_api.h 中的事件结构体由 {@link CppHeaderGenerator} 按同一张表生成，两端不会各写各的。
+ */
+public final class EventField {
+
+    private final String name;
+    private final Type type;
+
+    private EventField(String name, Type type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    public static EventField string(String name) {
+        return new EventField(name, Type.STRING);
+    }
+
+    public static EventField int32(String name) {
+        return new EventField(name, Type.INT);
+    }
+
+    public static EventField int64(String name) {
+        return new EventField(name, Type.LONG);
+    }
+
+    public static EventField float64(String name) {
+        return new EventField(name, Type.DOUBLE);
+    }
+
+    public static EventField bool(String name) {
+        return new EventField(name, Type.BOOL);
+    }
+
+    public static EventField uuid(String name) {
+        return new EventField(name, Type.UUID);
+    }
+
+    /**
+     * 玩家字段：二进制格式下为玩家句柄，JSON格式下为玩家名
+     */
+    public static EventField player(String name) {
+        return new EventField(name, Type.PLAYER);
+    }
+
+    /**
+     * 世界字段：二进制格式下为世界句柄，JSON格式下为世界名
+     */
+    public static EventField world(String name) {
+        return new EventField(name, Type.WORLD);
+    }
+
+    /**
+     * 材料字段：二进制格式下为材料句柄（枚举序号），JSON格式下为材料名
+     */
+    public static EventField material(String name) {
+        return new EventField(name, Type.MATERIAL);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * 字段类型，对应二进制帧中的类型标签与生成的C++成员类型
+     */
+    public enum Type {
+        STRING(BinaryFrameCodec.TAG_STRING, "std::string", "str"),
+        INT(BinaryFrameCodec.TAG_INT, "int32_t", "i32()"),
+        LONG(BinaryFrameCodec.TAG_LONG, "int64_t", "i64()"),
+        DOUBLE(BinaryFrameCodec.TAG_DOUBLE, "double", "f64()"),
+        BOOL(BinaryFrameCodec.TAG_BOOL, "bool", "boolean"),
+        UUID(BinaryFrameCodec.TAG_UUID, "frame::Uuid", "uuid()"),
+        PLAYER(BinaryFrameCodec.TAG_PLAYER, "uint32_t", "handle()"),
+        WORLD(BinaryFrameCodec.TAG_WORLD, "uint32_t", "handle()"),
+        MATERIAL(BinaryFrameCodec.TAG_MATERIAL, "uint32_t", "handle()");
+
+        private final byte tag;
+        private final String cppType;
+        private final String cppAccessor;
+
+        Type(byte tag, String cppType, String cppAccessor) {
+            this.tag = tag;
+            this.cppType = cppType;
+            this.cppAccessor = cppAccessor;
+        }
+
+        public byte getTag() {
+            return tag;
+        }
+
+        public String getCppType() {
+            return cppType;
+        }
+
+        /**
+         * 从 tranforcpp::frame::Arg 读取该类型值的表达式
+         */
+        public String getCppAccessor() {
+            return cppAccessor;
+        }
+    }
+}
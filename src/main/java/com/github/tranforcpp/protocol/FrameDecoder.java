@@ -0,0 +1,167 @@
+package com.github.tranforcpp.protocol;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 帧拆分器
+ * <p>
+ * 把传输层读到的任意大小的数据块拆分为完整的消息，与具体传输方式（管道、共享内存等）无关。
+ * JSON格式按换行拆分，二进制格式按长度前缀拆分。
+ * 每个完整消息以 {@link ByteBuffer} 形式交给 {@link FrameHandler}，
+ * 该缓冲区只在回调期间有效。
+ * <p>
+ * 超过 {@link BinaryFrameCodec#MAX_FRAME_SIZE} 的帧或行会被跳过并计数，不会中断数据流，
+ * 与C++端跳过超长帧的行为一致。
+ * <p>
+ * 本类不是线程安全的，只能由单个读取线程使用。
+ */
+public class FrameDecoder {
+
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+    private static final LongAdder SKIPPED = new LongAdder();
+
+    private final WireFormat format;
+    private final FrameHandler handler;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int start;
+    private int end;
+    private int scanPosition;
+    // 正在跳过的超长二进制帧剩余字节数
+    private long skipRemaining;
+    // 正在丢弃的超长JSON行，直到下一个换行为止
+    private boolean discardingLine;
+
+    public FrameDecoder(WireFormat format, FrameHandler handler) {
+        this.format = format;
+        this.handler = handler;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * 追加一块数据并回调其中所有完整的消息
+     *
+     * @throws IOException 数据流已失去同步（帧长度小于帧头）
+     */
+    public void feed(byte[] data, int offset, int length) throws IOException {
+        ensureCapacity(length);
+        System.arraycopy(data, offset, buffer, end, length);
+        end += length;
+
+        if (format == WireFormat.BINARY) {
+            decodeBinaryFrames();
+        } else {
+            decodeJsonLines();
+        }
+
+        if (start == end) {
+            start = 0;
+            end = 0;
+            scanPosition = 0;
+        }
+    }
+
+    private void decodeJsonLines() {
+        while (scanPosition < end) {
+            if (buffer[scanPosition] != '\n') {
+                scanPosition++;
+                continue;
+            }
+            int lineEnd = scanPosition;
+            if (lineEnd > start && buffer[lineEnd - 1] == '\r') {
+                lineEnd--;
+            }
+            if (discardingLine) {
+                discardingLine = false;
+            } else if (lineEnd - start > BinaryFrameCodec.MAX_FRAME_SIZE) {
+                SKIPPED.increment();
+            } else if (lineEnd > start) {
+                handler.onFrame(ByteBuffer.wrap(buffer, start, lineEnd - start).slice());
+            }
+            scanPosition++;
+            start = scanPosition;
+        }
+        // 未结束的行已超过上限：丢弃已缓冲的部分，后续数据直到换行都不再缓冲
+        if (discardingLine || end - start > BinaryFrameCodec.MAX_FRAME_SIZE) {
+            if (!discardingLine) {
+                discardingLine = true;
+                SKIPPED.increment();
+            }
+            start = end;
+            scanPosition = end;
+        }
+    }
+
+    private void decodeBinaryFrames() throws IOException {
+        while (end > start) {
+            if (skipRemaining > 0) {
+                int skipped = (int) Math.min(skipRemaining, end - start);
+                start += skipped;
+                skipRemaining -= skipped;
+                continue;
+            }
+            if (end - start < BinaryFrameCodec.LENGTH_FIELD_SIZE) {
+                return;
+            }
+            int length = (buffer[start] & 0xFF)
+                    | (buffer[start + 1] & 0xFF) << 8
+                    | (buffer[start + 2] & 0xFF) << 16
+                    | (buffer[start + 3] & 0xFF) << 24;
+            // 长度按无符号解释，超过上限的帧整体跳过
+            long frameLength = Integer.toUnsignedLong(length);
+            if (frameLength > BinaryFrameCodec.MAX_FRAME_SIZE) {
+                SKIPPED.increment();
+                start += BinaryFrameCodec.LENGTH_FIELD_SIZE;
+                skipRemaining = frameLength;
+                continue;
+            }
+            if (length < BinaryFrameCodec.BODY_HEADER_SIZE) {
+                throw new IOException("Invalid frame length from C++ process: " + length);
+            }
+            int frameEnd = start + BinaryFrameCodec.LENGTH_FIELD_SIZE + length;
+            if (frameEnd > end) {
+                return;
+            }
+            ByteBuffer body = ByteBuffer.wrap(buffer, start + BinaryFrameCodec.LENGTH_FIELD_SIZE, length).slice();
+            handler.onFrame(body.order(ByteOrder.LITTLE_ENDIAN));
+            start = frameEnd;
+        }
+    }
+
+    /**
+     * 因超过 {@link BinaryFrameCodec#MAX_FRAME_SIZE} 而被跳过的帧或行数（所有拆分器合计）
+     */
+    public static long getSkippedCount() {
+        return SKIPPED.sum();
+    }
+
+    private void ensureCapacity(int incoming) {
+        if (buffer.length - end >= incoming) {
+            return;
+        }
+        int pending = end - start;
+        if (buffer.length - pending < incoming) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, pending + incoming)];
+            System.arraycopy(buffer, start, grown, 0, pending);
+            buffer = grown;
+        } else {
+            System.arraycopy(buffer, start, buffer, 0, pending);
+        }
+        scanPosition -= start;
+        start = 0;
+        end = pending;
+    }
+
+    @FunctionalInterface
+    public interface FrameHandler {
+        /**
+         * @param payload JSON格式为一行文本（不含换行符），二进制格式为帧体（不含长度前缀）
+         */
+        void onFrame(ByteBuffer payload);
+    }
+}
@@ -0,0 +1,14 @@
+package com.github.tranforcpp.protocol;
+
+/**
+ * 编码后的帧超过 {@link BinaryFrameCodec#MAX_FRAME_SIZE}
+ * <p>
+ * C++端拒绝读取超长的帧，这样的帧不会被发送；由 {@link EventEncoder#end()} 抛出，并计入
+ * {@link EventEncoder#getOversizedCount()}。
+ */
+public final class FrameTooLargeException extends IllegalArgumentException {
+
+    public FrameTooLargeException(int size) {
+        super("Encoded frame of " + size + " bytes exceeds " + BinaryFrameCodec.MAX_FRAME_SIZE + " bytes");
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.tranforcpp.protocol;
+
+import java.util.Locale;
+
+/**
+ * 进程间通信的编码格式
+ * <p>
+ * 决定Java与C++进程之间事件和动作的序列化方式。
+ * 通过config.yml中的 transport.format 选择，并以环境变量
+ * {@value #ENV_NAME} 告知C++进程。
+ * <p>
+ * 支持的格式：
+ * - JSON: 每行一个JSON对象，兼容旧版C++插件
+ * - BINARY: 长度前缀的二进制帧，见 {@link BinaryFrameCodec}
+ */
+public enum WireFormat {
+    JSON("json"),
+    BINARY("binary");
+
+    public static final String ENV_NAME = "TRANFORCPP_WIRE_FORMAT";
+
+    private final String configName;
+
+    WireFormat(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static WireFormat fromConfig(String value) {
+        if (value != null) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            for (WireFormat format : values()) {
+                if (format.configName.equals(normalized)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,74 @@
+package com.github.tranforcpp.query;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.HumanEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一个查询的结果表
+ * <p>
+ * 在服务器线程上收集，之后由 {@link QueryService} 在另一个线程上编码，
+ * 因此只保存不可变的值（数字、材料）或编码时只读取名称与UUID的对象（玩家、世界）。
+ */
+public final class QueryResult {
+
+    private final List<Object> values = new ArrayList<>();
+    private boolean found;
+    private int rows;
+
+    /**
+     * 标记查询对象存在，即使结果没有任何行
+     */
+    public QueryResult found() {
+        this.found = true;
+        return this;
+    }
+
+    /**
+     * 开始新的一行，之后按列顺序写入值
+     */
+    public QueryResult row() {
+        found = true;
+        rows++;
+        return this;
+    }
+
+    public QueryResult value(int value) {
+        values.add(value);
+        return this;
+    }
+
+    public QueryResult value(double value) {
+        values.add(value);
+        return this;
+    }
+
+    public QueryResult player(HumanEntity player) {
+        values.add(player);
+        return this;
+    }
+
+    public QueryResult world(World world) {
+        values.add(world);
+        return this;
+    }
+
+    public QueryResult material(Material material) {
+        values.add(material);
+        return this;
+    }
+
+    /**
+     * 行数，查询对象不存在时为-1
+     */
+    public int getRows() {
+        return found ? rows : -1;
+    }
+
+    List<Object> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.tranforcpp.query;
+
+import com.github.tranforcpp.pipeline.EventRing;
+import com.github.tranforcpp.pipeline.SessionHandles;
+import com.github.tranforcpp.protocol.BinaryFrameCodec;
+import com.github.tranforcpp.protocol.EventEncoder;
+import com.github.tranforcpp.protocol.FrameTooLargeException;
+import com.github.tranforcpp.protocol.WireFormat;
+import com.github.tranforcpp.utils.FoliaCompatUtil;
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 批量查询服务
+ * <p>
+ * C++进程通过 query 动作一次发送多个查询（以分号分隔，如 {@code world.players:world;player.health:Steve}），
+ * 并附带自己分配的查询ID。本服务在服务器线程上执行整批查询，再把全部结果编码为一个响应帧，
+ * 通过发起查询的进程的事件环交给其写线程发送。
+ * <p>
+ * 执行方式：
+ * - Paper：整批查询在下一个tick的一个主线程任务中执行
+ * - Folia：玩家查询按玩家分组，在各自所在区域的线程上执行；世界与服务器查询在一个全局区域任务中执行，
+ *   所有部分完成后由最后完成的线程发送响应
+ * <p>
+ * 响应参数按查询顺序排列，每个查询为：int32 行数（查询对象不存在或查询未知时为-1）、int32 列数、行数×列数个值。
+ */
+public final class QueryService {
+
+    private final Plugin plugin;
+    private final WireFormat format;
+    private final SessionHandles handles;
+    private final Logger logger;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder unsent = new LongAdder();
+
+    public QueryService(Plugin plugin, WireFormat format, SessionHandles handles, Logger logger) {
+        this.plugin = plugin;
+        this.format = format;
+        this.handles = handles;
+        this.logger = logger;
+    }
+
+    /**
+     * 解析一批查询并安排在服务器线程上执行，可在任意线程（通常是读取线程）上调用
+     *
+     * @param replyTo 发起查询的进程的事件环，响应写入这里
+     */
+    public void submit(EventRing replyTo, int queryId, String queryList) {
+        Batch batch = new Batch(replyTo, queryId, parse(queryList));
+        batches.increment();
+        queries.add(batch.entries.size());
+
+        if (!FoliaCompatUtil.isFolia()) {
+            schedule(batch, null, batch.entries);
+        } else {
+            Map<Player, List<Entry>> byPlayer = new LinkedHashMap<>();
+            List<Entry> global = new ArrayList<>();
+            for (Entry entry : batch.entries) {
+                if (entry.query == null) {
+                    continue;
+                }
+                if (entry.query.getScope() != ServerQuery.Scope.PLAYER) {
+                    global.add(entry);
+                    continue;
+                }
+                // 找不到的玩家没有结果，不需要调度
+                Player player = entry.argument != null ? Bukkit.getPlayerExact(entry.argument) : null;
+                if (player != null) {
+                    byPlayer.computeIfAbsent(player, key -> new ArrayList<>()).add(entry);
+                }
+            }
+            byPlayer.forEach((player, entries) -> schedule(batch, player, entries));
+            if (!global.isEmpty()) {
+                schedule(batch, null, global);
+            }
+        }
+        // 释放提交时持有的一份，全部部分都已完成（或没有需要调度的查询）时在这里发送响应
+        batch.partDone();
+    }
+
+    private void schedule(Batch batch, Player owner, List<Entry> entries) {
+        batch.remaining.incrementAndGet();
+        Runnable task = () -> {
+            try {
+                for (Entry entry : entries) {
+                    collect(entry);
+                }
+            } finally {
+                batch.partDone();
+            }
+        };
+        if (owner != null) {
+            FoliaCompatUtil.runEntityTask(plugin, owner, task, batch::partDone);
+        } else {
+            FoliaCompatUtil.runGlobalTask(plugin, task);
+        }
+    }
+
+    private void collect(Entry entry) {
+        if (entry.query == null) {
+            return;
+        }
+        try {
+            entry.query.collect(entry.argument, entry.result);
+        } catch (Exception e) {
+            entry.result = new QueryResult();
+            logger.warning("Error executing query " + entry.query.getQueryName() + ": " + e.getMessage());
+        }
+    }
+
+    private List<Entry> parse(String queryList) {
+        List<Entry> entries = new ArrayList<>();
+        Set<String> unknown = new HashSet<>();
+        for (String part : queryList.split(";")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int colon = trimmed.indexOf(':');
+            String name = colon >= 0 ? trimmed.substring(0, colon).trim() : trimmed;
+            String argument = colon >= 0 ? trimmed.substring(colon + 1).trim() : null;
+            ServerQuery query = ServerQuery.byName(name);
+            if (query == null) {
+                unknown.add(name);
+            }
+            entries.add(new Entry(query, argument));
+        }
+        if (!unknown.isEmpty()) {
+            logger.warning("C++ plugin sent unknown queries: " + unknown);
+        }
+        return entries;
+    }
+
+    private void respond(Batch batch) {
+        EventEncoder encoder = new EventEncoder();
+        try {
+            encodeResponse(encoder, batch, true);
+        } catch (FrameTooLargeException e) {
+            // C++进程在等待这个响应：改为每个查询0行的响应，而不是让它一直等下去
+            logger.warning("Response to query " + Integer.toUnsignedString(batch.queryId)
+                    + " is too large, sending empty results: " + e.getMessage());
+            encodeResponse(encoder, batch, false);
+        }
+        // 与同步裁决请求一样不经过背压策略：C++进程在等待这个响应
+        EventRing ring = batch.replyTo;
+        if (!ring.offer(encoder.array(), 0, encoder.length())) {
+            unsent.increment();
+            logger.warning("Event ring full, dropped response to query " + Integer.toUnsignedString(batch.queryId));
+            return;
+        }
+        ring.wakeConsumer();
+    }
+
+    private void encodeResponse(EventEncoder encoder, Batch batch, boolean withRows) {
+        encoder.beginResponse(format, batch.queryId);
+        for (Entry entry : batch.entries) {
+            QueryResult result = entry.result;
+            int rows = withRows ? result.getRows() : 0;
+            encoder.int32(rows);
+            encoder.int32(entry.query != null ? entry.query.getColumns() : 0);
+            if (rows > 0) {
+                for (Object value : result.getValues()) {
+                    encodeValue(encoder, value);
+                }
+            }
+        }
+        encoder.end();
+    }
+
+    private void encodeValue(EventEncoder encoder, Object value) {
+        if (value instanceof HumanEntity player) {
+            if (handles != null) {
+                encoder.handle(BinaryFrameCodec.TAG_PLAYER, handles.player(player.getUniqueId(), player.getName()));
+            } else {
+                encoder.string(player.getName());
+            }
+        } else if (value instanceof World world) {
+            if (handles != null) {
+                encoder.handle(BinaryFrameCodec.TAG_WORLD, handles.world(world.getUID(), world.getName()));
+            } else {
+                encoder.string(world.getName());
+            }
+        } else if (value instanceof Material material) {
+            if (handles != null) {
+                encoder.handle(BinaryFrameCodec.TAG_MATERIAL, material.ordinal());
+            } else {
+                encoder.string(material.name());
+            }
+        } else {
+            encoder.object(value);
+        }
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public long getQueryCount() {
+        return queries.sum();
+    }
+
+    public long getUnsentCount() {
+        return unsent.sum();
+    }
+
+    private static final class Entry {
+        private final ServerQuery query;
+        private final String argument;
+        private QueryResult result = new QueryResult();
+
+        private Entry(ServerQuery query, String argument) {
+            this.query = query;
+            this.argument = argument;
+        }
+    }
+
+    private final class Batch {
+        private final EventRing replyTo;
+        private final int queryId;
+        private final List<Entry> entries;
+        // 提交线程持有一份，每个已调度的部分各持有一份
+        private final AtomicInteger remaining = new AtomicInteger(1);
+
+        private Batch(EventRing replyTo, int queryId, List<Entry> entries) {
+            this.replyTo = replyTo;
+            this.queryId = queryId;
+            this.entries = entries;
+        }
+
+        private void partDone() {
+            if (remaining.decrementAndGet() == 0) {
+                respond(this);
+            }
+        }
+    }
+}
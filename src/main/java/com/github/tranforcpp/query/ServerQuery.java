@@ -0,0 +1,136 @@
+package com.github.tranforcpp.query;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * C++进程可以查询的服务器状态
+ * <p>
+ * 每种查询的结果是若干行、列数固定的表，查询对象不存在时没有结果（行数为-1）。
+ * 查询在拥有查询对象的线程上执行：Paper为主线程，Folia上玩家查询在玩家所在区域的线程，
+ * 世界与服务器查询在全局区域线程。
+ * <p>
+ * 支持的查询：
+ * - player.location:玩家名 - 世界, x, y, z, yaw, pitch
+ * - player.health:玩家名 - 生命值, 饱食度, 经验等级
+ * - player.inventory:玩家名 - 每个非空格子一行：格子序号, 材料, 数量
+ * - world.players:世界名 - 每个玩家一行：玩家, x, y, z
+ * - server.players - 每个在线玩家一行：玩家, 世界
+ */
+public enum ServerQuery {
+    PLAYER_LOCATION("player.location", Scope.PLAYER, 6) {
+        @Override
+        void collect(String argument, QueryResult result) {
+            Player player = onlinePlayer(argument);
+            if (player == null) {
+                return;
+            }
+            Location location = player.getLocation();
+            result.row().world(location.getWorld()).value(location.getX()).value(location.getY()).value(location.getZ())
+                    .value((double) location.getYaw()).value((double) location.getPitch());
+        }
+    },
+    PLAYER_HEALTH("player.health", Scope.PLAYER, 3) {
+        @Override
+        void collect(String argument, QueryResult result) {
+            Player player = onlinePlayer(argument);
+            if (player == null) {
+                return;
+            }
+            result.row().value(player.getHealth()).value(player.getFoodLevel()).value(player.getLevel());
+        }
+    },
+    PLAYER_INVENTORY("player.inventory", Scope.PLAYER, 3) {
+        @Override
+        void collect(String argument, QueryResult result) {
+            Player player = onlinePlayer(argument);
+            if (player == null) {
+                return;
+            }
+            result.found();
+            ItemStack[] contents = player.getInventory().getContents();
+            for (int slot = 0; slot < contents.length; slot++) {
+                ItemStack item = contents[slot];
+                if (item != null && item.getAmount() > 0) {
+                    result.row().value(slot).material(item.getType()).value(item.getAmount());
+                }
+            }
+        }
+    },
+    WORLD_PLAYERS("world.players", Scope.WORLD, 4) {
+        @Override
+        void collect(String argument, QueryResult result) {
+            World world = argument != null ? Bukkit.getWorld(argument) : null;
+            if (world == null) {
+                return;
+            }
+            result.found();
+            for (Player player : world.getPlayers()) {
+                Location location = player.getLocation();
+                result.row().player(player).value(location.getX()).value(location.getY()).value(location.getZ());
+            }
+        }
+    },
+    SERVER_PLAYERS("server.players", Scope.SERVER, 2) {
+        @Override
+        void collect(String argument, QueryResult result) {
+            result.found();
+            for (Player player : Bukkit.getOnlinePlayers()) {
+                result.row().player(player).world(player.getWorld());
+            }
+        }
+    };
+
+    private final String queryName;
+    private final Scope scope;
+    private final int columns;
+
+    ServerQuery(String queryName, Scope scope, int columns) {
+        this.queryName = queryName;
+        this.scope = scope;
+        this.columns = columns;
+    }
+
+    /**
+     * 在拥有查询对象的线程上执行查询，把结果写入 result
+     */
+    abstract void collect(String argument, QueryResult result);
+
+    public String getQueryName() {
+        return queryName;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public static ServerQuery byName(String queryName) {
+        for (ServerQuery query : values()) {
+            if (query.queryName.equals(queryName)) {
+                return query;
+            }
+        }
+        return null;
+    }
+
+    private static Player onlinePlayer(String name) {
+        Player player = name != null ? Bukkit.getPlayerExact(name) : null;
+        return player != null && player.isOnline() ? player : null;
+    }
+
+    /**
+     * 查询对象的类型，决定查询在哪个线程上执行
+     */
+    public enum Scope {
+        PLAYER,
+        WORLD,
+        SERVER
+    }
+}
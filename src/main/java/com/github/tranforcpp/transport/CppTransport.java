@@ -0,0 +1,34 @@
+package com.github.tranforcpp.transport;
+
+import com.github.tranforcpp.protocol.FrameDecoder;
+
+import java.io.IOException;
+
+/**
+ * C++进程传输通道
+ * <p>
+ * 负责把已编码的消息字节送达C++进程，并把C++进程发回的字节交给 {@link FrameDecoder}。
+ * 消息的编码格式由上层决定，传输层只搬运字节。
+ * <p>
+ * 生命周期：
+ * - prepare: 启动进程前配置 {@link ProcessBuilder}（环境变量、输出重定向等）
+ * - open: 进程启动后建立通道并开始读取
+ * - write/flush: 写出消息，flush 之后保证对C++进程可见
+ * - close: 关闭通道并释放资源
+ */
+public interface CppTransport {
+
+    void prepare(ProcessBuilder builder) throws IOException;
+
+    void open(Process process, FrameDecoder decoder) throws IOException;
+
+    void write(byte[] data, int offset, int length) throws IOException;
+
+    default void write(byte[] data) throws IOException {
+        write(data, 0, data.length);
+    }
+
+    void flush() throws IOException;
+
+    void close();
+}
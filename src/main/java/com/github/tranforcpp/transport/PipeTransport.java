@@ -0,0 +1,86 @@
+package com.github.tranforcpp.transport;
+
+import com.github.tranforcpp.protocol.FrameDecoder;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.logging.Logger;
+
+/**
+ * 标准输入输出管道传输
+ * <p>
+ * 事件写入C++进程的标准输入，动作从其标准输出读取。
+ * 标准错误与标准输出合并，因此C++端的调试输出也会进入动作流。
+ */
+public class PipeTransport implements CppTransport {
+
+    private static final int READ_CHUNK_SIZE = 8192;
+
+    private final Logger logger;
+    private volatile boolean closed;
+    private Process process;
+    private OutputStream output;
+    private Thread readerThread;
+
+    public PipeTransport(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void prepare(ProcessBuilder builder) {
+        builder.redirectErrorStream(true);
+    }
+
+    @Override
+    public void open(Process process, FrameDecoder decoder) {
+        this.process = process;
+        this.output = new BufferedOutputStream(process.getOutputStream());
+
+        readerThread = new Thread(() -> readLoop(process.getInputStream(), decoder), "TranforC++-Reader");
+        readerThread.setDaemon(true);
+        readerThread.setPriority(Thread.NORM_PRIORITY);
+        readerThread.start();
+    }
+
+    private void readLoop(InputStream input, FrameDecoder decoder) {
+        byte[] chunk = new byte[READ_CHUNK_SIZE];
+        try {
+            int read;
+            while (!closed && (read = input.read(chunk)) != -1) {
+                decoder.feed(chunk, 0, read);
+            }
+        } catch (IOException e) {
+            if (!closed && process.isAlive()) {
+                logger.severe("Error reading from C++ process: " + e.getMessage());
+            }
+            // 正常的连接断开不需要记录错误
+        }
+    }
+
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        output.write(data, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (output != null) {
+            try {
+                output.close();
+            } catch (IOException ignored) {}
+        }
+        if (readerThread != null && readerThread.isAlive()) {
+            readerThread.interrupt();
+        }
+        readerThread = null;
+        output = null;
+    }
+}
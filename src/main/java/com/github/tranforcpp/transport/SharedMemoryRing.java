@@ -0,0 +1,100 @@
+package com.github.tranforcpp.transport;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * 共享内存中的单生产者/单消费者字节环形缓冲区
+ * <p>
+ * 写位置和读位置都是单调递增的64位字节计数，分别位于独立的缓存行上，
+ * 由写入方以release语义发布、读取方以acquire语义观察，与C++端的std::atomic配对。
+ * 容量必须是2的幂，数据区按位置取模环绕。
+ * <p>
+ * 生产者一侧先把数据复制到环中，调用 {@link #publish()} 后才对消费者可见，
+ * 因此一批消息只需要一次发布。
+ */
+final class SharedMemoryRing {
+
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer buffer;
+    private final int writeIndexOffset;
+    private final int readIndexOffset;
+    private final int dataOffset;
+    private final int capacity;
+    private final int mask;
+
+    private long localPosition;
+    private long cachedRemotePosition;
+
+    SharedMemoryRing(ByteBuffer buffer, int writeIndexOffset, int readIndexOffset, int dataOffset, int capacity) {
+        this.buffer = buffer;
+        this.writeIndexOffset = writeIndexOffset;
+        this.readIndexOffset = readIndexOffset;
+        this.dataOffset = dataOffset;
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+    }
+
+    void reset() {
+        LONG_VIEW.setRelease(buffer, writeIndexOffset, 0L);
+        LONG_VIEW.setRelease(buffer, readIndexOffset, 0L);
+        localPosition = 0;
+        cachedRemotePosition = 0;
+    }
+
+    /**
+     * 生产者：尽可能多地复制数据到环中（不发布），返回实际写入的字节数
+     */
+    int offer(byte[] src, int offset, int length) {
+        long free = capacity - (localPosition - cachedRemotePosition);
+        if (free < length) {
+            cachedRemotePosition = (long) LONG_VIEW.getAcquire(buffer, readIndexOffset);
+            free = capacity - (localPosition - cachedRemotePosition);
+        }
+        int count = (int) Math.min(free, length);
+        if (count <= 0) {
+            return 0;
+        }
+        int index = (int) (localPosition & mask);
+        int firstPart = Math.min(count, capacity - index);
+        buffer.put(dataOffset + index, src, offset, firstPart);
+        if (firstPart < count) {
+            buffer.put(dataOffset, src, offset + firstPart, count - firstPart);
+        }
+        localPosition += count;
+        return count;
+    }
+
+    /**
+     * 生产者：发布已写入的数据
+     */
+    void publish() {
+        LONG_VIEW.setRelease(buffer, writeIndexOffset, localPosition);
+    }
+
+    /**
+     * 消费者：读取最多 maxLength 个已发布字节并释放空间，没有数据时返回0
+     */
+    int poll(byte[] dst, int offset, int maxLength) {
+        if (cachedRemotePosition == localPosition) {
+            cachedRemotePosition = (long) LONG_VIEW.getAcquire(buffer, writeIndexOffset);
+            if (cachedRemotePosition == localPosition) {
+                return 0;
+            }
+        }
+        int count = (int) Math.min(cachedRemotePosition - localPosition, maxLength);
+        int index = (int) (localPosition & mask);
+        int firstPart = Math.min(count, capacity - index);
+        buffer.get(dataOffset + index, dst, offset, firstPart);
+        if (firstPart < count) {
+            buffer.get(dataOffset, dst, offset + firstPart, count - firstPart);
+        }
+        localPosition += count;
+        LONG_VIEW.setRelease(buffer, readIndexOffset, localPosition);
+        return count;
+    }
+}
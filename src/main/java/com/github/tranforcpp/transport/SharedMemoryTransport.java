@@ -0,0 +1,218 @@
+package com.github.tranforcpp.transport;
+
+import com.github.tranforcpp.protocol.FrameDecoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * 共享内存传输
+ * <p>
+ * 在C++ Plugins目录下创建内存映射文件，内含两个单生产者/单消费者环形缓冲区，
+ * 一个用于Java→C++的事件，一个用于C++→Java的动作。热路径上没有系统调用，
+ * 等待数据时先自旋再逐步退避到park。文件路径通过环境变量 {@value #ENV_PATH} 告知C++进程。
+ * <p>
+ * 文件布局（小端序）：
+ * - 0: 魔数 u32, 8: 单个环的容量 u32, 12: 关闭标志 u32
+ * - 64/128: 事件环的写/读位置 u64
+ * - 192/256: 动作环的写/读位置 u64
+ * - 512: 事件环数据区，随后是动作环数据区
+ */
+public class SharedMemoryTransport implements CppTransport {
+
+    public static final String ENV_PATH = "TRANFORCPP_SHM_PATH";
+    public static final String FILE_NAME = "tranforcpp.shm";
+
+    private static final int MAGIC = 0x4D434654;
+    private static final int VERSION = 1;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 4;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int CLOSED_OFFSET = 12;
+    private static final int EVENT_WRITE_OFFSET = 64;
+    private static final int EVENT_READ_OFFSET = 128;
+    private static final int ACTION_WRITE_OFFSET = 192;
+    private static final int ACTION_READ_OFFSET = 256;
+    private static final int HEADER_SIZE = 512;
+
+    private static final int MIN_CAPACITY = 64 * 1024;
+    private static final int MAX_CAPACITY = 256 * 1024 * 1024;
+    private static final int READ_CHUNK_SIZE = 8192;
+    private static final int SPIN_TRIES = 200;
+    private static final int YIELD_TRIES = 50;
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+    private static final long LIVENESS_CHECK_NANOS = 100_000_000L;
+
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final File file;
+    private final int capacity;
+    private final Logger logger;
+    private volatile boolean closed;
+    private Process process;
+    private MappedByteBuffer mapping;
+    private SharedMemoryRing eventRing;
+    private SharedMemoryRing actionRing;
+    private Thread readerThread;
+
+    public SharedMemoryTransport(File directory, int requestedCapacity, Logger logger) {
+        this(directory, null, requestedCapacity, logger);
+    }
+
+    /**
+     * @param instance 进程名，多个C++进程同时运行时用于区分映射文件，单进程时为null
+     */
+    public SharedMemoryTransport(File directory, String instance, int requestedCapacity, Logger logger) {
+        this.file = new File(directory, instance == null ? FILE_NAME : "tranforcpp-" + instance + ".shm");
+        this.capacity = roundToPowerOfTwo(requestedCapacity);
+        this.logger = logger;
+    }
+
+    private static int roundToPowerOfTwo(int requested) {
+        int clamped = Math.max(MIN_CAPACITY, Math.min(requested, MAX_CAPACITY));
+        return Integer.highestOneBit(clamped - 1) << 1;
+    }
+
+    @Override
+    public void prepare(ProcessBuilder builder) throws IOException {
+        long totalSize = HEADER_SIZE + 2L * capacity;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+             FileChannel channel = raf.getChannel()) {
+            raf.setLength(totalSize);
+            mapping = channel.map(FileChannel.MapMode.READ_WRITE, 0, totalSize);
+        }
+        mapping.order(ByteOrder.LITTLE_ENDIAN);
+
+        eventRing = new SharedMemoryRing(mapping, EVENT_WRITE_OFFSET, EVENT_READ_OFFSET, HEADER_SIZE, capacity);
+        actionRing = new SharedMemoryRing(mapping, ACTION_WRITE_OFFSET, ACTION_READ_OFFSET, HEADER_SIZE + capacity, capacity);
+        eventRing.reset();
+        actionRing.reset();
+        mapping.putInt(VERSION_OFFSET, VERSION);
+        mapping.putInt(CAPACITY_OFFSET, capacity);
+        INT_VIEW.setRelease(mapping, CLOSED_OFFSET, 0);
+        // 魔数最后写入，C++端据此判断头部已初始化完成
+        INT_VIEW.setRelease(mapping, MAGIC_OFFSET, MAGIC);
+
+        builder.environment().put(ENV_PATH, file.getAbsolutePath());
+        // 动作走共享内存，进程的标准输出只用于日志
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+    }
+
+    @Override
+    public void open(Process process, FrameDecoder decoder) {
+        this.process = process;
+        readerThread = new Thread(() -> readLoop(decoder), "TranforC++-Reader");
+        readerThread.setDaemon(true);
+        readerThread.setPriority(Thread.NORM_PRIORITY);
+        readerThread.start();
+    }
+
+    private void readLoop(FrameDecoder decoder) {
+        byte[] chunk = new byte[READ_CHUNK_SIZE];
+        int idle = 0;
+        long lastLivenessCheck = System.nanoTime();
+        try {
+            while (!closed) {
+                int read = actionRing.poll(chunk, 0, chunk.length);
+                if (read > 0) {
+                    idle = 0;
+                    decoder.feed(chunk, 0, read);
+                    continue;
+                }
+                long now = System.nanoTime();
+                if (now - lastLivenessCheck > LIVENESS_CHECK_NANOS) {
+                    lastLivenessCheck = now;
+                    if (!process.isAlive()) {
+                        return;
+                    }
+                }
+                idle = backoff(idle);
+            }
+        } catch (IOException e) {
+            if (!closed && process.isAlive()) {
+                logger.severe("Error reading from C++ process: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Shared memory transport is closed");
+        }
+        int idle = 0;
+        while (length > 0) {
+            int written = eventRing.offer(data, offset, length);
+            offset += written;
+            length -= written;
+            if (length == 0) {
+                return;
+            }
+            if (written > 0) {
+                idle = 0;
+                continue;
+            }
+            // 环已满：先发布已写入的数据让C++端消费，再等待空间
+            eventRing.publish();
+            if (closed || !process.isAlive()) {
+                throw new IOException("C++ process is not consuming the shared memory ring");
+            }
+            idle = backoff(idle);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!closed) {
+            eventRing.publish();
+        }
+    }
+
+    private static int backoff(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+        } else if (idle < SPIN_TRIES + YIELD_TRIES) {
+            Thread.yield();
+        } else {
+            long parkNanos = Math.min(MAX_PARK_NANOS, 1000L << Math.min(idle - SPIN_TRIES - YIELD_TRIES, 10));
+            LockSupport.parkNanos(parkNanos);
+        }
+        return Math.min(idle + 1, SPIN_TRIES + YIELD_TRIES + 10);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (mapping != null) {
+            INT_VIEW.setRelease(mapping, CLOSED_OFFSET, 1);
+        }
+        if (readerThread != null && readerThread.isAlive()) {
+            readerThread.interrupt();
+            try {
+                readerThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        readerThread = null;
+        synchronized (this) {
+            mapping = null;
+            eventRing = null;
+            actionRing = null;
+        }
+        if (file.exists() && !file.delete()) {
+            // Windows上映射未释放前无法删除，下次启动会重新初始化
+            logger.fine("Shared memory file is still mapped: " + file.getAbsolutePath());
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.github.tranforcpp.transport;
+
+import com.github.tranforcpp.protocol.FrameDecoder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Unix域套接字传输
+ * <p>
+ * 在插件数据目录下监听一个Unix域套接字，C++进程通过环境变量 {@value #ENV_PATH} 得知路径并主动连接。
+ * 动作不再与进程的标准输出共用，C++端零散的printf或崩溃信息不会破坏动作流。
+ * <p>
+ * 主要特性：
+ * - 写入先复制到池化的直接缓冲区，flush时以一次聚集写（GatheringByteChannel）发出整批数据
+ * - 读取由单个非阻塞Selector循环驱动，同一线程负责接受连接与读取
+ */
+public class SocketTransport implements CppTransport {
+
+    public static final String ENV_PATH = "TRANFORCPP_SOCKET_PATH";
+    public static final String FILE_NAME = "tranforcpp.sock";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 16;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final long SELECT_TIMEOUT_MS = 100;
+    private static final long CONNECT_TIMEOUT_MS = 10_000;
+    private static final int MAX_SOCKET_PATH_LENGTH = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+
+    private final Path socketPath;
+    private final Logger logger;
+    private final CountDownLatch connected = new CountDownLatch(1);
+    private final ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    private ByteBuffer[] pendingBuffers = new ByteBuffer[4];
+    private int pendingCount;
+
+    private volatile boolean closed;
+    private volatile SocketChannel channel;
+    private ServerSocketChannel serverChannel;
+    private Selector selector;
+    private Process process;
+    private Thread selectorThread;
+
+    public SocketTransport(File dataFolder, Logger logger) {
+        this(dataFolder, null, logger);
+    }
+
+    /**
+     * @param instance 进程名，多个C++进程同时运行时用于区分套接字文件，单进程时为null
+     */
+    public SocketTransport(File dataFolder, String instance, Logger logger) {
+        this.socketPath = resolveSocketPath(dataFolder, instance);
+        this.logger = logger;
+    }
+
+    private static Path resolveSocketPath(File dataFolder, String instance) {
+        String suffix = instance == null ? "" : "-" + instance;
+        Path preferred = new File(dataFolder, instance == null ? FILE_NAME : "tranforcpp" + suffix + ".sock")
+                .toPath().toAbsolutePath();
+        if (preferred.toString().length() <= MAX_SOCKET_PATH_LENGTH) {
+            return preferred;
+        }
+        // 套接字路径长度受系统限制（sun_path），数据目录过深时退回临时目录
+        return Path.of(System.getProperty("java.io.tmpdir"),
+                "tranforcpp-" + ProcessHandle.current().pid() + suffix + ".sock");
+    }
+
+    @Override
+    public void prepare(ProcessBuilder builder) throws IOException {
+        Files.createDirectories(socketPath.getParent());
+        Files.deleteIfExists(socketPath);
+
+        serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+        serverChannel.configureBlocking(false);
+        selector = Selector.open();
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        builder.environment().put(ENV_PATH, socketPath.toString());
+        // 动作走套接字，进程的标准输出只用于日志
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.INHERIT);
+    }
+
+    @Override
+    public void open(Process process, FrameDecoder decoder) {
+        this.process = process;
+        selectorThread = new Thread(() -> selectLoop(decoder), "TranforC++-Selector");
+        selectorThread.setDaemon(true);
+        selectorThread.setPriority(Thread.NORM_PRIORITY);
+        selectorThread.start();
+    }
+
+    private void selectLoop(FrameDecoder decoder) {
+        ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        try {
+            while (!closed) {
+                selector.select(key -> handleKey(key, readBuffer, decoder), SELECT_TIMEOUT_MS);
+                if (channel == null && !process.isAlive()) {
+                    return;
+                }
+            }
+        } catch (UncheckedIOException e) {
+            if (!closed && process.isAlive()) {
+                logger.severe("Error reading from C++ process: " + e.getCause().getMessage());
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                logger.severe("C++ socket selector failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key, ByteBuffer readBuffer, FrameDecoder decoder) {
+        try {
+            if (key.isAcceptable()) {
+                SocketChannel accepted = serverChannel.accept();
+                if (accepted != null) {
+                    accepted.configureBlocking(false);
+                    accepted.register(selector, SelectionKey.OP_READ);
+                    // 只接受一个连接，之后不再需要监听
+                    key.cancel();
+                    serverChannel.close();
+                    Files.deleteIfExists(socketPath);
+                    channel = accepted;
+                    connected.countDown();
+                }
+            } else if (key.isReadable()) {
+                readBuffer.clear();
+                int read = ((SocketChannel) key.channel()).read(readBuffer);
+                if (read < 0) {
+                    key.cancel();
+                    closed = true;
+                    return;
+                }
+                if (read > 0) {
+                    decoder.feed(readBuffer.array(), 0, read);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int offset, int length) throws IOException {
+        if (closed) {
+            throw new IOException("Socket transport is closed");
+        }
+        while (length > 0) {
+            ByteBuffer current = pendingCount > 0 ? pendingBuffers[pendingCount - 1] : null;
+            if (current == null || !current.hasRemaining()) {
+                current = acquireBuffer();
+            }
+            int count = Math.min(length, current.remaining());
+            current.put(data, offset, count);
+            offset += count;
+            length -= count;
+        }
+    }
+
+    private ByteBuffer acquireBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        if (pendingCount == pendingBuffers.length) {
+            pendingBuffers = Arrays.copyOf(pendingBuffers, pendingCount * 2);
+        }
+        pendingBuffers[pendingCount++] = buffer;
+        return buffer;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (pendingCount == 0) {
+            return;
+        }
+        SocketChannel target = awaitChannel();
+
+        long remaining = 0;
+        for (int i = 0; i < pendingCount; i++) {
+            pendingBuffers[i].flip();
+            remaining += pendingBuffers[i].remaining();
+        }
+
+        int idle = 0;
+        int first = 0;
+        while (remaining > 0) {
+            long written = target.write(pendingBuffers, first, pendingCount - first);
+            remaining -= written;
+            while (first < pendingCount && !pendingBuffers[first].hasRemaining()) {
+                first++;
+            }
+            if (written > 0) {
+                idle = 0;
+                continue;
+            }
+            // 套接字发送缓冲区已满，等待C++端读取
+            if (closed || !process.isAlive()) {
+                throw new IOException("C++ process is not reading from the socket");
+            }
+            LockSupport.parkNanos(Math.min(MAX_PARK_NANOS, 1000L << Math.min(idle++, 10)));
+        }
+
+        for (int i = 0; i < pendingCount; i++) {
+            ByteBuffer buffer = pendingBuffers[i];
+            pendingBuffers[i] = null;
+            if (bufferPool.size() < MAX_POOLED_BUFFERS) {
+                buffer.clear();
+                bufferPool.push(buffer);
+            }
+        }
+        pendingCount = 0;
+    }
+
+    private SocketChannel awaitChannel() throws IOException {
+        SocketChannel current = channel;
+        if (current != null) {
+            return current;
+        }
+        try {
+            if (!connected.await(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS) || channel == null) {
+                throw new IOException("C++ process did not connect to " + socketPath);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for C++ process to connect", e);
+        }
+        return channel;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        connected.countDown();
+        if (selector != null) {
+            selector.wakeup();
+        }
+        if (selectorThread != null && selectorThread.isAlive()) {
+            try {
+                selectorThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        selectorThread = null;
+        closeQuietly(channel);
+        closeQuietly(serverChannel);
+        closeQuietly(selector);
+        channel = null;
+        try {
+            Files.deleteIfExists(socketPath);
+        } catch (IOException ignored) {}
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {}
+        }
+    }
+}
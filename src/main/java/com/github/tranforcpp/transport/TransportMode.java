@@ -0,0 +1,41 @@
+package com.github.tranforcpp.transport;
+
+import java.util.Locale;
+
+/**
+ * 与C++进程之间的传输方式
+ * <p>
+ * 通过config.yml中的 transport.mode 选择，与编码格式（transport.format）相互独立。
+ * <p>
+ * 支持的方式：
+ * - PIPE: 进程的标准输入输出（默认）
+ * - SHARED_MEMORY: 内存映射文件中的两个单生产者/单消费者环形缓冲区
+ * - SOCKET: 插件数据目录下的Unix域套接字
+ */
+public enum TransportMode {
+    PIPE("pipe"),
+    SHARED_MEMORY("shm"),
+    SOCKET("socket");
+
+    private final String configName;
+
+    TransportMode(String configName) {
+        this.configName = configName;
+    }
+
+    public String getConfigName() {
+        return configName;
+    }
+
+    public static TransportMode fromConfig(String value) {
+        if (value != null) {
+            String normalized = value.trim().toLowerCase(Locale.ROOT);
+            for (TransportMode mode : values()) {
+                if (mode.configName.equals(normalized)) {
+                    return mode;
+                }
+            }
+        }
+        return PIPE;
+    }
+}
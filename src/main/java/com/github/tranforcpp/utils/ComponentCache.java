@@ -0,0 +1,178 @@
+package com.github.tranforcpp.utils;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * MiniMessage 解析结果缓存
+ * <p>
+ * C++插件发送的消息大多来自少量固定模板，每次都完整解析 MiniMessage 是重复劳动。
+ * 本类以模板字符串为键缓存解析后的 {@link Component}，按最近使用顺序淘汰。
+ * <p>
+ * 主要功能：
+ * - 有上限的LRU缓存，容量为0时不缓存，每次直接解析
+ * - 模板中的 {@code <arg0>} 到 {@code <arg15>} 是占位符：模板只解析一次，
+ *   每次调用只把占位符替换为本次的参数，参数按纯文本插入，不会被当作 MiniMessage 标签解析
+ * - 参数通过动作的 args 字段传递，多个参数以 {@link #ARG_SEPARATOR} 分隔
+ * - 统计命中、未命中与淘汰次数
+ */
+public final class ComponentCache {
+
+    public static final int MAX_ARGS = 16;
+
+    /**
+     * 动作的 args 字段中分隔各个参数的字符（ASCII单元分隔符）
+     */
+    public static final char ARG_SEPARATOR = '\u001F';
+
+    private static final String MARKER_START = "\uE000";
+    private static final String MARKER_END = "\uE001";
+    private static final Pattern MARKER = Pattern.compile(MARKER_START + "(\\d+)" + MARKER_END);
+    private static final String ARG_TAG_PREFIX = "<arg";
+    private static final TagResolver ARG_MARKERS = argMarkers();
+
+    private final MiniMessage miniMessage;
+    private final int capacity;
+    private final Map<String, Template> templates;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ComponentCache(MiniMessage miniMessage, int capacity) {
+        this.miniMessage = miniMessage;
+        this.capacity = Math.max(0, capacity);
+        this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                if (size() > ComponentCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 解析不带参数的消息
+     */
+    public Component render(String template) {
+        return render(template, List.of());
+    }
+
+    /**
+     * 解析模板并把 {@code <argN>} 占位符替换为 args 中对应的参数，缺少的参数替换为空文本
+     */
+    public Component render(String template, List<String> args) {
+        Template parsed = lookup(template);
+        if (!parsed.parameterized) {
+            return parsed.component;
+        }
+        TextReplacementConfig replacement = TextReplacementConfig.builder()
+                .match(MARKER)
+                .replacement((match, builder) -> {
+                    int index = Integer.parseInt(match.group(1));
+                    return builder.content(index < args.size() ? args.get(index) : "");
+                })
+                .build();
+        return parsed.component.replaceText(replacement);
+    }
+
+    private Template lookup(String template) {
+        if (capacity > 0) {
+            Template cached;
+            synchronized (templates) {
+                cached = templates.get(template);
+            }
+            if (cached != null) {
+                hits.increment();
+                return cached;
+            }
+        }
+        misses.increment();
+        Template parsed = parse(template);
+        if (capacity > 0) {
+            synchronized (templates) {
+                templates.put(template, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    private Template parse(String template) {
+        if (!template.contains(ARG_TAG_PREFIX)) {
+            return new Template(miniMessage.deserialize(template), false);
+        }
+        return new Template(miniMessage.deserialize(template, ARG_MARKERS), true);
+    }
+
+    /**
+     * 拆分动作的 args 字段，字段不存在时返回空列表
+     */
+    public static List<String> splitArgs(String joined) {
+        if (joined == null) {
+            return List.of();
+        }
+        List<String> args = new ArrayList<>();
+        int start = 0;
+        int separator;
+        while ((separator = joined.indexOf(ARG_SEPARATOR, start)) >= 0) {
+            args.add(joined.substring(start, separator));
+            start = separator + 1;
+        }
+        args.add(joined.substring(start));
+        return args;
+    }
+
+    /**
+     * 把 {@code <argN>} 解析为带编号的私用区字符标记，渲染时再替换为参数
+     */
+    private static TagResolver argMarkers() {
+        List<TagResolver> resolvers = new ArrayList<>(MAX_ARGS);
+        for (int i = 0; i < MAX_ARGS; i++) {
+            resolvers.add(Placeholder.unparsed("arg" + i, MARKER_START + i + MARKER_END));
+        }
+        return TagResolver.resolver(resolvers);
+    }
+
+    public void clear() {
+        synchronized (templates) {
+            templates.clear();
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int size() {
+        synchronized (templates) {
+            return templates.size();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    private record Template(Component component, boolean parameterized) {
+    }
+}
@@ -1,5 +1,9 @@
 package com.github.tranforcpp.utils;
 
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.plugin.Plugin;
+
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -12,11 +16,65 @@ import java.util.concurrent.TimeUnit;
  * <p>
  * 主要功能：
  * - 异步定时任务调度
+ * - 在服务器线程上执行任务（Paper为主线程，Folia为全局区域线程或实体所在区域的线程）
  * - 线程管理
  * - 兼容性适配
  */
 public class FoliaCompatUtil {
 
+    private static final boolean FOLIA = detectFolia();
+
+    private static boolean detectFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 当前服务器是否为Folia（区域化多线程，没有全局主线程与全局tick）
+     */
+    public static boolean isFolia() {
+        return FOLIA;
+    }
+
+    /**
+     * 在下一个tick于服务器线程上执行任务：Paper为主线程，Folia为全局区域线程
+     */
+    public static void runGlobalTask(Plugin plugin, Runnable task) {
+        if (FOLIA) {
+            Bukkit.getGlobalRegionScheduler().execute(plugin, task);
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * 在拥有该实体的线程上执行任务：Paper为主线程，Folia为实体所在区域的线程。
+     * 实体在任务执行前被移除（如玩家退出）时改为调用 retired，retired 可能在任意线程上执行
+     */
+    public static void runEntityTask(Plugin plugin, Entity entity, Runnable task, Runnable retired) {
+        if (FOLIA) {
+            if (!entity.getScheduler().execute(plugin, task, retired, 1L)) {
+                retired.run();
+            }
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    }
+
+    /**
+     * 每隔 period 个tick在服务器线程上执行任务：Paper为主线程，Folia为全局区域线程
+     */
+    public static TaskHandle runSyncTaskTimer(Plugin plugin, Runnable task, long delayTicks, long periodTicks) {
+        if (FOLIA) {
+            return Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, scheduled -> task.run(), delayTicks, periodTicks)::cancel;
+        }
+        return Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks)::cancel;
+    }
+
     public static TaskHandle runAsyncTaskTimer(Runnable task, long delay, long period, TimeUnit timeUnit) {
         ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "FoliaCompat-AsyncTask");
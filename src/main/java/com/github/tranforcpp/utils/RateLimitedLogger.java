@@ -0,0 +1,52 @@
+package com.github.tranforcpp.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * 限速日志
+ * <p>
+ * 高负载下每个事件都打印一次警告会让控制台本身成为瓶颈。
+ * 本类在一个时间窗口内只输出一条日志，其余的只计数，并在下一条日志中附上被省略的数量。
+ * <p>
+ * 主要特性：
+ * - 无锁，多线程同时调用时只有一个线程能取得输出机会
+ * - 被省略时不拼接字符串，不产生垃圾对象
+ */
+public final class RateLimitedLogger {
+
+    private final Logger logger;
+    private final long intervalNanos;
+    private final AtomicLong nextAllowed;
+    private final LongAdder suppressed = new LongAdder();
+
+    public RateLimitedLogger(Logger logger, long interval, TimeUnit unit) {
+        this.logger = logger;
+        this.intervalNanos = unit.toNanos(interval);
+        this.nextAllowed = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 输出 prefix + detail，只在取得输出机会时才拼接
+     */
+    public void warning(String prefix, String detail) {
+        if (!tryAcquire()) {
+            suppressed.increment();
+            return;
+        }
+        long omitted = suppressed.sumThenReset();
+        if (omitted > 0) {
+            logger.warning(prefix + detail + " (此前 " + omitted + " 条同类日志已省略)");
+        } else {
+            logger.warning(prefix + detail);
+        }
+    }
+
+    private boolean tryAcquire() {
+        long now = System.nanoTime();
+        long next = nextAllowed.get();
+        return now - next >= 0 && nextAllowed.compareAndSet(next, now + intervalNanos);
+    }
+}
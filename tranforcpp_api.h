@@ -6,6 +6,37 @@
 #include <sstream>
 #include <thread>
 #include <atomic>
+#include <cstdint>
+#include <cstdlib>
+#include <cstring>
+#include <vector>
+#include <initializer_list>
+#include <unordered_map>
+
+#include <chrono>
+#include <streambuf>
+
+#ifdef _WIN32
+#ifndef NOMINMAX
+#define NOMINMAX
+#endif
+#include <winsock2.h>
+#include <afunix.h>
+#include <windows.h>
+#include <io.h>
+#include <fcntl.h>
+#ifdef _MSC_VER
+#pragma comment(lib, "Ws2_32.lib")
+#endif
+#else
+#include <cerrno>
+#include <fcntl.h>
+#include <sys/mman.h>
+#include <sys/socket.h>
+#include <sys/stat.h>
+#include <sys/un.h>
+#include <unistd.h>
+#endif
 
 extern "C" {
 
@@ -35,42 +66,1613 @@ void onHangingBreak(const char* entityType, const char* cause);
 
 }
 
-void broadcast(const char* message);
-void sendMsg(const char* player, const char* message);
-void console(const char* message);
-void dispatchCommand(const char* command, bool sync = false);
+inline void broadcast(const char* message);
+inline void sendMsg(const char* player, const char* message);
+// 带参数的消息模板：模板中的 <arg0> … <arg15> 依次替换为 args（按纯文本插入，不解析标签）
+// 服务器缓存解析后的模板，相同模板只解析一次，适合把变化的部分（玩家名、数值）作为参数传递
+inline void broadcast(const char* message, std::initializer_list<std::string> args);
+inline void sendMsg(const char* player, const char* message, std::initializer_list<std::string> args);
+// 一条消息发给多个玩家：服务器只解析一次消息，并在同一个tick中发送给全部目标
+// 目标可以是玩家名列表、玩家句柄列表（仅二进制格式，即事件中 TagPlayer 参数的 handle()）、某个世界中的全部玩家或拥有某个权限的全部玩家
+inline void multicast(const std::vector<std::string>& players, const char* message, std::initializer_list<std::string> args = {});
+inline void multicastHandles(const std::vector<uint32_t>& players, const char* message, std::initializer_list<std::string> args = {});
+inline void multicastWorld(const char* world, const char* message, std::initializer_list<std::string> args = {});
+inline void multicastPermission(const char* permission, const char* message, std::initializer_list<std::string> args = {});
+inline void console(const char* message);
+// 在服务器线程上执行控制台指令（每个tick最多执行 actions.commands.max-per-tick 条）
+// sync 为 true 时返回请求ID，执行后以 KindResponse 帧回报结果（frame.request 为该ID），用 tranforcpp::commandStatus(frame) 读取；否则返回 0
+inline uint32_t dispatchCommand(const char* command, bool sync = false);
+// 声明要接收的事件（逗号分隔，"*" 表示全部），第一次调用后插件只转发这些事件
+inline void subscribe(const char* events);
+inline void unsubscribe(const char* events);
+// 为事件设置过滤条件（如 "material=*_ORE;world=world"），不满足条件的事件在服务器端就被丢弃；空字符串清除过滤条件
+inline void setFilter(const char* event, const char* expression);
+// 声明需要同步裁决的可取消事件（逗号分隔，替换之前的声明；空字符串表示全部恢复为异步）
+// 这些事件以带请求ID的帧到达，服务器在事件线程上等待 verdict()，超过 events.sync.budget-us 按默认裁决处理
+inline void intercept(const char* events);
+// 回复同步裁决请求，cancel 为 true 时取消事件；必须尽快调用，超时后的回复会被丢弃
+inline void verdict(uint32_t request, bool cancel);
+// 批量查询服务器状态（分号分隔，如 "world.players:world;player.health:Steve"），返回查询ID
+// 响应在下一个tick以 KindResponse 帧到达，frame.request 为查询ID，用 tranforcpp::queryResults(frame) 读取
+inline uint32_t query(const char* queries);
+// 初始化（subscribe、setFilter、intercept）完成后调用一次：热重载时服务器等到新版本就绪才把事件切换给它
+inline void ready();
 
 namespace tranforcpp {
-    std::atomic<bool> running(true);
+    inline std::atomic<bool> running(true);
+
+    namespace detail {
+        constexpr size_t StreamBufferSize = 8192;
+
+        // 消息模板参数以 ASCII 单元分隔符连接，与 Java 端 ComponentCache.ARG_SEPARATOR 一致
+        constexpr char ArgSeparator = '\x1f';
+
+        // 查询与同步指令共用的请求ID，响应帧按ID区分，ID不会为0
+        inline uint32_t nextRequestId() {
+            static std::atomic<uint32_t> nextId(0);
+            uint32_t id = ++nextId;
+            if (id == 0) {
+                id = ++nextId;
+            }
+            return id;
+        }
+
+        inline std::string joinArgs(std::initializer_list<std::string> args) {
+            std::string joined;
+            bool first = true;
+            for (const std::string& arg : args) {
+                if (!first) {
+                    joined += ArgSeparator;
+                }
+                joined += arg;
+                first = false;
+            }
+            return joined;
+        }
+
+        // 参数通常来自玩家输入，写入JSON字符串时需要转义
+        inline void writeJsonString(std::ostream& out, const std::string& value) {
+            static const char* hex = "0123456789abcdef";
+            for (unsigned char c : value) {
+                if (c == '"' || c == '\\') {
+                    out << '\\' << c;
+                } else if (c < 0x20) {
+                    out << "\\u00" << hex[c >> 4] << hex[c & 0xF];
+                } else {
+                    out << c;
+                }
+            }
+        }
+
+        // 把任意提供 read/write 的通道包装成 std::streambuf，使 std::getline / frame::read 等代码无需区分传输方式
+        // Channel::read 阻塞直到至少读到一个字节，返回 0 表示通道已关闭；Channel::write 写出全部数据
+        template <typename Channel>
+        class ChannelStreambuf : public std::streambuf {
+        public:
+            explicit ChannelStreambuf(Channel channel) : channel_(channel) {
+                setg(in_, in_, in_);
+                setp(out_, out_ + StreamBufferSize);
+            }
+
+        protected:
+            int_type underflow() override {
+                if (gptr() < egptr()) {
+                    return traits_type::to_int_type(*gptr());
+                }
+                size_t count = channel_.read(in_, StreamBufferSize);
+                if (count == 0) {
+                    return traits_type::eof();
+                }
+                setg(in_, in_, in_ + count);
+                return traits_type::to_int_type(*gptr());
+            }
+
+            int_type overflow(int_type ch) override {
+                if (sync() != 0) {
+                    return traits_type::eof();
+                }
+                if (!traits_type::eq_int_type(ch, traits_type::eof())) {
+                    *pptr() = traits_type::to_char_type(ch);
+                    pbump(1);
+                }
+                return traits_type::not_eof(ch);
+            }
+
+            int sync() override {
+                size_t pending = static_cast<size_t>(pptr() - pbase());
+                if (pending > 0 && !channel_.write(pbase(), pending)) {
+                    return -1;
+                }
+                setp(out_, out_ + StreamBufferSize);
+                return 0;
+            }
+
+        private:
+            Channel channel_;
+            char in_[StreamBufferSize];
+            char out_[StreamBufferSize];
+        };
+    }
+
+    // 共享内存传输 (config.yml 中 transport.mode: shm)，与 Java 端 SharedMemoryTransport 布局一致
+    // 文件中有两个单生产者/单消费者字节环: 事件环 (Java -> C++) 与动作环 (C++ -> Java)
+    namespace shm {
+        constexpr uint32_t Magic = 0x4D434654;
+        constexpr size_t CapacityOffset = 8;
+        constexpr size_t ClosedOffset = 12;
+        constexpr size_t EventWriteOffset = 64;
+        constexpr size_t EventReadOffset = 128;
+        constexpr size_t ActionWriteOffset = 192;
+        constexpr size_t ActionReadOffset = 256;
+        constexpr size_t HeaderSize = 512;
+
+        static_assert(std::atomic<uint64_t>::is_always_lock_free, "shared memory ring requires lock-free 64-bit atomics");
+
+        // 先自旋再逐步退避到休眠
+        inline void backoff(unsigned& idle) {
+            if (idle < 200) {
+                std::this_thread::yield();
+            } else {
+                unsigned shift = idle - 200 < 10 ? idle - 200 : 10;
+                std::this_thread::sleep_for(std::chrono::microseconds(1u << shift));
+            }
+            if (idle < 220) {
+                ++idle;
+            }
+        }
+
+        class Ring {
+        public:
+            Ring(unsigned char* base, size_t writeOffset, size_t readOffset, size_t dataOffset, uint64_t capacity)
+                : write_(reinterpret_cast<std::atomic<uint64_t>*>(base + writeOffset)),
+                  read_(reinterpret_cast<std::atomic<uint64_t>*>(base + readOffset)),
+                  closed_(reinterpret_cast<std::atomic<uint32_t>*>(base + ClosedOffset)),
+                  data_(base + dataOffset), capacity_(capacity), mask_(capacity - 1) {}
+
+            bool closed() const { return closed_->load(std::memory_order_acquire) != 0; }
+
+            // 消费者: 阻塞直到至少读到一个字节，Java 端关闭且无剩余数据时返回 0
+            size_t read(char* dst, size_t max) {
+                unsigned idle = 0;
+                uint64_t position = read_->load(std::memory_order_relaxed);
+                uint64_t available;
+                while ((available = write_->load(std::memory_order_acquire) - position) == 0) {
+                    if (closed()) {
+                        return 0;
+                    }
+                    backoff(idle);
+                }
+                size_t count = static_cast<size_t>(available < max ? available : max);
+                size_t index = static_cast<size_t>(position & mask_);
+                size_t first = count < capacity_ - index ? count : static_cast<size_t>(capacity_ - index);
+                std::memcpy(dst, data_ + index, first);
+                std::memcpy(dst + first, data_, count - first);
+                read_->store(position + count, std::memory_order_release);
+                return count;
+            }
+
+            // 生产者: 写入全部数据并发布，空间不足时等待 Java 端消费
+            bool write(const char* src, size_t length) {
+                unsigned idle = 0;
+                uint64_t position = write_->load(std::memory_order_relaxed);
+                while (length > 0) {
+                    uint64_t free = capacity_ - (position - read_->load(std::memory_order_acquire));
+                    if (free == 0) {
+                        if (closed()) {
+                            return false;
+                        }
+                        backoff(idle);
+                        continue;
+                    }
+                    size_t count = static_cast<size_t>(free < length ? free : length);
+                    size_t index = static_cast<size_t>(position & mask_);
+                    size_t first = count < capacity_ - index ? count : static_cast<size_t>(capacity_ - index);
+                    std::memcpy(data_ + index, src, first);
+                    std::memcpy(data_, src + first, count - first);
+                    position += count;
+                    src += count;
+                    length -= count;
+                    write_->store(position, std::memory_order_release);
+                }
+                return true;
+            }
+
+        private:
+            std::atomic<uint64_t>* write_;
+            std::atomic<uint64_t>* read_;
+            std::atomic<uint32_t>* closed_;
+            unsigned char* data_;
+            uint64_t capacity_;
+            uint64_t mask_;
+        };
+
+        using RingStreambuf = detail::ChannelStreambuf<Ring>;
+
+        class Mapping {
+        public:
+            explicit Mapping(const char* path) {
+#ifdef _WIN32
+                file_ = CreateFileA(path, GENERIC_READ | GENERIC_WRITE,
+                                    FILE_SHARE_READ | FILE_SHARE_WRITE | FILE_SHARE_DELETE,
+                                    nullptr, OPEN_EXISTING, FILE_ATTRIBUTE_NORMAL, nullptr);
+                if (file_ == INVALID_HANDLE_VALUE) return;
+                LARGE_INTEGER fileSize;
+                if (!GetFileSizeEx(file_, &fileSize)) return;
+                mapping_ = CreateFileMappingA(file_, nullptr, PAGE_READWRITE, 0, 0, nullptr);
+                if (mapping_ == nullptr) return;
+                void* view = MapViewOfFile(mapping_, FILE_MAP_ALL_ACCESS, 0, 0, 0);
+                if (view == nullptr) return;
+                size_ = static_cast<size_t>(fileSize.QuadPart);
+#else
+                int fd = ::open(path, O_RDWR);
+                if (fd < 0) return;
+                struct stat info;
+                if (fstat(fd, &info) != 0) {
+                    ::close(fd);
+                    return;
+                }
+                void* view = mmap(nullptr, static_cast<size_t>(info.st_size), PROT_READ | PROT_WRITE, MAP_SHARED, fd, 0);
+                ::close(fd);
+                if (view == MAP_FAILED) return;
+                size_ = static_cast<size_t>(info.st_size);
+#endif
+                base_ = static_cast<unsigned char*>(view);
+                uint32_t magic = reinterpret_cast<std::atomic<uint32_t>*>(base_)->load(std::memory_order_acquire);
+                uint32_t capacity;
+                std::memcpy(&capacity, base_ + CapacityOffset, sizeof(capacity));
+                if (magic != Magic || capacity == 0 || (capacity & (capacity - 1)) != 0
+                        || HeaderSize + 2 * static_cast<size_t>(capacity) > size_) {
+                    return;
+                }
+                input_ = new RingStreambuf(Ring(base_, EventWriteOffset, EventReadOffset, HeaderSize, capacity));
+                output_ = new RingStreambuf(Ring(base_, ActionWriteOffset, ActionReadOffset, HeaderSize + capacity, capacity));
+            }
+
+            bool valid() const { return input_ != nullptr; }
+            std::streambuf* input() const { return input_; }
+            std::streambuf* output() const { return output_; }
+
+        private:
+            unsigned char* base_ = nullptr;
+            size_t size_ = 0;
+            RingStreambuf* input_ = nullptr;
+            RingStreambuf* output_ = nullptr;
+#ifdef _WIN32
+            HANDLE file_ = INVALID_HANDLE_VALUE;
+            HANDLE mapping_ = nullptr;
+#endif
+        };
+
+        // 进程内唯一的映射；未使用共享内存传输时返回 nullptr
+        inline Mapping* instance() {
+            static Mapping* mapping = [] () -> Mapping* {
+                const char* path = std::getenv("TRANFORCPP_SHM_PATH");
+                if (path == nullptr) {
+                    return nullptr;
+                }
+                Mapping* created = new Mapping(path);
+                if (!created->valid()) {
+                    std::cerr << "[TranforC++] Failed to map shared memory file: " << path << std::endl;
+                    return nullptr;
+                }
+                return created;
+            }();
+            return mapping;
+        }
+    }
+
+    // Unix域套接字传输 (config.yml 中 transport.mode: socket)，由 Java 端 SocketTransport 监听
+    namespace sock {
+#ifdef _WIN32
+        using Handle = SOCKET;
+        constexpr Handle InvalidHandle = INVALID_SOCKET;
+#else
+        using Handle = int;
+        constexpr Handle InvalidHandle = -1;
+#endif
+
+#ifdef MSG_NOSIGNAL
+        constexpr int SendFlags = MSG_NOSIGNAL;
+#else
+        constexpr int SendFlags = 0;
+#endif
+
+        class Socket {
+        public:
+            explicit Socket(Handle handle) : handle_(handle) {}
+
+            size_t read(char* dst, size_t max) {
+                while (true) {
+                    auto received = ::recv(handle_, dst, static_cast<int>(max), 0);
+                    if (received > 0) {
+                        return static_cast<size_t>(received);
+                    }
+#ifndef _WIN32
+                    if (received < 0 && errno == EINTR) {
+                        continue;
+                    }
+#endif
+                    return 0;
+                }
+            }
+
+            bool write(const char* src, size_t length) {
+                while (length > 0) {
+                    auto sent = ::send(handle_, src, static_cast<int>(length), SendFlags);
+                    if (sent <= 0) {
+#ifndef _WIN32
+                        if (sent < 0 && errno == EINTR) {
+                            continue;
+                        }
+#endif
+                        return false;
+                    }
+                    src += sent;
+                    length -= static_cast<size_t>(sent);
+                }
+                return true;
+            }
+
+        private:
+            Handle handle_;
+        };
+
+        using SocketStreambuf = detail::ChannelStreambuf<Socket>;
+
+        struct Connection {
+            SocketStreambuf input;
+            SocketStreambuf output;
+
+            explicit Connection(Handle handle) : input(Socket(handle)), output(Socket(handle)) {}
+        };
+
+        inline Handle connectTo(const char* path) {
+#ifdef _WIN32
+            WSADATA data;
+            if (WSAStartup(MAKEWORD(2, 2), &data) != 0) {
+                return InvalidHandle;
+            }
+#endif
+            sockaddr_un address{};
+            address.sun_family = AF_UNIX;
+            if (std::strlen(path) >= sizeof(address.sun_path)) {
+                return InvalidHandle;
+            }
+            std::strncpy(address.sun_path, path, sizeof(address.sun_path) - 1);
+            Handle handle = ::socket(AF_UNIX, SOCK_STREAM, 0);
+            if (handle == InvalidHandle) {
+                return InvalidHandle;
+            }
+            if (::connect(handle, reinterpret_cast<sockaddr*>(&address), sizeof(address)) != 0) {
+#ifdef _WIN32
+                closesocket(handle);
+#else
+                ::close(handle);
+#endif
+                return InvalidHandle;
+            }
+            return handle;
+        }
+
+        // 进程内唯一的连接；未使用套接字传输时返回 nullptr
+        inline Connection* instance() {
+            static Connection* connection = [] () -> Connection* {
+                const char* path = std::getenv("TRANFORCPP_SOCKET_PATH");
+                if (path == nullptr) {
+                    return nullptr;
+                }
+                Handle handle = connectTo(path);
+                if (handle == InvalidHandle) {
+                    std::cerr << "[TranforC++] Failed to connect to socket: " << path << std::endl;
+                    return nullptr;
+                }
+                return new Connection(handle);
+            }();
+            return connection;
+        }
+    }
+
+    // 读取事件的输入流: 共享内存或套接字传输时为对应通道，否则为 std::cin
+    inline std::istream& input() {
+        static std::istream* stream = [] () -> std::istream* {
+            if (shm::Mapping* mapping = shm::instance()) {
+                return new std::istream(mapping->input());
+            }
+            if (sock::Connection* connection = sock::instance()) {
+                return new std::istream(&connection->input);
+            }
+            return &std::cin;
+        }();
+        return *stream;
+    }
+
+    // 写出动作的输出流: 共享内存或套接字传输时为对应通道，否则为 std::cout
+    inline std::ostream& output() {
+        static std::ostream* stream = [] () -> std::ostream* {
+            if (shm::Mapping* mapping = shm::instance()) {
+                return new std::ostream(mapping->output());
+            }
+            if (sock::Connection* connection = sock::instance()) {
+                return new std::ostream(&connection->output);
+            }
+            return &std::cout;
+        }();
+        return *stream;
+    }
+
+    // 单条消息（JSON行或二进制帧体）的长度上限，与 frame::MaxFrameSize 相同
+    constexpr size_t MaxMessageSize = 1u << 20;
+
+    // 因超过 MaxMessageSize 而未发送的消息数，插件端同样会跳过这样的消息
+    inline std::atomic<uint64_t> unsentMessages(0);
+
+    // 超长的消息不发送（计入 unsentMessages）并返回 false
+    inline bool sendMessage(const std::string& action, const std::string& msg) {
+        if (msg.size() > MaxMessageSize) {
+            unsentMessages.fetch_add(1, std::memory_order_relaxed);
+            return false;
+        }
+        output() << msg << std::endl;
+        return true;
+    }
+
+    // processes.mode: per-plugin 时由Java端通过环境变量 TRANFORCPP_PLUGIN_NAME 传入的插件名，单进程模式下为空
+    inline const std::string& pluginName() {
+        static const std::string name = [] {
+            const char* value = std::getenv("TRANFORCPP_PLUGIN_NAME");
+            return std::string(value != nullptr ? value : "");
+        }();
+        return name;
+    }
+
+    // processes.shards 大于1时本进程的分片序号（从0开始）与分片总数，由Java端通过环境变量
+    // TRANFORCPP_SHARD / TRANFORCPP_SHARD_COUNT 传入；每个分片只收到分区键落在自己身上的事件
+    inline int shardIndex() {
+        static const int index = [] {
+            const char* value = std::getenv("TRANFORCPP_SHARD");
+            return value != nullptr ? std::atoi(value) : 0;
+        }();
+        return index;
+    }
+
+    inline int shardCount() {
+        static const int count = [] {
+            const char* value = std::getenv("TRANFORCPP_SHARD_COUNT");
+            int parsed = value != nullptr ? std::atoi(value) : 1;
+            return parsed > 0 ? parsed : 1;
+        }();
+        return count;
+    }
+
+    // 由Java端通过环境变量 TRANFORCPP_WIRE_FORMAT 指定 (config.yml 中的 transport.format)
+    enum class WireFormat { Json, Binary };
+
+    inline WireFormat wireFormat() {
+        static const WireFormat format = [] {
+            const char* value = std::getenv("TRANFORCPP_WIRE_FORMAT");
+            return value != nullptr && std::strcmp(value, "binary") == 0 ? WireFormat::Binary : WireFormat::Json;
+        }();
+        return format;
+    }
+
+    // 长度前缀二进制帧，与 Java 端 BinaryFrameCodec 保持一致，多字节整数均为小端序
+    // 帧格式: u32 帧体长度 | u8 帧类型 | u16 事件/动作ID | u8 参数个数 | [u32 序号或请求ID] | (u8 类型标签 + 负载)*
+    // 序号只出现在已编号事件 (KindSequencedEvent) 中，请求ID只出现在同步裁决请求 (KindRequest) 中，两者解码后都视为 KindEvent；
+    // 查询响应 (KindResponse) 帧头后为 u32 查询ID 与 u32 参数个数，解码后查询ID在 frame.request；
+    // 句柄定义帧 (KindHandles) 由 frame::read 自动处理，不会返回给调用者
+    namespace frame {
+        enum Kind : uint8_t { KindEvent = 1, KindAction = 2, KindSequencedEvent = 3, KindHandles = 4, KindRequest = 5, KindResponse = 6 };
+        enum Tag : uint8_t {
+            TagNull = 0, TagString = 1, TagInt = 2, TagLong = 3, TagDouble = 4, TagBool = 5, TagUuid = 6,
+            TagPlayer = 7, TagWorld = 8, TagMaterial = 9
+        };
+        enum Table : uint16_t { PlayerTable = 1, WorldTable = 2, MaterialTable = 3 };
+
+        // ID 0 表示自定义事件/动作，此时第一个参数为名称字符串
+        enum EventId : uint16_t {
+            CustomEvent = 0,
+            PlayerJoin = 1, PlayerQuit = 2, BlockBreak = 3, BlockPlace = 4,
+            EntityDamage = 5, EntityDeath = 6, PlayerDeath = 7, InventoryClick = 8,
+            InventoryOpen = 9, InventoryClose = 10, PlayerMove = 11, PlayerRespawn = 12,
+            BlockIgnite = 13, EntitySpawn = 14, PlayerInteract = 15, PlayerDropItem = 16,
+            PlayerPickupItem = 17, ServerCommand = 18, WorldLoad = 19, WeatherChange = 20,
+            HangingBreak = 21, Shutdown = 22
+        };
+
+        enum ActionId : uint16_t {
+            CustomAction = 0,
+            Broadcast = 1, SendMessage = 2, Console = 3, ExecuteCommand = 4, DispatchCommand = 5,
+            Subscribe = 6, Unsubscribe = 7, Filter = 8, Intercept = 9, Verdict = 10, Query = 11,
+            Multicast = 12, Ready = 13
+        };
+
+        constexpr uint32_t MaxFrameSize = MaxMessageSize;
+
+        // 与 java.util.UUID.toString() 相同的 8-4-4-4-12 格式
+        inline std::string formatUuid(uint64_t most, uint64_t least) {
+            static const char digits[] = "0123456789abcdef";
+            std::string out;
+            out.reserve(36);
+            for (int shift = 60; shift >= 0; shift -= 4) {
+                if (shift == 28 || shift == 12) out.push_back('-');
+                out.push_back(digits[(most >> shift) & 0xF]);
+            }
+            for (int shift = 60; shift >= 0; shift -= 4) {
+                if (shift == 60 || shift == 44) out.push_back('-');
+                out.push_back(digits[(least >> shift) & 0xF]);
+            }
+            return out;
+        }
+
+        // 原生 UUID（玩家、实体、世界ID），可直接比较和作为哈希键，需要文本时调用 str()
+        struct Uuid {
+            uint64_t most = 0;
+            uint64_t least = 0;
+
+            bool empty() const { return most == 0 && least == 0; }
+            std::string str() const { return formatUuid(most, least); }
+            bool operator==(const Uuid& other) const { return most == other.most && least == other.least; }
+            bool operator!=(const Uuid& other) const { return !(*this == other); }
+        };
+
+        struct UuidHash {
+            size_t operator()(const Uuid& id) const {
+                return std::hash<uint64_t>()(id.most ^ (id.least * 0x9E3779B97F4A7C15ull));
+            }
+        };
+
+        // 句柄表中的一项，材料没有 UUID
+        struct HandleEntry {
+            std::string name;
+            Uuid id;
+        };
+
+        // 会话句柄表：按句柄下标访问的平坦数组，由句柄定义帧更新（只在读取事件的线程上修改）
+        inline std::vector<HandleEntry>& handleTable(Table table) {
+            static std::vector<HandleEntry> tables[MaterialTable + 1];
+            return tables[table <= MaterialTable ? table : 0];
+        }
+
+        inline const HandleEntry& resolve(Table table, uint32_t handle) {
+            static const HandleEntry missing;
+            const std::vector<HandleEntry>& entries = handleTable(table);
+            return handle < entries.size() ? entries[handle] : missing;
+        }
+
+        struct Arg {
+            Tag tag = TagNull;
+            std::string str;  // 只有字符串参数填充，其他类型使用下面的原生字段
+            int64_t integer = 0;
+            double number = 0.0;
+            bool boolean = false;
+            uint64_t uuidMost = 0;
+            uint64_t uuidLeast = 0;
+
+            int32_t i32() const { return tag == TagDouble ? static_cast<int32_t>(number) : static_cast<int32_t>(integer); }
+            int64_t i64() const { return tag == TagDouble ? static_cast<int64_t>(number) : integer; }
+            double f64() const { return tag == TagDouble ? number : static_cast<double>(integer); }
+            Uuid uuid() const { return Uuid{uuidMost, uuidLeast}; }
+            uint32_t handle() const { return static_cast<uint32_t>(integer); }
+
+            // 兼容旧版按字符串处理参数的代码：数值、布尔与UUID参数在第一次调用时才格式化为文本
+            const char* c_str() const {
+                if (tag == TagString || tag == TagNull) {
+                    return str.c_str();
+                }
+                if (tag == TagPlayer || tag == TagWorld || tag == TagMaterial) {
+                    Table table = tag == TagPlayer ? PlayerTable : tag == TagWorld ? WorldTable : MaterialTable;
+                    return resolve(table, handle()).name.c_str();
+                }
+                if (text_.empty()) {
+                    switch (tag) {
+                        case TagInt:
+                        case TagLong: text_ = std::to_string(integer); break;
+                        case TagDouble: text_ = std::to_string(number); break;
+                        case TagBool: text_ = boolean ? "true" : "false"; break;
+                        case TagUuid: text_ = formatUuid(uuidMost, uuidLeast); break;
+                        default: break;
+                    }
+                }
+                return text_.c_str();
+            }
+
+        private:
+            mutable std::string text_;
+        };
+
+        struct Frame {
+            Kind kind = KindEvent;
+            uint16_t id = CustomEvent;
+            uint32_t seq = 0;  // 按玩家递增的序号，0 表示该事件未编号
+            uint32_t request = 0;  // 同步裁决请求ID (非 0 时必须尽快用 verdict(request, cancel) 回复)，或查询响应的查询ID
+            std::string name;
+            std::vector<Arg> args;
+        };
+
+        inline void useBinaryStdio() {
+#ifdef _WIN32
+            static const bool applied = [] {
+                _setmode(_fileno(stdin), _O_BINARY);
+                _setmode(_fileno(stdout), _O_BINARY);
+                return true;
+            }();
+            (void) applied;
+#endif
+        }
+
+        template <typename T>
+        inline T readLE(const unsigned char* data) {
+            uint64_t value = 0;
+            for (size_t i = 0; i < sizeof(T); ++i) {
+                value |= static_cast<uint64_t>(data[i]) << (8 * i);
+            }
+            return static_cast<T>(value);
+        }
+
+        class Writer {
+        public:
+            Writer(Kind kind, uint16_t id) : buf_(8, '\0') {
+                buf_[4] = static_cast<char>(kind);
+                buf_[5] = static_cast<char>(id & 0xFF);
+                buf_[6] = static_cast<char>(id >> 8);
+            }
+
+            Writer& str(const char* value) {
+                if (value == nullptr) {
+                    return null();
+                }
+                return str(value, std::strlen(value));
+            }
+
+            Writer& str(const char* value, size_t length) {
+                putTag(TagString);
+                putLE(static_cast<uint32_t>(length));
+                buf_.append(value, length);
+                return *this;
+            }
+
+            Writer& str(const std::string& value) { return str(value.data(), value.size()); }
+
+            Writer& i32(int32_t value) {
+                putTag(TagInt);
+                putLE(static_cast<uint32_t>(value));
+                return *this;
+            }
+
+            Writer& i64(int64_t value) {
+                putTag(TagLong);
+                putLE(static_cast<uint64_t>(value));
+                return *this;
+            }
+
+            Writer& f64(double value) {
+                uint64_t bits;
+                std::memcpy(&bits, &value, sizeof(bits));
+                putTag(TagDouble);
+                putLE(bits);
+                return *this;
+            }
+
+            Writer& boolean(bool value) {
+                putTag(TagBool);
+                buf_.push_back(static_cast<char>(value ? 1 : 0));
+                return *this;
+            }
+
+            Writer& null() {
+                putTag(TagNull);
+                return *this;
+            }
+
+            // 回填长度和参数个数，返回可直接写出的完整帧
+            const std::string& finish() {
+                uint32_t length = static_cast<uint32_t>(buf_.size() - 4);
+                for (size_t i = 0; i < 4; ++i) {
+                    buf_[i] = static_cast<char>((length >> (8 * i)) & 0xFF);
+                }
+                buf_[7] = static_cast<char>(argc_);
+                return buf_;
+            }
+
+        private:
+            void putTag(Tag tag) {
+                buf_.push_back(static_cast<char>(tag));
+                ++argc_;
+            }
+
+            template <typename T>
+            void putLE(T value) {
+                for (size_t i = 0; i < sizeof(T); ++i) {
+                    buf_.push_back(static_cast<char>((static_cast<uint64_t>(value) >> (8 * i)) & 0xFF));
+                }
+            }
+
+            std::string buf_;
+            uint8_t argc_ = 0;
+        };
+
+        // 解码一个帧体 (不含长度前缀)
+        inline bool decode(const unsigned char* data, size_t size, Frame& out) {
+            if (size < 4) {
+                return false;
+            }
+            out.kind = static_cast<Kind>(data[0]);
+            out.id = readLE<uint16_t>(data + 1);
+            size_t argc = data[3];
+            size_t pos = 4;
+            out.seq = 0;
+            out.request = 0;
+            if (out.kind == KindResponse) {
+                if (size < 12) {
+                    return false;
+                }
+                out.request = readLE<uint32_t>(data + 4);
+                argc = readLE<uint32_t>(data + 8);
+                if (argc > size) {
+                    return false;
+                }
+                pos = 12;
+            } else if (out.kind == KindSequencedEvent || out.kind == KindRequest) {
+                if (size < 8) {
+                    return false;
+                }
+                (out.kind == KindRequest ? out.request : out.seq) = readLE<uint32_t>(data + 4);
+                out.kind = KindEvent;
+                pos = 8;
+            }
+            out.name.clear();
+            out.args.clear();
+            out.args.reserve(argc);
+            for (size_t i = 0; i < argc; ++i) {
+                if (pos >= size) {
+                    return false;
+                }
+                Arg arg;
+                arg.tag = static_cast<Tag>(data[pos++]);
+                switch (arg.tag) {
+                    case TagNull:
+                        break;
+                    case TagString: {
+                        if (pos + 4 > size) return false;
+                        uint32_t length = readLE<uint32_t>(data + pos);
+                        pos += 4;
+                        if (length > size - pos) return false;
+                        arg.str.assign(reinterpret_cast<const char*>(data + pos), length);
+                        pos += length;
+                        break;
+                    }
+                    case TagInt:
+                        if (pos + 4 > size) return false;
+                        arg.integer = static_cast<int32_t>(readLE<uint32_t>(data + pos));
+                        pos += 4;
+                        break;
+                    case TagLong:
+                        if (pos + 8 > size) return false;
+                        arg.integer = static_cast<int64_t>(readLE<uint64_t>(data + pos));
+                        pos += 8;
+                        break;
+                    case TagDouble: {
+                        if (pos + 8 > size) return false;
+                        uint64_t bits = readLE<uint64_t>(data + pos);
+                        std::memcpy(&arg.number, &bits, sizeof(bits));
+                        pos += 8;
+                        break;
+                    }
+                    case TagBool:
+                        if (pos + 1 > size) return false;
+                        arg.boolean = data[pos++] != 0;
+                        break;
+                    case TagPlayer:
+                    case TagWorld:
+                    case TagMaterial:
+                        if (pos + 4 > size) return false;
+                        arg.integer = readLE<uint32_t>(data + pos);
+                        pos += 4;
+                        break;
+                    case TagUuid:
+                        if (pos + 16 > size) return false;
+                        arg.uuidMost = readLE<uint64_t>(data + pos);
+                        arg.uuidLeast = readLE<uint64_t>(data + pos + 8);
+                        pos += 16;
+                        break;
+                    default:
+                        return false;
+                }
+                if (i == 0 && out.id == 0 && out.kind != KindResponse) {
+                    out.name = std::move(arg.str);
+                } else {
+                    out.args.push_back(std::move(arg));
+                }
+            }
+            return true;
+        }
+
+        // 应用句柄定义帧: 玩家/世界为 (句柄, 名称, UUID)，材料为 (起始序号, 名称...)
+        inline void applyHandles(const Frame& definition) {
+            if (definition.args.empty()) {
+                return;
+            }
+            Table table = static_cast<Table>(definition.id);
+            std::vector<HandleEntry>& entries = handleTable(table);
+            uint32_t first = static_cast<uint32_t>(definition.args[0].integer);
+            size_t count = table == MaterialTable ? definition.args.size() - 1 : 1;
+            if (entries.size() < first + count) {
+                entries.resize(first + count);
+            }
+            if (table == MaterialTable) {
+                for (size_t i = 0; i < count; ++i) {
+                    entries[first + i].name = definition.args[i + 1].str;
+                }
+            } else if (definition.args.size() >= 3) {
+                entries[first].name = definition.args[1].str;
+                entries[first].id = definition.args[2].uuid();
+            }
+        }
+
+        // 因超过 MaxFrameSize 而被跳过的帧数
+        inline std::atomic<uint64_t> skippedFrames(0);
+
+        // 从输入流读取一个完整帧，流结束或数据损坏时返回 false
+        // 句柄定义帧在这里直接更新句柄表，调用者只会收到事件与动作帧
+        // 超过 MaxFrameSize 的帧被跳过（计入 skippedFrames），不会结束读取
+        inline bool read(std::istream& in, Frame& out) {
+            useBinaryStdio();
+            std::vector<unsigned char> body;
+            while (true) {
+                unsigned char header[4];
+                if (!in.read(reinterpret_cast<char*>(header), sizeof(header))) {
+                    return false;
+                }
+                uint32_t length = readLE<uint32_t>(header);
+                if (length < 4) {
+                    return false;
+                }
+                if (length > MaxFrameSize) {
+                    if (!in.ignore(length) || static_cast<uint32_t>(in.gcount()) != length) {
+                        return false;
+                    }
+                    skippedFrames.fetch_add(1, std::memory_order_relaxed);
+                    continue;
+                }
+                body.resize(length);
+                if (!in.read(reinterpret_cast<char*>(body.data()), length)) {
+                    return false;
+                }
+                if (!decode(body.data(), body.size(), out)) {
+                    return false;
+                }
+                if (out.kind != KindHandles) {
+                    return true;
+                }
+                applyHandles(out);
+            }
+        }
+
+        // 帧体超过 MaxFrameSize 时不发送（计入 unsentMessages）并返回 false
+        inline bool send(Writer& writer) {
+            useBinaryStdio();
+            const std::string& bytes = writer.finish();
+            if (bytes.size() - 4 > MaxFrameSize) {
+                unsentMessages.fetch_add(1, std::memory_order_relaxed);
+                return false;
+            }
+            std::ostream& out = output();
+            out.write(bytes.data(), static_cast<std::streamsize>(bytes.size()));
+            out.flush();
+            return true;
+        }
+    }
+
+    // 二进制格式下事件中的玩家、世界和材料为会话句柄，按句柄查名称与 UUID:
+    //   tranforcpp::handles::player(e.player).name / .id
+    // 玩家句柄在玩家退出后可能分配给之后加入的玩家，按句柄保存的玩家状态应在 PlayerQuit 时清除
+    namespace handles {
+        inline const frame::HandleEntry& player(uint32_t handle) { return frame::resolve(frame::PlayerTable, handle); }
+        inline const frame::HandleEntry& world(uint32_t handle) { return frame::resolve(frame::WorldTable, handle); }
+        inline const std::string& material(uint32_t handle) { return frame::resolve(frame::MaterialTable, handle).name; }
+    }
+
+    // 读取 JSON 事件行开头的 "seq" 字段，未编号的事件返回 0
+    inline uint32_t jsonSeq(const std::string& line) {
+        static const char prefix[] = "{\"seq\":";
+        if (line.compare(0, sizeof(prefix) - 1, prefix) != 0) {
+            return 0;
+        }
+        return static_cast<uint32_t>(std::strtoul(line.c_str() + sizeof(prefix) - 1, nullptr, 10));
+    }
+
+    // 查询响应中一个查询的结果表，rows 为 -1 表示查询对象不存在或查询未知
+    struct QueryResult {
+        int32_t rows = -1;
+        int32_t columns = 0;
+        const frame::Arg* values = nullptr;
 
-    inline void sendMessage(const std::string& action, const std::string& msg) {
-        std::cout << msg << std::endl;
+        bool found() const { return rows >= 0; }
+        const frame::Arg& at(int32_t row, int32_t column) const { return values[row * columns + column]; }
+    };
+
+    // 按查询顺序拆分二进制查询响应，返回的结果引用 frame 中的参数，frame 被复用前有效
+    inline std::vector<QueryResult> queryResults(const frame::Frame& frame) {
+        std::vector<QueryResult> results;
+        size_t pos = 0;
+        while (pos + 2 <= frame.args.size()) {
+            QueryResult result;
+            result.rows = frame.args[pos].i32();
+            result.columns = frame.args[pos + 1].i32();
+            pos += 2;
+            if (result.rows > 0) {
+                size_t count = static_cast<size_t>(result.rows) * static_cast<size_t>(result.columns);
+                if (pos + count > frame.args.size()) {
+                    break;
+                }
+                result.values = frame.args.data() + pos;
+                pos += count;
+            }
+            results.push_back(result);
+        }
+        return results;
+    }
+
+    // 同步指令的执行结果，与 Java 端 CommandPipeline 的 STATUS_* 一致
+    enum class CommandStatus : int32_t { Ok = 0, Failed = 1, Error = 2, Rejected = 3 };
+
+    // 读取二进制指令结果帧（dispatchCommand(command, true) 的响应）
+    inline CommandStatus commandStatus(const frame::Frame& frame) {
+        return frame.args.empty() ? CommandStatus::Error : static_cast<CommandStatus>(frame.args[0].i32());
+    }
+
+    // 读取 JSON 响应行开头的 "response" 字段（查询ID或指令请求ID），不是响应时返回 0
+    inline uint32_t jsonResponse(const std::string& line) {
+        static const char prefix[] = "{\"response\":";
+        if (line.compare(0, sizeof(prefix) - 1, prefix) != 0) {
+            return 0;
+        }
+        return static_cast<uint32_t>(std::strtoul(line.c_str() + sizeof(prefix) - 1, nullptr, 10));
+    }
+
+    // 读取 JSON 事件行开头的 "request" 字段，不是同步裁决请求时返回 0
+    inline uint32_t jsonRequest(const std::string& line) {
+        static const char prefix[] = "{\"request\":";
+        if (line.compare(0, sizeof(prefix) - 1, prefix) != 0) {
+            return 0;
+        }
+        return static_cast<uint32_t>(std::strtoul(line.c_str() + sizeof(prefix) - 1, nullptr, 10));
     }
+
+    // 按玩家检查事件序号是否连续，返回两次之间丢失的事件数
+    // 键通常为事件的第一个参数（玩家名），序号为 0 的事件不参与检查
+    class SequenceTracker {
+    public:
+        uint32_t check(const std::string& key, uint32_t seq) {
+            if (seq == 0) {
+                return 0;
+            }
+            uint32_t& last = last_[key];
+            uint32_t missing = last != 0 && seq > last + 1 ? seq - last - 1 : 0;
+            last = seq;
+            return missing;
+        }
+
+        void forget(const std::string& key) {
+            last_.erase(key);
+        }
+
+    private:
+        std::unordered_map<std::string, uint32_t> last_;
+    };
+
+    // 内置事件的类型化负载，字段顺序与 Java 端发送的参数一致（仅适用于二进制格式）
+    // 用法: tranforcpp::events::BlockBreak e; if (e.decode(frame)) { ... e.x, e.y, e.z ... }
+    // BEGIN GENERATED EVENT PAYLOADS
+    // 由 CppHeaderGenerator 根据 Java 端 CppEvent 的字段表生成，请勿手动修改
+    namespace events {
+        struct PlayerJoin {
+            static constexpr frame::EventId Id = frame::PlayerJoin;
+            uint32_t player = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 1) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                return true;
+            }
+        };
+
+        struct PlayerQuit {
+            static constexpr frame::EventId Id = frame::PlayerQuit;
+            uint32_t player = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 1) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                return true;
+            }
+        };
+
+        struct BlockBreak {
+            static constexpr frame::EventId Id = frame::BlockBreak;
+            uint32_t player = 0;
+            uint32_t block = 0;
+            uint32_t world = 0;
+            int32_t x = 0;
+            int32_t y = 0;
+            int32_t z = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 6) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                block = frame.args[1].handle();
+                world = frame.args[2].handle();
+                x = frame.args[3].i32();
+                y = frame.args[4].i32();
+                z = frame.args[5].i32();
+                return true;
+            }
+        };
+
+        struct BlockPlace {
+            static constexpr frame::EventId Id = frame::BlockPlace;
+            uint32_t player = 0;
+            uint32_t block = 0;
+            uint32_t world = 0;
+            int32_t x = 0;
+            int32_t y = 0;
+            int32_t z = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 6) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                block = frame.args[1].handle();
+                world = frame.args[2].handle();
+                x = frame.args[3].i32();
+                y = frame.args[4].i32();
+                z = frame.args[5].i32();
+                return true;
+            }
+        };
+
+        struct EntityDamage {
+            static constexpr frame::EventId Id = frame::EntityDamage;
+            std::string entityName;
+            double damage = 0.0;
+            int32_t entityId = 0;
+            frame::Uuid entityUuid;
+            std::string entityType;
+            std::string cause;
+            uint32_t world = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 7) {
+                    return false;
+                }
+                entityName = frame.args[0].str;
+                damage = frame.args[1].f64();
+                entityId = frame.args[2].i32();
+                entityUuid = frame.args[3].uuid();
+                entityType = frame.args[4].str;
+                cause = frame.args[5].str;
+                world = frame.args[6].handle();
+                return true;
+            }
+        };
+
+        struct EntityDeath {
+            static constexpr frame::EventId Id = frame::EntityDeath;
+            std::string entityName;
+            int32_t entityId = 0;
+            frame::Uuid entityUuid;
+            std::string entityType;
+            uint32_t world = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 5) {
+                    return false;
+                }
+                entityName = frame.args[0].str;
+                entityId = frame.args[1].i32();
+                entityUuid = frame.args[2].uuid();
+                entityType = frame.args[3].str;
+                world = frame.args[4].handle();
+                return true;
+            }
+        };
+
+        struct PlayerDeath {
+            static constexpr frame::EventId Id = frame::PlayerDeath;
+            uint32_t player = 0;
+            std::string deathMessage;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 2) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                deathMessage = frame.args[1].str;
+                return true;
+            }
+        };
+
+        struct InventoryClick {
+            static constexpr frame::EventId Id = frame::InventoryClick;
+            uint32_t player = 0;
+            int32_t slot = 0;
+            uint32_t item = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 3) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                slot = frame.args[1].i32();
+                item = frame.args[2].handle();
+                return true;
+            }
+        };
+
+        struct InventoryOpen {
+            static constexpr frame::EventId Id = frame::InventoryOpen;
+            uint32_t player = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 1) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                return true;
+            }
+        };
+
+        struct InventoryClose {
+            static constexpr frame::EventId Id = frame::InventoryClose;
+            uint32_t player = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 1) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                return true;
+            }
+        };
+
+        struct PlayerMove {
+            static constexpr frame::EventId Id = frame::PlayerMove;
+            uint32_t player = 0;
+            uint32_t world = 0;
+            double x = 0.0;
+            double y = 0.0;
+            double z = 0.0;
+            double yaw = 0.0;
+            double pitch = 0.0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 7) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                world = frame.args[1].handle();
+                x = frame.args[2].f64();
+                y = frame.args[3].f64();
+                z = frame.args[4].f64();
+                yaw = frame.args[5].f64();
+                pitch = frame.args[6].f64();
+                return true;
+            }
+        };
+
+        struct PlayerRespawn {
+            static constexpr frame::EventId Id = frame::PlayerRespawn;
+            uint32_t player = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 1) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                return true;
+            }
+        };
+
+        struct BlockIgnite {
+            static constexpr frame::EventId Id = frame::BlockIgnite;
+            uint32_t player = 0;
+            uint32_t block = 0;
+            uint32_t world = 0;
+            int32_t x = 0;
+            int32_t y = 0;
+            int32_t z = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 6) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                block = frame.args[1].handle();
+                world = frame.args[2].handle();
+                x = frame.args[3].i32();
+                y = frame.args[4].i32();
+                z = frame.args[5].i32();
+                return true;
+            }
+        };
+
+        struct EntitySpawn {
+            static constexpr frame::EventId Id = frame::EntitySpawn;
+            std::string entityType;
+            int32_t entityId = 0;
+            frame::Uuid entityUuid;
+            uint32_t world = 0;
+            double x = 0.0;
+            double y = 0.0;
+            double z = 0.0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 7) {
+                    return false;
+                }
+                entityType = frame.args[0].str;
+                entityId = frame.args[1].i32();
+                entityUuid = frame.args[2].uuid();
+                world = frame.args[3].handle();
+                x = frame.args[4].f64();
+                y = frame.args[5].f64();
+                z = frame.args[6].f64();
+                return true;
+            }
+        };
+
+        struct PlayerInteract {
+            static constexpr frame::EventId Id = frame::PlayerInteract;
+            uint32_t player = 0;
+            std::string action;
+            uint32_t item = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 3) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                action = frame.args[1].str;
+                item = frame.args[2].handle();
+                return true;
+            }
+        };
+
+        struct PlayerDropItem {
+            static constexpr frame::EventId Id = frame::PlayerDropItem;
+            uint32_t player = 0;
+            uint32_t item = 0;
+            int32_t amount = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 3) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                item = frame.args[1].handle();
+                amount = frame.args[2].i32();
+                return true;
+            }
+        };
+
+        struct PlayerPickupItem {
+            static constexpr frame::EventId Id = frame::PlayerPickupItem;
+            uint32_t player = 0;
+            uint32_t item = 0;
+            int32_t amount = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 3) {
+                    return false;
+                }
+                player = frame.args[0].handle();
+                item = frame.args[1].handle();
+                amount = frame.args[2].i32();
+                return true;
+            }
+        };
+
+        struct ServerCommand {
+            static constexpr frame::EventId Id = frame::ServerCommand;
+            std::string sender;
+            std::string command;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 2) {
+                    return false;
+                }
+                sender = frame.args[0].str;
+                command = frame.args[1].str;
+                return true;
+            }
+        };
+
+        struct WorldLoad {
+            static constexpr frame::EventId Id = frame::WorldLoad;
+            uint32_t world = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 1) {
+                    return false;
+                }
+                world = frame.args[0].handle();
+                return true;
+            }
+        };
+
+        struct WeatherChange {
+            static constexpr frame::EventId Id = frame::WeatherChange;
+            uint32_t world = 0;
+            bool raining = false;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 2) {
+                    return false;
+                }
+                world = frame.args[0].handle();
+                raining = frame.args[1].boolean;
+                return true;
+            }
+        };
+
+        struct HangingBreak {
+            static constexpr frame::EventId Id = frame::HangingBreak;
+            std::string entityType;
+            std::string cause;
+            int32_t entityId = 0;
+            frame::Uuid entityUuid;
+            uint32_t world = 0;
+
+            // 从二进制事件帧读取字段，事件ID不符或参数不足时返回 false
+            bool decode(const frame::Frame& frame) {
+                if (frame.id != Id || frame.args.size() < 5) {
+                    return false;
+                }
+                entityType = frame.args[0].str;
+                cause = frame.args[1].str;
+                entityId = frame.args[2].i32();
+                entityUuid = frame.args[3].uuid();
+                world = frame.args[4].handle();
+                return true;
+            }
+        };
+    }
+    // END GENERATED EVENT PAYLOADS
 }
 
-void broadcast(const char* message) {
+inline void broadcast(const char* message) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Broadcast).str(message));
+        return;
+    }
     std::ostringstream oss;
     oss << R"({"action":"broadcast","message":")" << message << R"("})";
     tranforcpp::sendMessage("broadcast", oss.str());
 }
 
-void sendMsg(const char* player, const char* message) {
+inline void sendMsg(const char* player, const char* message) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, SendMessage).str(player).str(message));
+        return;
+    }
     std::ostringstream oss;
     oss << R"({"action":"sendMessage","player":")" << player
         << R"(","message":")" << message << R"("})";
     tranforcpp::sendMessage("sendMessage", oss.str());
 }
 
-void console(const char* message) {
+inline void broadcast(const char* message, std::initializer_list<std::string> args) {
+    std::string joined = tranforcpp::detail::joinArgs(args);
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Broadcast).str(message).str(joined));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"broadcast","message":")" << message << R"(","args":")";
+    tranforcpp::detail::writeJsonString(oss, joined);
+    oss << R"("})";
+    tranforcpp::sendMessage("broadcast", oss.str());
+}
+
+inline void sendMsg(const char* player, const char* message, std::initializer_list<std::string> args) {
+    std::string joined = tranforcpp::detail::joinArgs(args);
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, SendMessage).str(player).str(message).str(joined));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"sendMessage","player":")" << player << R"(","message":")" << message << R"(","args":")";
+    tranforcpp::detail::writeJsonString(oss, joined);
+    oss << R"("})";
+    tranforcpp::sendMessage("sendMessage", oss.str());
+}
+
+namespace tranforcpp {
+    namespace detail {
+        // targets 为 Java 端 PlayerSelector 的选择器，如 "players:Steve,Alex"、"handles:3,7"、"world:world"、"permission:vip.chat"
+        inline void sendMulticast(const std::string& targets, const char* message, std::initializer_list<std::string> args) {
+            std::string joined = joinArgs(args);
+            if (wireFormat() == WireFormat::Binary) {
+                using namespace frame;
+                send(Writer(KindAction, Multicast).str(targets).str(message).str(joined));
+                return;
+            }
+            std::ostringstream oss;
+            oss << R"({"action":"multicast","targets":")";
+            writeJsonString(oss, targets);
+            oss << R"(","message":")" << message << R"(","args":")";
+            writeJsonString(oss, joined);
+            oss << R"("})";
+            tranforcpp::sendMessage("multicast", oss.str());
+        }
+
+        template <typename T>
+        inline std::string joinTargets(const char* type, const std::vector<T>& items) {
+            std::ostringstream oss;
+            oss << type << ':';
+            for (size_t i = 0; i < items.size(); ++i) {
+                if (i > 0) {
+                    oss << ',';
+                }
+                oss << items[i];
+            }
+            return oss.str();
+        }
+    }
+}
+
+inline void multicast(const std::vector<std::string>& players, const char* message, std::initializer_list<std::string> args) {
+    if (!players.empty()) {
+        tranforcpp::detail::sendMulticast(tranforcpp::detail::joinTargets("players", players), message, args);
+    }
+}
+
+inline void multicastHandles(const std::vector<uint32_t>& players, const char* message, std::initializer_list<std::string> args) {
+    if (!players.empty()) {
+        tranforcpp::detail::sendMulticast(tranforcpp::detail::joinTargets("handles", players), message, args);
+    }
+}
+
+inline void multicastWorld(const char* world, const char* message, std::initializer_list<std::string> args) {
+    tranforcpp::detail::sendMulticast(std::string("world:") + world, message, args);
+}
+
+inline void multicastPermission(const char* permission, const char* message, std::initializer_list<std::string> args) {
+    tranforcpp::detail::sendMulticast(std::string("permission:") + permission, message, args);
+}
+
+inline void console(const char* message) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Console).str(message));
+        return;
+    }
     std::ostringstream oss;
     oss << R"({"action":"console","message":")" << message << R"("})";
     tranforcpp::sendMessage("console", oss.str());
 }
 
-void dispatchCommand(const char* command, bool sync) {
+inline uint32_t dispatchCommand(const char* command, bool sync) {
+    uint32_t id = sync ? tranforcpp::detail::nextRequestId() : 0;
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, DispatchCommand).str(command).boolean(sync).i32(static_cast<int32_t>(id)));
+        return id;
+    }
     std::ostringstream oss;
-    oss << R"({"action":"dispatchCommand","command":")" << command << R"(","sync":)" << (sync ? "true" : "false") << R"(})";
+    oss << R"({"action":"dispatchCommand","command":")" << command << R"(","sync":)" << (sync ? "true" : "false")
+        << R"(,"id":)" << id << R"(})";
     tranforcpp::sendMessage("dispatchCommand", oss.str());
+    return id;
+}
+
+inline void subscribe(const char* events) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Subscribe).str(events));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"subscribe","events":")" << events << R"("})";
+    tranforcpp::sendMessage("subscribe", oss.str());
+}
+
+inline void unsubscribe(const char* events) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Unsubscribe).str(events));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"unsubscribe","events":")" << events << R"("})";
+    tranforcpp::sendMessage("unsubscribe", oss.str());
+}
+
+inline void setFilter(const char* event, const char* expression) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Filter).str(event).str(expression));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"filter","event":")" << event << R"(","expression":")" << expression << R"("})";
+    tranforcpp::sendMessage("filter", oss.str());
+}
+
+inline void intercept(const char* events) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Intercept).str(events));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"intercept","events":")" << events << R"("})";
+    tranforcpp::sendMessage("intercept", oss.str());
+}
+
+inline void verdict(uint32_t request, bool cancel) {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Verdict).i32(static_cast<int32_t>(request)).boolean(cancel));
+        return;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"verdict","id":)" << request << R"(,"cancel":)" << (cancel ? "true" : "false") << R"(})";
+    tranforcpp::sendMessage("verdict", oss.str());
+}
+
+inline uint32_t query(const char* queries) {
+    uint32_t id = tranforcpp::detail::nextRequestId();
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        send(Writer(KindAction, Query).i32(static_cast<int32_t>(id)).str(queries));
+        return id;
+    }
+    std::ostringstream oss;
+    oss << R"({"action":"query","id":)" << id << R"(,"queries":")" << queries << R"("})";
+    tranforcpp::sendMessage("query", oss.str());
+    return id;
+}
+
+inline void ready() {
+    if (tranforcpp::wireFormat() == tranforcpp::WireFormat::Binary) {
+        using namespace tranforcpp::frame;
+        Writer writer(KindAction, Ready);
+        send(writer);
+        return;
+    }
+    tranforcpp::sendMessage("ready", R"({"action":"ready"})");
 }
 
 #endif